@@ -0,0 +1,154 @@
+package com.tsscalendar.TSS.Calendar;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Drives a running server with a fixed number of concurrent clients and reports throughput and latency.
+ * Each client sends one request at a time and sends the next as soon as the response arrives (closed loop).
+ *
+ * To compare the request models, start the server once with spring.threads.virtual.enabled=false and once with
+ * true (Java 21+), and run the same load against each:
+ * <pre>
+ * ./mvnw -Pbenchmark test-compile exec:exec@load-test -Dload.args="label=platform clients=100,1000 seconds=30"
+ * </pre>
+ * Arguments are key=value pairs: url (default http://localhost:8080), label, clients (comma-separated),
+ * seconds (measured time per stage, after a warm-up of a fifth of it), paths (comma-separated; by default the
+ * read-only /firestore/events with a direct Firestore read and the paged /events listing) and sync (true to also
+ * drive /firestore/add). The sync trigger is opt-in because it calls the Forms API and writes to Firestore, and
+ * concurrent requests join the sync already running, so its numbers measure coalescing rather than the thread model.
+ */
+public class LoadTestClient {
+
+	private static final String DEFAULT_PATHS = "/firestore/events?status=approved&direct=true,/events?status=approved&pageSize=50";
+	private static final String SYNC_PATH = "/firestore/add";
+
+	// Latencies and failures seen by one client during the measured part of a stage
+	private static final class ClientResult {
+		private long[] latencies = new long[1024];
+		private int count;
+		private int errors;
+
+		private void record(long nanos) {
+			if (count == latencies.length) {
+				latencies = Arrays.copyOf(latencies, count * 2);
+			}
+			latencies[count++] = nanos;
+		}
+	}
+
+	public static void main(String[] args) throws Exception {
+		Map<String, String> options = new LinkedHashMap<>();
+		options.put("url", "http://localhost:8080");
+		options.put("label", "server");
+		options.put("clients", "100,1000");
+		options.put("seconds", "30");
+		options.put("paths", DEFAULT_PATHS);
+		options.put("sync", "false");
+		for (String arg : args) {
+			int separator = arg.indexOf('=');
+			if (separator <= 0 || !options.containsKey(arg.substring(0, separator))) {
+				throw new IllegalArgumentException("Expected one of " + options.keySet() + " as key=value but got '" + arg + "'");
+			}
+			options.put(arg.substring(0, separator), arg.substring(separator + 1));
+		}
+
+		String baseUrl = options.get("url").endsWith("/") ? options.get("url").substring(0, options.get("url").length() - 1) : options.get("url");
+		long measureNanos = TimeUnit.SECONDS.toNanos(Long.parseLong(options.get("seconds")));
+		HttpClient httpClient = HttpClient.newBuilder()
+				.version(HttpClient.Version.HTTP_1_1)
+				.connectTimeout(Duration.ofSeconds(10))
+				.build();
+
+		List<String> paths = new ArrayList<>(Arrays.asList(options.get("paths").split(",")));
+		if (Boolean.parseBoolean(options.get("sync"))) {
+			System.out.println("Also driving " + SYNC_PATH + ": this runs real syncs, and concurrent requests share one");
+			paths.add(SYNC_PATH);
+		}
+
+		System.out.printf("%-10s %-55s %7s %10s %9s %9s %9s %7s%n", "mode", "path", "clients", "req/s", "p50 ms", "p99 ms", "max ms", "errors");
+		for (String path : paths) {
+			HttpRequest request = HttpRequest.newBuilder(URI.create(baseUrl + path.trim()))
+					.timeout(Duration.ofSeconds(60))
+					.GET()
+					.build();
+			for (String clients : options.get("clients").split(",")) {
+				runStage(options.get("label"), httpClient, request, Integer.parseInt(clients.trim()), measureNanos);
+			}
+		}
+	}
+
+	// Runs one path at one concurrency: a warm-up, then the measured period, and prints one result line
+	private static void runStage(String label, HttpClient httpClient, HttpRequest request, int clients, long measureNanos)
+			throws InterruptedException {
+		long warmupNanos = measureNanos / 5;
+		long measureFrom = System.nanoTime() + warmupNanos;
+		long stopAt = measureFrom + measureNanos;
+		List<ClientResult> results = new ArrayList<>(clients);
+		CountDownLatch done = new CountDownLatch(clients);
+		for (int i = 0; i < clients; i++) {
+			ClientResult result = new ClientResult();
+			results.add(result);
+			Thread client = new Thread(() -> {
+				try {
+					for (long sentAt = System.nanoTime(); sentAt < stopAt; sentAt = System.nanoTime()) {
+						boolean ok;
+						try {
+							HttpResponse<Void> response = httpClient.send(request, HttpResponse.BodyHandlers.discarding());
+							ok = response.statusCode() >= 200 && response.statusCode() < 300;
+						} catch (java.io.IOException e) {
+							ok = false;
+						}
+						if (sentAt >= measureFrom) {
+							result.record(System.nanoTime() - sentAt);
+							result.errors += ok ? 0 : 1;
+						}
+					}
+				} catch (InterruptedException e) {
+					Thread.currentThread().interrupt();
+				} finally {
+					done.countDown();
+				}
+			}, "load-client-" + i);
+			client.setDaemon(true);
+			client.start();
+		}
+		done.await();
+
+		int total = 0;
+		int errors = 0;
+		for (ClientResult result : results) {
+			total += result.count;
+			errors += result.errors;
+		}
+		long[] latencies = new long[total];
+		int offset = 0;
+		for (ClientResult result : results) {
+			System.arraycopy(result.latencies, 0, latencies, offset, result.count);
+			offset += result.count;
+		}
+		Arrays.sort(latencies);
+		System.out.printf("%-10s %-55s %7d %10.1f %9.1f %9.1f %9.1f %7d%n", label, request.uri().getPath()
+						+ (request.uri().getQuery() != null ? "?" + request.uri().getQuery() : ""), clients,
+				total / (measureNanos / 1e9), percentileMillis(latencies, 0.50), percentileMillis(latencies, 0.99),
+				percentileMillis(latencies, 1.0), errors);
+	}
+
+	private static double percentileMillis(long[] sorted, double percentile) {
+		if (sorted.length == 0) {
+			return 0;
+		}
+		int index = (int) Math.min(sorted.length - 1, Math.ceil(percentile * sorted.length) - 1);
+		return sorted[Math.max(index, 0)] / 1e6;
+	}
+}
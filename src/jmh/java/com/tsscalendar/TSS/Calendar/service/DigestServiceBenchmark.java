@@ -0,0 +1,49 @@
+package com.tsscalendar.TSS.Calendar.service;
+
+import com.tsscalendar.TSS.Calendar.model.Occurrence;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Composes a week of 200 events into digests for 1,000 and 10,000 recipients, without queuing them.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class DigestServiceBenchmark {
+
+	@Param({"1000", "10000"})
+	public int recipients;
+
+	private EmailTemplates templates;
+	private List<Occurrence> occurrences;
+	private SubscriptionIndex subscriptions;
+
+	@Setup
+	public void setUp() {
+		templates = new EmailTemplates();
+		occurrences = DigestServiceTests.week(200);
+		subscriptions = new SubscriptionIndex(DigestServiceTests.subscribers(recipients));
+	}
+
+	@Benchmark
+	public int compose() {
+		return DigestService.compose(templates, occurrences, subscriptions, DigestServiceTests.FROM, DigestServiceTests.TO,
+				500, batch -> { }).digests();
+	}
+}
@@ -0,0 +1,49 @@
+package com.tsscalendar.TSS.Calendar.service;
+
+import com.tsscalendar.TSS.Calendar.model.EmailMessage;
+import com.tsscalendar.TSS.Calendar.model.Event;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Renders the event announcement for 10,000 recipients; the score is emails rendered per second.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class EmailTemplateBenchmark {
+
+	private static final int RECIPIENTS = 10_000;
+
+	private EmailTemplates templates;
+	private Event event;
+	private List<String> recipients;
+
+	@Setup
+	public void setUp() {
+		templates = new EmailTemplates();
+		event = EmailTemplateTests.announcement();
+		recipients = EmailTemplateTests.recipients(RECIPIENTS);
+	}
+
+	@Benchmark
+	@OperationsPerInvocation(RECIPIENTS)
+	public List<EmailMessage> renderEventEmails() {
+		return templates.renderEventEmails(event, "Robotics Night", recipients);
+	}
+}
@@ -0,0 +1,59 @@
+package com.tsscalendar.TSS.Calendar.service;
+
+import com.google.api.client.json.jackson2.JacksonFactory;
+import com.google.api.services.forms.v1.model.FormResponse;
+import com.google.api.services.forms.v1.model.ListFormResponsesResponse;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.ByteArrayInputStream;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Decodes a 500-response responses.list page with the streaming decoder and with the FormResponse object graph.
+ * Run with -prof gc to compare the bytes allocated per page as well as the time.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class FormResponseDecoderBenchmark {
+
+	private byte[] json;
+	private FormResponseDecoder decoder;
+	private JacksonFactory jsonFactory;
+
+	@Setup
+	public void setUp() {
+		json = FormResponseDecoderTests.page(500);
+		decoder = new FormResponseDecoder(FormResponseDecoder.parseQuestions(FormResponseDecoderTests.QUESTIONS));
+		jsonFactory = JacksonFactory.getDefaultInstance();
+	}
+
+	@Benchmark
+	public int streamingDecoder() throws Exception {
+		return decoder.decodePage(new ByteArrayInputStream(json)).submissions().size();
+	}
+
+	// The parse and answer walk the sync used before the streaming decoder
+	@Benchmark
+	public int objectGraph() throws Exception {
+		int answered = 0;
+		for (FormResponse response : jsonFactory.fromInputStream(new ByteArrayInputStream(json), ListFormResponsesResponse.class).getResponses()) {
+			for (String questionId : FormResponseDecoderTests.QUESTION_IDS) {
+				answered += FormResponseDecoderTests.answerText(response, questionId) != null ? 1 : 0;
+			}
+		}
+		return answered;
+	}
+}
@@ -0,0 +1,64 @@
+package com.tsscalendar.TSS.Calendar.service;
+
+import com.tsscalendar.TSS.Calendar.model.Event;
+import com.tsscalendar.TSS.Calendar.model.Occurrence;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Expands and merges a school year of 200 weekly clubs, with an empty expansion cache (cold) and a warm one (cached).
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class RecurrenceExpanderBenchmark {
+
+	private List<Event> clubs;
+	private RecurrenceExpander cached;
+
+	@Setup
+	public void setUp() {
+		clubs = RecurrenceExpanderTests.schoolYearClubs();
+		cached = new RecurrenceExpander(1000);
+		drain(cached.occurrences(clubs, RecurrenceExpanderTests.SCHOOL_START, RecurrenceExpanderTests.SCHOOL_END,
+				RecurrenceExpanderTests.SKIP_DATES));
+	}
+
+	@Benchmark
+	public int cold() {
+		RecurrenceExpander expander = new RecurrenceExpander(1000);
+		return drain(expander.occurrences(clubs, RecurrenceExpanderTests.SCHOOL_START, RecurrenceExpanderTests.SCHOOL_END,
+				RecurrenceExpanderTests.SKIP_DATES));
+	}
+
+	@Benchmark
+	public int cached() {
+		return drain(cached.occurrences(clubs, RecurrenceExpanderTests.SCHOOL_START, RecurrenceExpanderTests.SCHOOL_END,
+				RecurrenceExpanderTests.SKIP_DATES));
+	}
+
+	// Walks every occurrence and returns a value depending on each, so none of the work can be skipped
+	private static int drain(Iterator<Occurrence> occurrences) {
+		int checksum = 0;
+		while (occurrences.hasNext()) {
+			Occurrence occurrence = occurrences.next();
+			checksum = 31 * checksum + occurrence.date().getDayOfYear();
+		}
+		return checksum;
+	}
+}
@@ -0,0 +1,64 @@
+package com.tsscalendar.TSS.Calendar.service;
+
+import com.tsscalendar.TSS.Calendar.model.Event;
+import com.tsscalendar.TSS.Calendar.model.Subscription;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Finds the audience of one event among 20,000 subscribers with the bitset index and with a scan of every subscription.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class SubscriptionIndexBenchmark {
+
+	private List<Subscription> subscriptions;
+	private SubscriptionIndex index;
+	private Event[] events;
+	private int next;
+
+	@Setup
+	public void setUp() {
+		subscriptions = SubscriptionIndexTests.subscribers(20_000);
+		index = new SubscriptionIndex(subscriptions);
+		events = SubscriptionIndexTests.events(100);
+	}
+
+	@Benchmark
+	public int bitsetIndex() {
+		return index.match(nextEvent()).cardinality();
+	}
+
+	@Benchmark
+	public int scan() {
+		Event event = nextEvent();
+		int audience = 0;
+		for (Subscription subscription : subscriptions) {
+			if (SubscriptionIndexTests.matches(subscription, event)) {
+				audience++;
+			}
+		}
+		return audience;
+	}
+
+	// Cycles through the events, so each category and supervisor is matched in turn
+	private Event nextEvent() {
+		next = (next + 1) % events.length;
+		return events[next];
+	}
+}
@@ -0,0 +1,74 @@
+/**
+ * CalendarFeedController.java
+ *
+ * Serves the approved events as an iCalendar (ICS) feed that phones and
+ * calendar apps can subscribe to. Supports conditional GET so repeated polls
+ * are answered with 304 Not Modified.
+ *
+ * Sources:
+ * - HTTP conditional requests: https://datatracker.ietf.org/doc/html/rfc9110#section-13
+ *
+ * @author Artin Mehri
+ * @version 1.0
+ */
+package com.tsscalendar.TSS.Calendar.controller;
+import com.tsscalendar.TSS.Calendar.service.CalendarFeed;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestHeader;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+/**
+ * Controller for the calendar subscription feed.
+ */
+@RestController
+public class CalendarFeedController {
+
+    private static final MediaType TEXT_CALENDAR = MediaType.parseMediaType("text/calendar; charset=utf-8");
+    // Clients must revalidate, but a revalidation is cheap (304 from memory)
+    private static final String CACHE_CONTROL = "public, max-age=300, must-revalidate";
+
+    @Autowired
+    private CalendarFeed calendarFeed;
+
+    /**
+     * Returns the ICS feed of approved events, optionally for one category.
+     *
+     * @post Firestore is only read when the events changed since the feed was last rendered
+     *
+     * @param category        category to include (case-insensitive), omitted for all categories
+     * @param ifNoneMatch     ETag(s) the client already has
+     * @param ifModifiedSince Last-Modified time the client already has
+     * @return 304 if the client's copy is current, otherwise the feed as text/calendar
+     */
+    @GetMapping("/calendar.ics")
+    public ResponseEntity<byte[]> getFeed(@RequestParam(value = "category", required = false) String category,
+                                          @RequestHeader(value = "If-None-Match", required = false) String ifNoneMatch,
+                                          @RequestHeader(value = "If-Modified-Since", required = false) String ifModifiedSince) {
+        CalendarFeed.Rendered feed;
+        try {
+            feed = calendarFeed.getFeed(category);
+        } catch (Exception e) {
+            System.err.println("Failed to render calendar feed: " + e.getMessage());
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).build();
+        }
+
+        if (feed.isCurrent(ifNoneMatch, ifModifiedSince)) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED)
+                    .eTag(feed.etag())
+                    .lastModified(feed.lastModified())
+                    .header("Cache-Control", CACHE_CONTROL)
+                    .build();
+        }
+        return ResponseEntity.ok()
+                .contentType(TEXT_CALENDAR)
+                .eTag(feed.etag())
+                .lastModified(feed.lastModified())
+                .header("Cache-Control", CACHE_CONTROL)
+                .body(feed.body());
+    }
+}
@@ -0,0 +1,193 @@
+/**
+ * EmailController.java
+ *
+ * REST controller for bulk email. Sending is asynchronous: a request queues a
+ * dispatch job and returns its ID, and the job's per-recipient delivery status
+ * can be polled afterwards. Sending to arbitrary recipients, sending the
+ * digest to every subscriber and reading a job's recipients require the
+ * admin token.
+ *
+ * @author Artin Mehri
+ * @version 1.0
+ */
+package com.tsscalendar.TSS.Calendar.controller;
+import com.tsscalendar.TSS.Calendar.service.AdminCredential;
+import com.tsscalendar.TSS.Calendar.service.DigestService;
+import com.tsscalendar.TSS.Calendar.service.EmailDispatchService;
+import com.tsscalendar.TSS.Calendar.service.ReminderScheduler;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+
+/**
+ * Controller for email dispatch endpoints.
+ */
+@RestController
+@RequestMapping("/emails")
+public class EmailController {
+
+    /**
+     * Body of a send request.
+     *
+     * @param subject    the subject line
+     * @param html       the HTML body
+     * @param recipients the recipient addresses
+     */
+    public record SendRequest(String subject, String html, List<String> recipients) {
+    }
+
+    @Autowired
+    private EmailDispatchService emailDispatchService;
+
+    @Autowired
+    private ReminderScheduler reminderScheduler;
+
+    @Autowired
+    private DigestService digestService;
+
+    @Autowired
+    private AdminCredential adminCredential;
+
+    /**
+     * Queues one email for every recipient.
+     *
+     * @param adminToken the X-Admin-Token header
+     * @param request    subject, html and recipients
+     * @return 202 with the jobId; 400 if the request is incomplete or a recipient is not an email address;
+     *         401 without the admin token; 503 if the queue is full
+     */
+    @PostMapping("/send")
+    public ResponseEntity<Map<String, Object>> send(@RequestHeader(value = AdminCredential.HEADER, required = false) String adminToken,
+                                                    @RequestBody SendRequest request) {
+        if (!adminCredential.matches(adminToken)) {
+            return unauthorized();
+        }
+        Map<String, Object> response = new HashMap<>();
+        if (request.subject() == null || request.html() == null || request.recipients() == null || request.recipients().isEmpty()) {
+            response.put("success", false);
+            response.put("error", "subject, html and at least one recipient are required");
+            return ResponseEntity.badRequest().body(response);
+        }
+        try {
+            String jobId = emailDispatchService.submit(request.subject(), request.html(), request.recipients());
+            response.put("success", true);
+            response.put("jobId", jobId);
+            response.put("recipients", request.recipients().size());
+            return ResponseEntity.status(HttpStatus.ACCEPTED).body(response);
+        } catch (IllegalArgumentException e) {
+            response.put("success", false);
+            response.put("error", e.getMessage());
+            return ResponseEntity.badRequest().body(response);
+        } catch (IllegalStateException e) {
+            response.put("success", false);
+            response.put("error", e.getMessage());
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).body(response);
+        }
+    }
+
+    /**
+     * Reports a dispatch job's state and each recipient's delivery status.
+     *
+     * @param adminToken the X-Admin-Token header
+     * @param jobId      the ID returned by /emails/send
+     * @return the job report; 404 if the job is unknown, 401 without the admin token
+     */
+    @GetMapping("/jobs/{jobId}")
+    public ResponseEntity<Map<String, Object>> getJob(@RequestHeader(value = AdminCredential.HEADER, required = false) String adminToken,
+                                                      @PathVariable("jobId") String jobId) {
+        if (!adminCredential.matches(adminToken)) {
+            return unauthorized();
+        }
+        Map<String, Object> job = emailDispatchService.getJob(jobId);
+        if (job == null) {
+            Map<String, Object> error = new HashMap<>();
+            error.put("success", false);
+            error.put("error", "No email job with ID " + jobId);
+            return ResponseEntity.status(HttpStatus.NOT_FOUND).body(error);
+        }
+        return ResponseEntity.ok(job);
+    }
+
+    /**
+     * Reports request, retry and delivery counters of the dispatcher.
+     *
+     * @return ResponseEntity with the dispatch metrics
+     */
+    @GetMapping("/metrics")
+    public ResponseEntity<Map<String, Object>> getMetrics() {
+        return ResponseEntity.ok(emailDispatchService.getMetrics());
+    }
+
+    /**
+     * Reports pending, sent and skipped event reminders.
+     *
+     * @return ResponseEntity with the reminder scheduler metrics
+     */
+    @GetMapping("/reminders")
+    public ResponseEntity<Map<String, Object>> getReminderMetrics() {
+        return ResponseEntity.ok(reminderScheduler.getMetrics());
+    }
+
+    /**
+     * Sends the digest of upcoming approved events to every subscribed recipient.
+     *
+     * @param adminToken the X-Admin-Token header
+     * @param days       length of the window starting today (default 7)
+     * @return future ResponseEntity with the run report (queued emails, Firestore reads, runtime);
+     *         400 for a bad window, 401 without the admin token, 409 if a digest is already running,
+     *         503 with the report and its jobIds if the dispatch queue refused part of the digest
+     */
+    @PostMapping("/digest")
+    public CompletableFuture<ResponseEntity<Map<String, Object>>> sendDigest(
+            @RequestHeader(value = AdminCredential.HEADER, required = false) String adminToken,
+            @RequestParam(value = "days", defaultValue = "7") int days) {
+        if (!adminCredential.matches(adminToken)) {
+            return CompletableFuture.completedFuture(unauthorized());
+        }
+        return digestService.run(days).<ResponseEntity<Map<String, Object>>>thenApply(report -> {
+            Map<String, Object> response = new HashMap<>();
+            response.put("report", report);
+            if (report.error() != null) {
+                // The jobs in the report were queued; retrying the whole digest would email those recipients twice
+                response.put("success", false);
+                response.put("error", "Queued " + report.digests() + " digests in " + report.jobIds().size()
+                        + " jobs before stopping: " + report.error());
+                return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).body(response);
+            }
+            response.put("success", true);
+            return ResponseEntity.ok(response);
+        }).exceptionally(t -> {
+            Throwable cause = t instanceof CompletionException && t.getCause() != null ? t.getCause() : t;
+            Map<String, Object> response = new HashMap<>();
+            response.put("success", false);
+            response.put("error", cause.getMessage());
+            HttpStatus status = HttpStatus.INTERNAL_SERVER_ERROR;
+            if (cause instanceof IllegalArgumentException) {
+                status = HttpStatus.BAD_REQUEST;
+            } else if (cause instanceof IllegalStateException) {
+                status = HttpStatus.CONFLICT;
+            }
+            return ResponseEntity.status(status).body(response);
+        });
+    }
+
+    private ResponseEntity<Map<String, Object>> unauthorized() {
+        Map<String, Object> response = new HashMap<>();
+        response.put("success", false);
+        response.put("error", "A valid " + AdminCredential.HEADER + " header is required");
+        return ResponseEntity.status(HttpStatus.UNAUTHORIZED).body(response);
+    }
+}
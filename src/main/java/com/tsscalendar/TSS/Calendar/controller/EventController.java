@@ -0,0 +1,181 @@
+/**
+ * EventController.java
+ *
+ * REST controller for reading events as typed JSON.
+ * Lists events page by page using Firestore cursors, and by calendar month or date range.
+ *
+ * Sources:
+ * - Firestore query cursors: https://firebase.google.com/docs/firestore/query-data/query-cursors
+ * - Spring Boot REST Tutorial: https://youtu.be/gJrjgg1KVL4?si=rDTwvKmlFe0j_1oP
+ *
+ * @author Artin Mehri
+ * @version 1.0
+ */
+package com.tsscalendar.TSS.Calendar.controller;
+import com.tsscalendar.TSS.Calendar.model.Event;
+import com.tsscalendar.TSS.Calendar.model.Occurrence;
+import com.tsscalendar.TSS.Calendar.service.EventCalendar;
+import com.tsscalendar.TSS.Calendar.service.EventOccurrences;
+import com.tsscalendar.TSS.Calendar.service.Firestore;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import java.time.LocalDate;
+import java.time.format.DateTimeParseException;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+
+/**
+ * Controller for event listing endpoints used by the front end.
+ */
+@RestController
+@RequestMapping("/events")
+public class EventController {
+
+    // Largest page a client may request
+    private static final int MAX_PAGE_SIZE = 200;
+
+    @Autowired
+    private Firestore firestoreService;
+    @Autowired
+    private EventCalendar eventCalendar;
+    @Autowired
+    private EventOccurrences eventOccurrences;
+
+    /**
+     * Lists one page of events with a status.
+     *
+     * @pre pageSize is between 1 and MAX_PAGE_SIZE
+     * @post Reads at most pageSize documents, projected to the listing fields
+     *
+     * @param status   the event status, "approved" by default
+     * @param pageSize number of events per page, 50 by default
+     * @param cursor   the nextCursor returned with the previous page, omitted for the first page
+     * @return future ResponseEntity with success, events and nextCursor (null on the last page)
+     */
+    @GetMapping
+    public CompletableFuture<ResponseEntity<Map<String, Object>>> listEvents(
+            @RequestParam(value = "status", defaultValue = "approved") String status,
+            @RequestParam(value = "pageSize", defaultValue = "50") int pageSize,
+            @RequestParam(value = "cursor", required = false) String cursor) {
+        if (pageSize < 1 || pageSize > MAX_PAGE_SIZE) {
+            return CompletableFuture.completedFuture(badRequest("pageSize must be between 1 and " + MAX_PAGE_SIZE));
+        }
+
+        return firestoreService.getEventPageAsync(status, pageSize, cursor)
+                .thenApply(page -> {
+                    Map<String, Object> response = new HashMap<>();
+                    response.put("success", true);
+                    response.put("events", page.events());
+                    response.put("nextCursor", page.nextCursor());
+                    return ResponseEntity.ok(response);
+                })
+                .exceptionally(this::errorResponse);
+    }
+
+    /**
+     * Lists the approved events of one calendar month.
+     *
+     * @param year  the calendar year
+     * @param month the month (1-12)
+     * @return future ResponseEntity with success and events sorted by date
+     */
+    @GetMapping("/calendar")
+    public CompletableFuture<ResponseEntity<Map<String, Object>>> getMonth(@RequestParam("year") int year,
+                                                                           @RequestParam("month") int month) {
+        if (month < 1 || month > 12) {
+            return CompletableFuture.completedFuture(badRequest("month must be between 1 and 12"));
+        }
+        return eventCalendar.getMonth(year, month)
+                .thenApply(this::eventsResponse)
+                .exceptionally(this::errorResponse);
+    }
+
+    /**
+     * Lists the approved events between two dates, inclusive.
+     *
+     * @param from the first day as yyyy-MM-dd
+     * @param to   the last day as yyyy-MM-dd
+     * @return future ResponseEntity with success and events sorted by date; 400 for an invalid range
+     */
+    @GetMapping("/range")
+    public CompletableFuture<ResponseEntity<Map<String, Object>>> getRange(@RequestParam("from") String from,
+                                                                           @RequestParam("to") String to) {
+        LocalDate fromDate;
+        LocalDate toDate;
+        try {
+            fromDate = LocalDate.parse(from);
+            toDate = LocalDate.parse(to);
+        } catch (DateTimeParseException e) {
+            return CompletableFuture.completedFuture(badRequest("from and to must be dates in yyyy-MM-dd format"));
+        }
+        return eventCalendar.getRange(fromDate, toDate)
+                .thenApply(this::eventsResponse)
+                .exceptionally(this::errorResponse);
+    }
+
+    /**
+     * Lists every occurrence of approved events between two dates, inclusive.
+     * Weekly events appear once per week, except on PA days and holidays.
+     *
+     * @param from     the first day as yyyy-MM-dd
+     * @param to       the last day as yyyy-MM-dd
+     * @param category category to include, omitted for every category
+     * @return future ResponseEntity with success and occurrences in chronological order; 400 for an invalid range
+     */
+    @GetMapping("/occurrences")
+    public CompletableFuture<ResponseEntity<Map<String, Object>>> getOccurrences(@RequestParam("from") String from,
+                                                                                 @RequestParam("to") String to,
+                                                                                 @RequestParam(value = "category", required = false) String category) {
+        LocalDate fromDate;
+        LocalDate toDate;
+        try {
+            fromDate = LocalDate.parse(from);
+            toDate = LocalDate.parse(to);
+        } catch (DateTimeParseException e) {
+            return CompletableFuture.completedFuture(badRequest("from and to must be dates in yyyy-MM-dd format"));
+        }
+        return eventOccurrences.getOccurrences(fromDate, toDate, category)
+                .thenApply(occurrences -> {
+                    Map<String, Object> response = new HashMap<>();
+                    response.put("success", true);
+                    response.put("total", occurrences.size());
+                    response.put("occurrences", occurrences);
+                    return ResponseEntity.ok(response);
+                })
+                .exceptionally(this::errorResponse);
+    }
+
+    private ResponseEntity<Map<String, Object>> eventsResponse(List<Event> events) {
+        Map<String, Object> response = new HashMap<>();
+        response.put("success", true);
+        response.put("total", events.size());
+        response.put("events", events);
+        return ResponseEntity.ok(response);
+    }
+
+    private ResponseEntity<Map<String, Object>> badRequest(String message) {
+        Map<String, Object> error = new HashMap<>();
+        error.put("success", false);
+        error.put("error", message);
+        return ResponseEntity.badRequest().body(error);
+    }
+
+    // Invalid arguments are a 400, anything else a 500
+    private ResponseEntity<Map<String, Object>> errorResponse(Throwable t) {
+        Throwable cause = t instanceof CompletionException && t.getCause() != null ? t.getCause() : t;
+        if (cause instanceof IllegalArgumentException) {
+            return badRequest(cause.getMessage());
+        }
+        Map<String, Object> error = new HashMap<>();
+        error.put("success", false);
+        error.put("error", cause.getMessage());
+        return ResponseEntity.internalServerError().body(error);
+    }
+}
@@ -12,21 +12,25 @@
  * @version 1.0
  */
 package com.tsscalendar.TSS.Calendar.controller;
+import com.tsscalendar.TSS.Calendar.service.AdminCredential;
 import com.tsscalendar.TSS.Calendar.service.Firestore;
-import com.google.api.services.forms.v1.model.FormResponse;
+import com.tsscalendar.TSS.Calendar.service.FormSyncService;
+import com.tsscalendar.TSS.Calendar.service.SyncJournal;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 import java.util.HashMap;
-import java.util.List;
 import java.util.Map;
-import java.time.LocalDate;
-import java.util.Objects;
-
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
 
 /**
  * Controller for managing Firestore event creation from form responses.
@@ -39,131 +43,177 @@ public class FirestoreController {
     @Autowired
     private Firestore firestoreService;
     @Autowired
-    private GoogleFormController googleFormController;
+    private FormSyncService formSyncService;
+    @Autowired
+    private SyncJournal syncJournal;
+    @Autowired
+    private AdminCredential adminCredential;
+
+    /**
+     * Runs an incremental sync of every form, or waits for the syncs already in progress.
+     *
+     * @return ResponseEntity with the same content as {@link #addToFirestore(String, boolean)}
+     */
+    public ResponseEntity<Map<String, Object>> addToFirestore() {
+        return addToFirestore(null, false).join();
+    }
 
     /**
      * Endpoint to add Google Form responses to Firestore as event documents.
-     * Fetches responses from Google Forms and creates new events with "pending" status.
-     * Skips duplicate events based on title.
+     * Starts a sync of one form, or of every form if none is named, unless one is already running
+     * (scheduled or requested), in which case the caller gets that sync's result with "coalesced"
+     * set to true instead of starting another.
+     * The request thread is released while the sync runs.
+     * A node that does not hold the leader lease answers 409 with the leader's node ID.
      *
-     * @return ResponseEntity containing a success flag and the number of events added.
+     * @param form       the form's name in tss.forms.names, or null to sync every form
+     * @param fullResync true to ignore the watermark and walk every response the form has received
+     * @return future ResponseEntity containing a success flag, the number of events added and one report per batch,
+     *         or for every form the summed totals and each form's result under "forms"; 404 if the form is unknown
      * @pre Google Forms API credentials must be valid
      * @pre Firestore must be initialized and accessible
      * @post New events are added to Firestore "events" collection with status "pending"
      */
     @GetMapping("/add")
-    public ResponseEntity<Map<String, Object>> addToFirestore() {
-        Map<String, Object> response = new HashMap<>();
-        int eventsAdded = 0;
-
-        logToLocalFile("SYSTEM: Sync process started.");
-
+    public CompletableFuture<ResponseEntity<Map<String, Object>>> addToFirestore(@RequestParam(value = "form", required = false) String form,
+                                                                                @RequestParam(value = "fullResync", defaultValue = "false") boolean fullResync) {
+        CompletableFuture<Map<String, Object>> sync;
         try {
-            Map<String, Object> answers = googleFormController.getResponses();
-
-            @SuppressWarnings("unchecked")
-            List<FormResponse> formResponses = (List<FormResponse>) answers.get("responses");
-
-            if (formResponses != null) {
-                for (FormResponse formResponse : formResponses) {
-                    try {
-                        // Title extraction (Simplified for brevity, keep your logic here)
-                        String eventTitle = getAnswerText(formResponse, "46cfc9f8");
-
-                        // Check if title exists before adding
-                        if (eventTitle != null && !firestoreService.checkDocumentExists(eventTitle)) {
-                            // Extract other fields...
-                            String eventSupervisor = getAnswerText(formResponse, "03e3278b");
-                            String eventLocation = getAnswerText(formResponse, "13add265");
-                            String eventDate = getAnswerText(formResponse, "2171d758");
-                            String eventStartTime = getAnswerText(formResponse, "0db76540");
-                            String eventEndTime = getAnswerText(formResponse, "114a2ced");
-                            String eventDescription = getAnswerText(formResponse, "5235d67f");
-                            String eventCategory = getAnswerText(formResponse, "6082cc62");
-                            String actionRequired = getAnswerText(formResponse, "3b35620f");
-                            String submitTime = formResponse.getCreateTime();
-                            String respondentEmail = formResponse.getRespondentEmail();
-
-                            // Parsing the date
-                            LocalDate date = LocalDate.parse(eventDate);
-                            int year = date.getYear();
-                            int month = date.getMonthValue();
-
-
-                            var weeklyAns = formResponse.getAnswers().get("789c6989");
-                            Boolean weekly = weeklyAns != null && "Yes".equals(getAnswerText(formResponse, "789c6989"));
-
-                            if (Objects.equals(eventCategory, "\uD83D\uDCD8 Academics (tests, due dates, study sessions)")) {
-                                eventCategory = "Academics";
-                            } else if (Objects.equals(eventCategory, "\uD83C\uDFC6 Clubs")) {
-                                eventCategory = "Clubs";
-                            } else if (Objects.equals(eventCategory, "\uD83C\uDF89 Student Life (events, spirit days)")) {
-                                eventCategory = "Student Life";
-                            } else if (Objects.equals(eventCategory, "\uD83C\uDFC0 Sports")) {
-                                eventCategory = "Sports";
-                            }
-
-                            firestoreService.addEvent(eventTitle, eventSupervisor, eventDate, eventStartTime, eventEndTime,
-                                    eventDescription, eventCategory, weekly, submitTime, respondentEmail, eventLocation, actionRequired, month, year);
+            sync = form == null ? formSyncService.triggerAll(fullResync) : formSyncService.trigger(form, fullResync);
+        } catch (IllegalArgumentException e) {
+            Map<String, Object> error = new HashMap<>();
+            error.put("success", false);
+            error.put("error", e.getMessage());
+            return CompletableFuture.completedFuture(ResponseEntity.status(HttpStatus.NOT_FOUND).body(error));
+        }
+        return sync.thenApply(result -> {
+            if (Boolean.TRUE.equals(result.get("success"))) {
+                return ResponseEntity.ok(result);
+            }
+            HttpStatus status = Boolean.TRUE.equals(result.get("standby")) ? HttpStatus.CONFLICT : HttpStatus.INTERNAL_SERVER_ERROR;
+            return ResponseEntity.status(status).body(result);
+        });
+    }
 
-                            eventsAdded++;
+    /**
+     * Reports, for every form, whether a sync is running, the current polling interval and the last sync's outcome,
+     * along with the leader lease.
+     *
+     * @return ResponseEntity with the sync status
+     */
+    @GetMapping("/sync-status")
+    public ResponseEntity<Map<String, Object>> getSyncStatus() {
+        return ResponseEntity.ok(formSyncService.getStatus());
+    }
 
-                            logToLocalFile("ADDED: Event '" + eventTitle + "' successfully pushed to Firestore.");
-                        }
-                    } catch (Exception e) {
-                        logToLocalFile("WARNING: Failed to process a response: " + e.getMessage());
-                    }
-                }
-            }
+    /**
+     * Endpoint to list events with a given status.
+     * Served from the event cache unless direct=true; a cache miss releases the servlet thread while Firestore answers.
+     *
+     * @param status the event status, e.g. "pending" or "approved"
+     * @param direct true to bypass the cache and read from Firestore
+     * @return future ResponseEntity containing a success flag, the count and the formatted events
+     */
+    @GetMapping("/events")
+    public CompletableFuture<ResponseEntity<Map<String, Object>>> getEventsByStatus(@RequestParam("status") String status,
+                                                                                    @RequestParam(value = "direct", defaultValue = "false") boolean direct) {
+        return firestoreService.getAllEventsStatusBasedAsync(status, direct)
+                .thenApply(events -> {
+                    Map<String, Object> response = new HashMap<>();
+                    response.put("success", true);
+                    response.put("total", events.length);
+                    response.put("events", events);
+                    return ResponseEntity.ok(response);
+                })
+                .exceptionally(this::errorResponse);
+    }
 
-            response.put("success", true);
-            response.put("totalAdded", eventsAdded);
-            logToLocalFile("SYSTEM: Sync completed. Total added: " + eventsAdded);
-            return ResponseEntity.ok(response);
+    /**
+     * Reports hit, miss, eviction and staleness counters of the event cache.
+     *
+     * @return ResponseEntity with the cache metrics
+     */
+    @GetMapping("/cache-metrics")
+    public ResponseEntity<Map<String, Object>> getCacheMetrics() {
+        return ResponseEntity.ok(firestoreService.getEventCacheMetrics());
+    }
 
-        } catch (Exception e) {
-            logToLocalFile("ERROR: Critical sync failure: " + e.getMessage());
-            response.put("success", false);
-            response.put("error", e.getMessage());
-            return ResponseEntity.internalServerError().body(response);
-        }
+    /**
+     * Reports queued, written and dropped entry counters of the sync journal.
+     *
+     * @return ResponseEntity with the journal metrics
+     */
+    @GetMapping("/journal-metrics")
+    public ResponseEntity<Map<String, Object>> getJournalMetrics() {
+        return ResponseEntity.ok(syncJournal.getMetrics());
     }
 
     /**
-     * Helper method to reduce code duplication and satisfy Javadoc warnings.
+     * Endpoint to approve an event by its title, compared after trimming, collapsing whitespace and lower-casing.
      *
-     * @param response   The Google Form response
-     * @param questionId The ID of the question
-     * @return The answer text or null
+     * @param adminToken the X-Admin-Token header
+     * @param title      the event title
+     * @return future ResponseEntity with a success flag; 404 if no event has that title, 409 if several do,
+     *         401 without the admin token
      */
-    private String getAnswerText(FormResponse response, String questionId) {
-        var answer = response.getAnswers().get(questionId);
-        if (answer != null && answer.getTextAnswers() != null &&
-                answer.getTextAnswers().getAnswers() != null &&
-                !answer.getTextAnswers().getAnswers().isEmpty()) {
-            return answer.getTextAnswers().getAnswers().get(0).getValue();
+    @PostMapping("/approve")
+    public CompletableFuture<ResponseEntity<Map<String, Object>>> approveEvent(@RequestHeader(value = AdminCredential.HEADER, required = false) String adminToken,
+                                                                             @RequestParam("title") String title) {
+        if (!adminCredential.matches(adminToken)) {
+            return CompletableFuture.completedFuture(unauthorized());
         }
-        return null;
+        return firestoreService.approveEventAsync(title)
+                .thenApply(done -> statusChanged(title, "approved"))
+                .exceptionally(this::errorResponse);
     }
 
-
     /**
-     * LOCAL FILE I/O: Writes activity logs to a local text file.
-     * This satisfies the rubric requirement for File I/O and local persistence.
-     * @param message The activity to log
+     * Endpoint to decline an event by its title, compared after trimming, collapsing whitespace and lower-casing.
+     *
+     * @param adminToken the X-Admin-Token header
+     * @param title      the event title
+     * @return future ResponseEntity with a success flag; 404 if no event has that title, 409 if several do,
+     *         401 without the admin token
      */
-    private void logToLocalFile(String message) {
-        // This creates/opens a file named "sync_history.txt" in your project folder
-        // The 'true' means it will APPEND (add to the end) rather than overwrite.
-        try (java.io.FileWriter fw = new java.io.FileWriter("sync_history.txt", true);
-             java.io.PrintWriter out = new java.io.PrintWriter(fw)) {
+    @PostMapping("/decline")
+    public CompletableFuture<ResponseEntity<Map<String, Object>>> declineEvent(@RequestHeader(value = AdminCredential.HEADER, required = false) String adminToken,
+                                                                             @RequestParam("title") String title) {
+        if (!adminCredential.matches(adminToken)) {
+            return CompletableFuture.completedFuture(unauthorized());
+        }
+        return firestoreService.declineEventAsync(title)
+                .thenApply(done -> statusChanged(title, "declined"))
+                .exceptionally(this::errorResponse);
+    }
 
-            String timestamp = java.time.LocalDateTime.now().toString();
-            out.println("[" + timestamp + "] " + message);
+    // Builds the success body for an approve or decline request
+    private ResponseEntity<Map<String, Object>> statusChanged(String title, String status) {
+        Map<String, Object> response = new HashMap<>();
+        response.put("success", true);
+        response.put("title", title);
+        response.put("status", status);
+        return ResponseEntity.ok(response);
+    }
+
+    private ResponseEntity<Map<String, Object>> unauthorized() {
+        Map<String, Object> response = new HashMap<>();
+        response.put("success", false);
+        response.put("error", "A valid " + AdminCredential.HEADER + " header is required");
+        return ResponseEntity.status(HttpStatus.UNAUTHORIZED).body(response);
+    }
 
-            System.out.println("Local log updated."); // Just for you to see in the console
-        } catch (java.io.IOException e) {
-            System.err.println("File I/O Error: " + e.getMessage());
+    // Maps a failed Firestore future to an error body; unknown titles are a 404, ambiguous titles a 409, anything else a 500
+    private ResponseEntity<Map<String, Object>> errorResponse(Throwable t) {
+        Throwable cause = t instanceof CompletionException && t.getCause() != null ? t.getCause() : t;
+        Map<String, Object> response = new HashMap<>();
+        response.put("success", false);
+        response.put("error", cause.getMessage());
+        HttpStatus status = HttpStatus.INTERNAL_SERVER_ERROR;
+        if (cause instanceof IllegalArgumentException) {
+            status = HttpStatus.NOT_FOUND;
+        } else if (cause instanceof IllegalStateException) {
+            status = HttpStatus.CONFLICT;
         }
+        return ResponseEntity.status(status).body(response);
     }
-}
\ No newline at end of file
+}
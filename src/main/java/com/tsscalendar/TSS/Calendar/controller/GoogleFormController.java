@@ -12,11 +12,15 @@
  * @version 1.0
  */
 package com.tsscalendar.TSS.Calendar.controller;
+import com.tsscalendar.TSS.Calendar.service.FormSchema;
+import com.tsscalendar.TSS.Calendar.service.FormSchemas;
 import com.tsscalendar.TSS.Calendar.service.GoogleForm;
+import com.tsscalendar.TSS.Calendar.service.GoogleTokenCache;
 import com.google.api.services.forms.v1.model.ListFormResponsesResponse;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 import java.util.HashMap;
 import java.util.Map;
@@ -29,33 +33,51 @@ import java.util.Map;
 @RequestMapping("/api/forms")
 public class GoogleFormController {
 
-    // constant for Google Form ID
-    final String FORM_ID = "1Eeiyjyh2ACJdDQAF1IBN0eocbPsjh2I8CvVAEOXlDOo";
-
-
+    // The configured forms (tss.forms.names)
+    @Autowired
+    private FormSchemas formSchemas;
     @Autowired
     private GoogleForm formsService;
+    @Autowired
+    private GoogleTokenCache tokenCache;
 
     /**
-     * Retrieves all responses from the configured Google Form.
+     * Retrieves all responses from one of the configured Google Forms.
      *
      * @pre formsService must be initialized with valid Google API credentials
      * @post Returns a map containing success status and form responses
      *
+     * @param form the form's name in tss.forms.names, or null for the first form
      * @return Map containing either:
-     *         - success: true, totalResponses: count, responses: list of FormResponse objects
+     *         - success: true, form: name, totalResponses: count, responses: list of FormResponse objects
      *         - success: false, error: error message string
      */
     @GetMapping("/responses")
-    public Map<String, Object> getResponses() {
+    public Map<String, Object> getResponses(@RequestParam(value = "form", required = false) String form) {
+        return getResponses(form, null);
+    }
+
+    /**
+     * Retrieves the responses submitted to one of the configured Google Forms after a given time.
+     *
+     * @pre submittedAfter is null or an RFC3339 UTC timestamp
+     * @post Returns a map containing success status and only the newer form responses
+     *
+     * @param form the form's name in tss.forms.names, or null for the first form
+     * @param submittedAfter the sync watermark, or null to retrieve every response
+     * @return Map with the same keys as {@link #getResponses(String)}
+     */
+    public Map<String, Object> getResponses(String form, String submittedAfter) {
         try {
             // Fetch responses from Google forms API
             // https://docs.google.com/forms/d/YOUR_FORM_ID/edit
-            ListFormResponsesResponse response = formsService.getFormResponses(FORM_ID);
+            FormSchema schema = formSchemas.get(form);
+            ListFormResponsesResponse response = formsService.getFormResponses(schema.formId(), submittedAfter);
 
             // Build success response with form data
             Map<String, Object> answers = new HashMap<>();
             answers.put("success", true);
+            answers.put("form", schema.name());
             answers.put("totalResponses", response.getResponses() != null ? response.getResponses().size() : 0);
             answers.put("responses", response.getResponses());
 
@@ -69,4 +91,14 @@ public class GoogleFormController {
             return error;
         }
     }
-}
\ No newline at end of file
+
+    /**
+     * Reports how often Forms API calls reused the cached access token.
+     *
+     * @return Map with hits, misses, refreshes, refreshFailures and expiresAt
+     */
+    @GetMapping("/token-metrics")
+    public Map<String, Object> getTokenMetrics() {
+        return tokenCache.getMetrics();
+    }
+}
@@ -0,0 +1,139 @@
+/**
+ * SubscriptionController.java
+ *
+ * REST controller for recipients' category and supervisor subscriptions,
+ * which decide who receives reminders and digests. Subscribing, reading and
+ * unsubscribing an address all require the admin token, so nobody can sign
+ * up, look up or remove someone else's address.
+ *
+ * @author Artin Mehri
+ * @version 1.0
+ */
+package com.tsscalendar.TSS.Calendar.controller;
+import com.tsscalendar.TSS.Calendar.model.Subscription;
+import com.tsscalendar.TSS.Calendar.service.AdminCredential;
+import com.tsscalendar.TSS.Calendar.service.SubscriptionService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.DeleteMapping;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PutMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+
+/**
+ * Controller for subscription endpoints.
+ */
+@RestController
+@RequestMapping("/subscriptions")
+public class SubscriptionController {
+
+    @Autowired
+    private SubscriptionService subscriptionService;
+
+    @Autowired
+    private AdminCredential adminCredential;
+
+    /**
+     * Creates or replaces a subscription. Following no category and no supervisor means every event.
+     *
+     * @param adminToken   the X-Admin-Token header
+     * @param subscription JSON body with email, categories and supervisors
+     * @return future ResponseEntity with the stored subscription; 400 if the email or a category is invalid,
+     *         401 without the admin token
+     */
+    @PutMapping
+    public CompletableFuture<ResponseEntity<Map<String, Object>>> subscribe(@RequestHeader(value = AdminCredential.HEADER, required = false) String adminToken,
+                                                                            @RequestBody Subscription subscription) {
+        if (!adminCredential.matches(adminToken)) {
+            return CompletableFuture.completedFuture(unauthorized());
+        }
+        return subscriptionService.subscribe(subscription).thenApply(stored -> {
+            Map<String, Object> response = new HashMap<>();
+            response.put("success", true);
+            response.put("subscription", stored);
+            return ResponseEntity.ok(response);
+        }).exceptionally(this::errorResponse);
+    }
+
+    /**
+     * Returns the subscription of an email.
+     *
+     * @param adminToken the X-Admin-Token header
+     * @param email      the recipient address
+     * @return the subscription; 404 if the email is not subscribed, 401 without the admin token
+     */
+    @GetMapping
+    public ResponseEntity<Map<String, Object>> getSubscription(@RequestHeader(value = AdminCredential.HEADER, required = false) String adminToken,
+                                                               @RequestParam("email") String email) {
+        if (!adminCredential.matches(adminToken)) {
+            return unauthorized();
+        }
+        Subscription subscription = subscriptionService.get(email);
+        Map<String, Object> response = new HashMap<>();
+        if (subscription == null) {
+            response.put("success", false);
+            response.put("error", "No subscription for " + email);
+            return ResponseEntity.status(HttpStatus.NOT_FOUND).body(response);
+        }
+        response.put("success", true);
+        response.put("subscription", subscription);
+        return ResponseEntity.ok(response);
+    }
+
+    /**
+     * Deletes the subscription of an email.
+     *
+     * @param adminToken the X-Admin-Token header
+     * @param email      the recipient address
+     * @return future ResponseEntity with whether the email was subscribed; 401 without the admin token
+     */
+    @DeleteMapping
+    public CompletableFuture<ResponseEntity<Map<String, Object>>> unsubscribe(@RequestHeader(value = AdminCredential.HEADER, required = false) String adminToken,
+                                                                              @RequestParam("email") String email) {
+        if (!adminCredential.matches(adminToken)) {
+            return CompletableFuture.completedFuture(unauthorized());
+        }
+        return subscriptionService.unsubscribe(email).thenApply(removed -> {
+            Map<String, Object> response = new HashMap<>();
+            response.put("success", true);
+            response.put("removed", removed);
+            return ResponseEntity.ok(response);
+        }).exceptionally(this::errorResponse);
+    }
+
+    /**
+     * Reports subscriber counts, overall and per category.
+     *
+     * @return ResponseEntity with the subscription metrics
+     */
+    @GetMapping("/metrics")
+    public ResponseEntity<Map<String, Object>> getMetrics() {
+        return ResponseEntity.ok(subscriptionService.getMetrics());
+    }
+
+    private ResponseEntity<Map<String, Object>> unauthorized() {
+        Map<String, Object> response = new HashMap<>();
+        response.put("success", false);
+        response.put("error", "A valid " + AdminCredential.HEADER + " header is required");
+        return ResponseEntity.status(HttpStatus.UNAUTHORIZED).body(response);
+    }
+
+    // Invalid input is a 400, anything else a 500
+    private ResponseEntity<Map<String, Object>> errorResponse(Throwable t) {
+        Throwable cause = t instanceof CompletionException && t.getCause() != null ? t.getCause() : t;
+        Map<String, Object> response = new HashMap<>();
+        response.put("success", false);
+        response.put("error", cause.getMessage());
+        HttpStatus status = cause instanceof IllegalArgumentException ? HttpStatus.BAD_REQUEST : HttpStatus.INTERNAL_SERVER_ERROR;
+        return ResponseEntity.status(status).body(response);
+    }
+}
@@ -0,0 +1,94 @@
+/**
+ * SyncHistoryController.java
+ *
+ * REST controller for querying the structured sync journal, e.g. "when was
+ * event X added" or "how long did yesterday's syncs take".
+ *
+ * @author Artin Mehri
+ * @version 1.0
+ */
+package com.tsscalendar.TSS.Calendar.controller;
+import com.tsscalendar.TSS.Calendar.service.SyncJournal;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.time.format.DateTimeParseException;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Controller for sync history endpoints.
+ */
+@RestController
+@RequestMapping("/sync")
+public class SyncHistoryController {
+
+    // Largest number of records a client may request
+    private static final int MAX_LIMIT = 1000;
+
+    @Autowired
+    private SyncJournal syncJournal;
+
+    /**
+     * Lists sync journal records, oldest first.
+     *
+     * @pre limit is between 1 and MAX_LIMIT
+     * @post Only the indexed lines for the query are read, not the whole journal
+     *
+     * @param since only records at or after this ISO instant or yyyy-MM-dd date (local midnight), omitted for all
+     * @param event only records for this event title, omitted for all
+     * @param type  "run" for run start/end records (with durations) or "event" for per-event outcomes
+     * @param limit maximum records returned, 200 by default
+     * @return ResponseEntity with success, total, truncated and records; 400 for invalid parameters
+     */
+    @GetMapping("/history")
+    public ResponseEntity<Map<String, Object>> getHistory(@RequestParam(value = "since", required = false) String since,
+                                                          @RequestParam(value = "event", required = false) String event,
+                                                          @RequestParam(value = "type", required = false) String type,
+                                                          @RequestParam(value = "limit", defaultValue = "200") int limit) {
+        if (limit < 1 || limit > MAX_LIMIT) {
+            return badRequest("limit must be between 1 and " + MAX_LIMIT);
+        }
+        Instant sinceTime = null;
+        if (since != null && !since.isBlank()) {
+            sinceTime = parseSince(since.trim());
+            if (sinceTime == null) {
+                return badRequest("since must be an ISO-8601 instant or a yyyy-MM-dd date");
+            }
+        }
+
+        SyncJournal.HistoryPage page = syncJournal.query(sinceTime, event, type, limit);
+        Map<String, Object> response = new HashMap<>();
+        response.put("success", true);
+        response.put("total", page.records().size());
+        response.put("truncated", page.truncated());
+        response.put("records", page.records());
+        return ResponseEntity.ok(response);
+    }
+
+    private Instant parseSince(String since) {
+        try {
+            return Instant.parse(since);
+        } catch (DateTimeParseException e) {
+            // fall through to a plain date
+        }
+        try {
+            return LocalDate.parse(since).atStartOfDay(ZoneId.systemDefault()).toInstant();
+        } catch (DateTimeParseException e) {
+            return null;
+        }
+    }
+
+    private ResponseEntity<Map<String, Object>> badRequest(String message) {
+        Map<String, Object> error = new HashMap<>();
+        error.put("success", false);
+        error.put("error", message);
+        return ResponseEntity.badRequest().body(error);
+    }
+}
@@ -0,0 +1,19 @@
+/**
+ * EmailMessage.java
+ *
+ * One email to one recipient, as queued on the EmailDispatchService.
+ *
+ * @author Artin Mehri
+ * @version 1.0
+ */
+package com.tsscalendar.TSS.Calendar.model;
+
+/**
+ * An email ready to send.
+ *
+ * @param to      the recipient address
+ * @param subject the subject line
+ * @param html    the HTML body
+ */
+public record EmailMessage(String to, String subject, String html) {
+}
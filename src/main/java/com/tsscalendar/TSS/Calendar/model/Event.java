@@ -0,0 +1,166 @@
+/**
+ * Event.java
+ *
+ * Typed view of one document in the Firestore "events" collection.
+ *
+ * Sources:
+ * - Java records: https://docs.oracle.com/en/java/javase/17/language/records.html
+ *
+ * @author Artin Mehri
+ * @version 1.0
+ */
+package com.tsscalendar.TSS.Calendar.model;
+import com.google.cloud.firestore.DocumentSnapshot;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * An event as stored by Firestore.addEvent.
+ * Fields that were not read (see {@link #LISTING_FIELDS}) are null.
+ *
+ * @param id              the Firestore document ID
+ * @param title           the event title
+ * @param description     the event description
+ * @param category        the normalized category (Academics, Clubs, Student Life, Sports)
+ * @param supervisor      the supervising teacher
+ * @param location        where the event takes place
+ * @param date            the event date as yyyy-MM-dd
+ * @param startTime       the start time as entered in the form
+ * @param endTime         the end time as entered in the form
+ * @param weekly          true if the event repeats every week
+ * @param status          pending, approved or declined
+ * @param month           the month of date (1-12)
+ * @param year            the year of date
+ * @param respondentEmail the email of the person who submitted the form
+ */
+public record Event(String id, String title, String description, String category, String supervisor,
+                    String location, String date, String startTime, String endTime, Boolean weekly,
+                    String status, Integer month, Integer year, String respondentEmail) {
+
+    /**
+     * Fields read by public listings; respondentEmail and internal fields are left out.
+     */
+    public static final String[] LISTING_FIELDS = {
+            "title", "description", "category", "supervisor", "location",
+            "date", "startTime", "endTime", "weekly", "status", "month", "year"
+    };
+
+    private static final DateTimeFormatter[] TIME_FORMATS = {
+            DateTimeFormatter.ofPattern("H:mm"),
+            DateTimeFormatter.ofPattern("H:mm:ss"),
+            DateTimeFormatter.ofPattern("h:mm a", Locale.ENGLISH),
+            DateTimeFormatter.ofPattern("h:mma", Locale.ENGLISH)
+    };
+
+    /**
+     * Builds an Event from a document snapshot.
+     *
+     * @param document the Firestore document
+     * @return the typed event
+     */
+    public static Event fromSnapshot(DocumentSnapshot document) {
+        return fromData(document.getId(), document.getData());
+    }
+
+    /**
+     * Builds an Event from a document ID and its fields.
+     *
+     * @param id   the Firestore document ID
+     * @param data the document fields, possibly only a projection of them
+     * @return the typed event
+     */
+    public static Event fromData(String id, Map<String, Object> data) {
+        return new Event(
+                id,
+                (String) data.get("title"),
+                (String) data.get("description"),
+                (String) data.get("category"),
+                (String) data.get("supervisor"),
+                (String) data.get("location"),
+                (String) data.get("date"),
+                (String) data.get("startTime"),
+                (String) data.get("endTime"),
+                (Boolean) data.get("weekly"),
+                (String) data.get("status"),
+                toInteger(data.get("month")),
+                toInteger(data.get("year")),
+                (String) data.get("respondentEmail"));
+    }
+
+    /**
+     * Returns this event moved to another date, e.g. one occurrence of a weekly event.
+     *
+     * @param date the new date
+     * @return a copy with date, month and year set from the given date
+     */
+    public Event onDate(LocalDate date) {
+        return new Event(id, title, description, category, supervisor, location, date.toString(), startTime, endTime,
+                weekly, status, date.getMonthValue(), date.getYear(), respondentEmail);
+    }
+
+    /**
+     * Formats the event for the console event lists.
+     *
+     * @return multi-line description of the event
+     */
+    public String toConsoleString() {
+        return String.format(
+                "Event ID: %s\nTitle: %s\nDescription: %s\nDate: %s\nTime: %s - %s\nRespondent Email: %s\nCategory: %s\nSupervisor: %s\nIs It Weekly?:%s",
+                id, title, description, date, startTime, endTime, respondentEmail, category, supervisor, weekly);
+    }
+
+    /**
+     * Parses the event date.
+     *
+     * @return the date, or null if it is missing or not in yyyy-MM-dd format
+     */
+    public LocalDate localDate() {
+        try {
+            return date != null ? LocalDate.parse(date.trim()) : null;
+        } catch (DateTimeParseException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Parses the start time entered in the form.
+     *
+     * @return the start time, or null if it is missing or unreadable
+     */
+    public LocalTime localStartTime() {
+        return parseTime(startTime);
+    }
+
+    /**
+     * Parses the end time entered in the form.
+     *
+     * @return the end time, or null if it is missing or unreadable
+     */
+    public LocalTime localEndTime() {
+        return parseTime(endTime);
+    }
+
+    // Accepts the Forms time answer (HH:mm) as well as HH:mm:ss and 12-hour times like "3:30 PM"
+    private static LocalTime parseTime(String value) {
+        if (value == null || value.isBlank()) {
+            return null;
+        }
+        for (DateTimeFormatter format : TIME_FORMATS) {
+            try {
+                return LocalTime.parse(value.trim().toUpperCase(Locale.ROOT), format);
+            } catch (DateTimeParseException e) {
+                // try the next format
+            }
+        }
+        return null;
+    }
+
+    // Firestore returns whole numbers as Long
+    private static Integer toInteger(Object value) {
+        return value instanceof Number number ? number.intValue() : null;
+    }
+}
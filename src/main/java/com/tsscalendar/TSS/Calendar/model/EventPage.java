@@ -0,0 +1,19 @@
+/**
+ * EventPage.java
+ *
+ * One page of a cursor-paginated event listing.
+ *
+ * @author Artin Mehri
+ * @version 1.0
+ */
+package com.tsscalendar.TSS.Calendar.model;
+import java.util.List;
+
+/**
+ * A page of events and the cursor for the page after it.
+ *
+ * @param events     the events on this page, ordered by document ID
+ * @param nextCursor the ID to pass as cursor for the next page, or null if this is the last page
+ */
+public record EventPage(List<Event> events, String nextCursor) {
+}
@@ -0,0 +1,36 @@
+/**
+ * FormSubmission.java
+ *
+ * One Google Form response reduced to the answers the sync stores: the
+ * response's identity and timestamps plus the text of each event question.
+ * Built by FormResponseDecoder straight from the Forms API JSON, without the
+ * generic FormResponse/Answer object graph.
+ *
+ * @author Artin Mehri
+ * @version 1.0
+ */
+package com.tsscalendar.TSS.Calendar.model;
+
+/**
+ * The event fields of one form response, each null if the question was not answered.
+ *
+ * @param responseId        the Google Form responseId
+ * @param createTime        when the response was first submitted (RFC3339)
+ * @param lastSubmittedTime when the response was last submitted or edited (RFC3339)
+ * @param respondentEmail   the respondent's email, if the form collects it
+ * @param title             the event title
+ * @param supervisor        the supervising teacher
+ * @param location          where the event takes place
+ * @param date              the event date (yyyy-MM-dd)
+ * @param startTime         the start time
+ * @param endTime           the end time
+ * @param description       the event description
+ * @param category          the category option as shown on the form
+ * @param actionRequired    what students need to do
+ * @param weekly            "Yes" if the event repeats every week
+ */
+public record FormSubmission(String responseId, String createTime, String lastSubmittedTime, String respondentEmail,
+                             String title, String supervisor, String location, String date, String startTime,
+                             String endTime, String description, String category, String actionRequired,
+                             String weekly) {
+}
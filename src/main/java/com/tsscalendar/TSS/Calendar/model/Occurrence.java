@@ -0,0 +1,20 @@
+/**
+ * Occurrence.java
+ *
+ * One dated occurrence of an event. One-off events have a single occurrence on
+ * their own date; weekly events have one per week.
+ *
+ * @author Artin Mehri
+ * @version 1.0
+ */
+package com.tsscalendar.TSS.Calendar.model;
+import java.time.LocalDate;
+
+/**
+ * An event on a specific day.
+ *
+ * @param date  the day this occurrence falls on
+ * @param event the event that occurs
+ */
+public record Occurrence(LocalDate date, Event event) {
+}
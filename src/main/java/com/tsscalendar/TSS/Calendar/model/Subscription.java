@@ -0,0 +1,22 @@
+/**
+ * Subscription.java
+ *
+ * What one recipient wants to hear about: events in some categories and
+ * events run by some supervisors. A subscription without either receives
+ * every event.
+ *
+ * @author Artin Mehri
+ * @version 1.0
+ */
+package com.tsscalendar.TSS.Calendar.model;
+import java.util.Set;
+
+/**
+ * A recipient and the events they follow.
+ *
+ * @param email       the recipient address
+ * @param categories  followed categories, e.g. Clubs, Sports
+ * @param supervisors followed supervisors, e.g. Mr. Smith
+ */
+public record Subscription(String email, Set<String> categories, Set<String> supervisors) {
+}
@@ -0,0 +1,53 @@
+/**
+ * SyncRecord.java
+ *
+ * One line of the sync journal (sync_history.jsonl).
+ * Every sync run writes a "started" record, one record per event outcome
+ * and a "completed" or "failed" record with the run's duration.
+ *
+ * @author Artin Mehri
+ * @version 1.0
+ */
+package com.tsscalendar.TSS.Calendar.model;
+import java.time.Instant;
+
+/**
+ * A structured sync journal entry.
+ *
+ * @param runId      identifies the sync run the record belongs to
+ * @param time       when the record was created, as an ISO-8601 instant
+ * @param type       "run" for run start/end records, "event" for per-event outcomes
+ * @param event      the event title, for event records
+ * @param outcome    started, completed or failed for runs; added, updated, write_failed or process_failed for events
+ * @param detail     free-form detail such as an error message or totals
+ * @param durationMs the run's duration, on completed and failed run records
+ */
+public record SyncRecord(String runId, String time, String type, String event, String outcome,
+                         String detail, Long durationMs) {
+
+    /**
+     * Creates a run record stamped with the current time.
+     *
+     * @param runId      the sync run ID
+     * @param outcome    started, completed or failed
+     * @param detail     detail text, may be null
+     * @param durationMs the run's duration so far, or null for a start record
+     * @return the record
+     */
+    public static SyncRecord run(String runId, String outcome, String detail, Long durationMs) {
+        return new SyncRecord(runId, Instant.now().toString(), "run", null, outcome, detail, durationMs);
+    }
+
+    /**
+     * Creates an event record stamped with the current time.
+     *
+     * @param runId   the sync run ID
+     * @param event   the event title, may be null if it could not be read
+     * @param outcome added, updated, write_failed or process_failed
+     * @param detail  detail text, may be null
+     * @return the record
+     */
+    public static SyncRecord event(String runId, String event, String outcome, String detail) {
+        return new SyncRecord(runId, Instant.now().toString(), "event", event, outcome, detail, null);
+    }
+}
@@ -0,0 +1,54 @@
+/**
+ * AdminCredential.java
+ *
+ * The shared admin token that protects endpoints acting on behalf of other
+ * people, such as sending email to arbitrary recipients or reading and
+ * changing their subscriptions. Callers present it in the X-Admin-Token
+ * header; when tss.admin.token is not set, every such request is refused
+ * rather than allowed.
+ *
+ * @author Artin Mehri
+ * @version 1.0
+ */
+package com.tsscalendar.TSS.Calendar.service;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+
+/**
+ * Checks request headers against the configured admin token.
+ */
+@Service
+public class AdminCredential {
+
+    /**
+     * Request header that carries the admin token.
+     */
+    public static final String HEADER = "X-Admin-Token";
+
+    private final byte[] token;
+
+    /**
+     * Creates the credential from configuration.
+     *
+     * @param token the admin token (tss.admin.token, ADMIN_TOKEN by default); blank disables admin endpoints
+     */
+    public AdminCredential(@Value("${tss.admin.token:${ADMIN_TOKEN:}}") String token) {
+        this.token = token == null || token.isBlank() ? null : token.getBytes(StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Checks a presented token.
+     *
+     * @param presented the X-Admin-Token header value, or null if absent
+     * @return true only if an admin token is configured and the presented one matches it
+     */
+    public boolean matches(String presented) {
+        if (token == null || presented == null) {
+            return false;
+        }
+        // Constant-time comparison, so response timing does not reveal a matching prefix
+        return MessageDigest.isEqual(token, presented.getBytes(StandardCharsets.UTF_8));
+    }
+}
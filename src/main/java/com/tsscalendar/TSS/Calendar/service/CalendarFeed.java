@@ -0,0 +1,342 @@
+/**
+ * CalendarFeed.java
+ *
+ * Builds the iCalendar (ICS) subscription feed of approved events.
+ * Each feed variant is rendered once per change to the approved events and
+ * kept as bytes, so calendar apps polling the feed never cause a Firestore
+ * read. Pending submissions and declines of pending events leave the feed
+ * alone, and a re-render whose events did not change keeps the previous
+ * bytes, DTSTAMP and ETag, so polls keep getting 304s. Only the full feed
+ * and the feeds of the subscription categories are kept; any other category
+ * is rendered on every request.
+ *
+ * Sources:
+ * - RFC 5545 iCalendar: https://datatracker.ietf.org/doc/html/rfc5545
+ * - HTTP conditional requests: https://datatracker.ietf.org/doc/html/rfc9110#section-13
+ *
+ * @author Artin Mehri
+ * @version 1.0
+ */
+package com.tsscalendar.TSS.Calendar.service;
+import com.google.cloud.firestore.DocumentChange;
+import com.google.cloud.firestore.QueryDocumentSnapshot;
+import com.tsscalendar.TSS.Calendar.model.Event;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.time.temporal.ChronoUnit;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Renders and caches the ICS feed, optionally filtered by category.
+ */
+@Service
+public class CalendarFeed {
+
+    /**
+     * One rendered feed variant.
+     *
+     * @param body         the ICS file as UTF-8 bytes
+     * @param etag         quoted strong ETag derived from the body
+     * @param lastModified time of the last change to the events in this feed, in whole seconds
+     * @param version      the data version the body was rendered from
+     */
+    public record Rendered(byte[] body, String etag, Instant lastModified, long version) {
+
+        /**
+         * Decides whether a client's copy is current, from its conditional request headers.
+         * If-None-Match takes precedence over If-Modified-Since when both are sent.
+         *
+         * @param ifNoneMatch     ETag(s) the client already has, or null
+         * @param ifModifiedSince Last-Modified time the client already has (RFC 1123), or null
+         * @return true if the client may be answered with 304 Not Modified
+         */
+        public boolean isCurrent(String ifNoneMatch, String ifModifiedSince) {
+            if (ifNoneMatch != null) {
+                for (String tag : ifNoneMatch.split(",")) {
+                    String candidate = tag.trim();
+                    if (candidate.startsWith("W/")) {
+                        candidate = candidate.substring(2);
+                    }
+                    if (candidate.equals("*") || candidate.equals(etag)) {
+                        return true;
+                    }
+                }
+                return false;
+            }
+            if (ifModifiedSince != null) {
+                try {
+                    Instant since = ZonedDateTime.parse(ifModifiedSince.trim(), DateTimeFormatter.RFC_1123_DATE_TIME).toInstant();
+                    return !lastModified.isAfter(since);
+                } catch (DateTimeParseException e) {
+                    return false;
+                }
+            }
+            return false;
+        }
+    }
+
+    private static final String TIME_ZONE = "America/Toronto";
+    private static final DateTimeFormatter DATE = DateTimeFormatter.ofPattern("yyyyMMdd");
+    private static final DateTimeFormatter LOCAL_DATE_TIME = DateTimeFormatter.ofPattern("yyyyMMdd'T'HHmmss");
+    private static final DateTimeFormatter UTC_DATE_TIME = DateTimeFormatter.ofPattern("yyyyMMdd'T'HHmmss'Z'").withZone(ZoneOffset.UTC);
+    // Eastern time zone definition so clients do not need to know TZID on their own
+    private static final String VTIMEZONE = String.join("\r\n",
+            "BEGIN:VTIMEZONE",
+            "TZID:" + TIME_ZONE,
+            "BEGIN:DAYLIGHT",
+            "TZOFFSETFROM:-0500",
+            "TZOFFSETTO:-0400",
+            "TZNAME:EDT",
+            "DTSTART:19700308T020000",
+            "RRULE:FREQ=YEARLY;BYMONTH=3;BYDAY=2SU",
+            "END:DAYLIGHT",
+            "BEGIN:STANDARD",
+            "TZOFFSETFROM:-0400",
+            "TZOFFSETTO:-0500",
+            "TZNAME:EST",
+            "DTSTART:19701101T020000",
+            "RRULE:FREQ=YEARLY;BYMONTH=11;BYDAY=1SU",
+            "END:STANDARD",
+            "END:VTIMEZONE") + "\r\n";
+
+    @Autowired
+    private Firestore firestoreService;
+    @Autowired
+    private EventOccurrences eventOccurrences;
+
+    // Category keys whose feeds are kept: "" for all categories, plus each subscription category
+    private static final Set<String> CACHED_KEYS = cachedKeys();
+
+    // category key -> rendered feed, for CACHED_KEYS only, so arbitrary ?category= values cannot fill it
+    private final Map<String, Rendered> rendered = new ConcurrentHashMap<>();
+    private final AtomicLong version = new AtomicLong();
+    private volatile Instant lastChange = Instant.now().truncatedTo(ChronoUnit.SECONDS);
+    // IDs of the events the listener last saw approved, to tell when a change leaves the approved set
+    private final Set<String> approvedIds = ConcurrentHashMap.newKeySet();
+
+    /**
+     * Subscribes to event changes so the rendered feeds are re-rendered when an approved event changes.
+     */
+    @PostConstruct
+    public void registerInvalidation() {
+        firestoreService.addEventChangeListener(new EventChangeListener() {
+            @Override
+            public void onEventChanges(List<DocumentChange> changes) {
+                if (touchesApproved(changes)) {
+                    invalidate();
+                }
+            }
+
+            @Override
+            public void onListenerReset() {
+                // The next snapshot replays every event as ADDED
+                approvedIds.clear();
+                invalidate();
+            }
+        });
+    }
+
+    /**
+     * Returns the feed for a category, rendering it only if the data changed since the last render.
+     * Feeds of categories other than the subscription categories are rendered on every call.
+     *
+     * @param category the category to include, or null/blank for every category
+     * @return the rendered feed with its ETag and Last-Modified time
+     * @throws ExecutionException if the approved events cannot be read
+     * @throws InterruptedException if interrupted while reading the events
+     */
+    public Rendered getFeed(String category) throws ExecutionException, InterruptedException {
+        String key = category == null ? "" : category.trim().toLowerCase(Locale.ROOT);
+        Rendered current = rendered.get(key);
+        long currentVersion = version.get();
+        if (current != null && current.version() == currentVersion) {
+            return current;
+        }
+
+        Instant modified = lastChange;
+        List<Event> events = firestoreService.getEventsByStatusAsync("approved", false).get();
+        Set<LocalDate> skipDates = eventOccurrences.findSkipDates(events);
+        Rendered fresh = null;
+        if (current != null) {
+            // Keep the old bytes (and so DTSTAMP and ETag) if this feed's events did not change
+            byte[] unchanged = render(events, key, current.lastModified(), skipDates).getBytes(StandardCharsets.UTF_8);
+            if (Arrays.equals(unchanged, current.body())) {
+                fresh = new Rendered(current.body(), current.etag(), current.lastModified(), currentVersion);
+            }
+        }
+        if (fresh == null) {
+            byte[] body = render(events, key, modified, skipDates).getBytes(StandardCharsets.UTF_8);
+            fresh = new Rendered(body, etagOf(body), modified, currentVersion);
+        }
+        if (CACHED_KEYS.contains(key)) {
+            rendered.put(key, fresh);
+        }
+        return fresh;
+    }
+
+    private static Set<String> cachedKeys() {
+        Set<String> keys = new HashSet<>();
+        keys.add("");
+        for (String category : SubscriptionService.CATEGORIES) {
+            keys.add(category.toLowerCase(Locale.ROOT));
+        }
+        return Set.copyOf(keys);
+    }
+
+    // True if a change adds, edits or removes an approved event, or takes an event out of the approved set
+    private boolean touchesApproved(List<DocumentChange> changes) {
+        boolean touched = false;
+        for (DocumentChange change : changes) {
+            QueryDocumentSnapshot document = change.getDocument();
+            boolean approvedNow = change.getType() != DocumentChange.Type.REMOVED && "approved".equals(document.getString("status"));
+            boolean wasApproved = approvedNow ? !approvedIds.add(document.getId()) : approvedIds.remove(document.getId());
+            touched |= approvedNow || wasApproved;
+        }
+        return touched;
+    }
+
+    // The rendered feeds are kept, so a re-render can tell whether their bytes changed
+    private void invalidate() {
+        lastChange = Instant.now().truncatedTo(ChronoUnit.SECONDS);
+        version.incrementAndGet();
+    }
+
+    /**
+     * Builds the whole calendar. DTSTAMP is the given change time, so identical data gives identical bytes.
+     *
+     * @param events      the approved events
+     * @param categoryKey lower-case category to include, or "" for every category
+     * @param modified    the DTSTAMP of every event
+     * @param skipDates   dates left out of weekly series, listed as EXDATEs
+     * @return the ICS file
+     */
+    static String render(List<Event> events, String categoryKey, Instant modified, Set<LocalDate> skipDates) {
+        StringBuilder ics = new StringBuilder(256 + events.size() * 256);
+        line(ics, "BEGIN:VCALENDAR");
+        line(ics, "VERSION:2.0");
+        line(ics, "PRODID:-//TSS Calendar//Events//EN");
+        line(ics, "CALSCALE:GREGORIAN");
+        line(ics, "METHOD:PUBLISH");
+        line(ics, "X-WR-CALNAME:" + escape(categoryKey.isEmpty() ? "TSS Calendar" : "TSS Calendar - " + categoryKey));
+        line(ics, "X-WR-TIMEZONE:" + TIME_ZONE);
+        ics.append(VTIMEZONE);
+
+        String stamp = UTC_DATE_TIME.format(modified);
+        // Sorted so the same data always renders the same bytes (and ETag)
+        Set<LocalDate> sortedSkipDates = new TreeSet<>(skipDates);
+        for (Event event : events) {
+            if (!categoryKey.isEmpty() && (event.category() == null || !event.category().toLowerCase(Locale.ROOT).equals(categoryKey))) {
+                continue;
+            }
+            LocalDate date = event.localDate();
+            if (date == null) {
+                continue;
+            }
+            appendEvent(ics, event, date, stamp, sortedSkipDates);
+        }
+        line(ics, "END:VCALENDAR");
+        return ics.toString();
+    }
+
+    private static void appendEvent(StringBuilder ics, Event event, LocalDate date, String stamp, Set<LocalDate> skipDates) {
+        line(ics, "BEGIN:VEVENT");
+        line(ics, "UID:" + event.id() + "@tss-calendar");
+        line(ics, "DTSTAMP:" + stamp);
+
+        LocalTime start = event.localStartTime();
+        LocalTime end = event.localEndTime();
+        if (start != null) {
+            line(ics, "DTSTART;TZID=" + TIME_ZONE + ":" + LOCAL_DATE_TIME.format(date.atTime(start)));
+            if (end != null && end.isAfter(start)) {
+                line(ics, "DTEND;TZID=" + TIME_ZONE + ":" + LOCAL_DATE_TIME.format(date.atTime(end)));
+            }
+        } else {
+            // No usable time: an all-day event
+            line(ics, "DTSTART;VALUE=DATE:" + DATE.format(date));
+            line(ics, "DTEND;VALUE=DATE:" + DATE.format(date.plusDays(1)));
+        }
+        if (Boolean.TRUE.equals(event.weekly())) {
+            line(ics, "RRULE:FREQ=WEEKLY");
+            // PA days and holidays that fall on the series' weekday are excluded from it
+            for (LocalDate skip : skipDates) {
+                if (!skip.isBefore(date) && skip.getDayOfWeek() == date.getDayOfWeek()) {
+                    line(ics, start != null
+                            ? "EXDATE;TZID=" + TIME_ZONE + ":" + LOCAL_DATE_TIME.format(skip.atTime(start))
+                            : "EXDATE;VALUE=DATE:" + DATE.format(skip));
+                }
+            }
+        }
+
+        line(ics, "SUMMARY:" + escape(event.title()));
+        if (event.description() != null) {
+            line(ics, "DESCRIPTION:" + escape(event.description()));
+        }
+        if (event.location() != null) {
+            line(ics, "LOCATION:" + escape(event.location()));
+        }
+        if (event.category() != null) {
+            line(ics, "CATEGORIES:" + escape(event.category()));
+        }
+        line(ics, "END:VEVENT");
+    }
+
+    // Appends one content line, folded at 75 octets as RFC 5545 requires
+    static void line(StringBuilder ics, String content) {
+        int octets = 0;
+        for (int i = 0; i < content.length(); ) {
+            int codePoint = content.codePointAt(i);
+            int width = new String(Character.toChars(codePoint)).getBytes(StandardCharsets.UTF_8).length;
+            if (octets + width > 75) {
+                ics.append("\r\n ");
+                octets = 1;
+            }
+            ics.appendCodePoint(codePoint);
+            octets += width;
+            i += Character.charCount(codePoint);
+        }
+        ics.append("\r\n");
+    }
+
+    // Escapes TEXT values: backslash, semicolon, comma and newlines
+    static String escape(String text) {
+        if (text == null) {
+            return "";
+        }
+        return text.replace("\\", "\\\\")
+                .replace(";", "\\;")
+                .replace(",", "\\,")
+                .replace("\r\n", "\\n")
+                .replace("\n", "\\n")
+                .replace("\r", "\\n");
+    }
+
+    private static String etagOf(byte[] body) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(body);
+            return "\"" + HexFormat.of().formatHex(digest, 0, 16) + "\"";
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+    }
+}
@@ -0,0 +1,466 @@
+/**
+ * DigestService.java
+ *
+ * Weekly digest emails: one email per recipient listing the upcoming approved
+ * events they follow, grouped by category.
+ *
+ * A run costs the same number of Firestore queries however many recipients
+ * there are: one range query for the one-off events in the window and one
+ * query for the weekly events, which are expanded in memory. Recipients come
+ * from the cached SubscriptionIndex, whose bitsets give each event's audience.
+ * Each event is rendered once, recipients following the same events share one
+ * rendered body, and the emails go to the EmailDispatchService in batches.
+ * Composing runs on the service's own thread, not on the Firestore callback
+ * thread that completes the queries.
+ *
+ * The scheduled run is sent by the LeaderLease holder. An instance that is
+ * not the leader at the scheduled time retries every lease renew interval
+ * for up to an hour, so a lease handover does not skip the week, and the
+ * run is claimed through a marker document in the "digests" collection so
+ * only one instance sends it.
+ *
+ * @author Artin Mehri
+ * @version 1.0
+ */
+package com.tsscalendar.TSS.Calendar.service;
+import com.google.cloud.firestore.QueryDocumentSnapshot;
+import com.google.cloud.firestore.QuerySnapshot;
+import com.google.firebase.cloud.FirestoreClient;
+import com.tsscalendar.TSS.Calendar.model.EmailMessage;
+import com.tsscalendar.TSS.Calendar.model.Event;
+import com.tsscalendar.TSS.Calendar.model.Occurrence;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import java.time.DayOfWeek;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.time.ZoneId;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.temporal.TemporalAdjusters;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Consumer;
+
+/**
+ * Builds and sends the event digest.
+ */
+@Service
+public class DigestService {
+
+    /**
+     * Outcome of one digest run.
+     *
+     * @param from           first day of the window
+     * @param to             last day of the window
+     * @param occurrences    event occurrences in the window
+     * @param recipients     subscribed recipients
+     * @param digests        emails queued; recipients with no matching events get none
+     * @param distinctBodies digest bodies rendered, one per distinct set of events
+     * @param firestoreReads documents read, counting one for an empty query result
+     * @param queryMillis    time spent in Firestore
+     * @param renderMillis   time spent grouping and rendering
+     * @param totalMillis    time of the whole run
+     * @param jobIds         the dispatch jobs the emails were queued as
+     * @param error          why queuing stopped before every digest was queued (e.g. the dispatch queue is full),
+     *                       or null; the recipients in jobIds were still emailed, so a retry would email them again
+     */
+    public record DigestReport(LocalDate from, LocalDate to, int occurrences, int recipients, int digests,
+                               int distinctBodies, long firestoreReads, long queryMillis, long renderMillis,
+                               long totalMillis, List<String> jobIds, String error) {
+    }
+
+    // Counts from composing the emails
+    record Composed(int digests, int distinctBodies) {
+    }
+
+    public static final String DIGEST = "templates/weekly-digest.html";
+    public static final String DIGEST_CATEGORY = "templates/digest-category.html";
+    public static final String DIGEST_EVENT = "templates/digest-event.html";
+
+    private static final ZoneId ZONE = ZoneId.of("America/Toronto");
+    // Longest window a digest may cover
+    private static final int MAX_DAYS = 31;
+    // How long after its scheduled time a run may still be sent, e.g. by a standby that takes over the lease
+    private static final Duration MAX_SCHEDULED_DELAY = Duration.ofHours(1);
+    private static final DateTimeFormatter SUBJECT_DATE = DateTimeFormatter.ofPattern("MMM d", Locale.ENGLISH);
+
+    @Autowired
+    private Firestore firestoreService;
+
+    @Autowired
+    private EventOccurrences eventOccurrences;
+
+    @Autowired
+    private EmailTemplates emailTemplates;
+
+    @Autowired
+    private EmailDispatchService emailDispatchService;
+
+    @Autowired
+    private SubscriptionService subscriptionService;
+
+    @Autowired
+    private LeaderLease leaderLease;
+
+    private final int days;
+    private final int submitBatchSize;
+    private final String schedule;
+    private final AtomicBoolean running = new AtomicBoolean();
+    // Composes and queues the digest once both queries are done; one thread, as only one digest runs at a time
+    private final ExecutorService composer = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "digest-compose");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private ScheduledExecutorService scheduler;
+
+    /**
+     * Creates the digest service from the tss.digest.* properties.
+     *
+     * @param days            length of the window a scheduled digest covers, starting today
+     * @param submitBatchSize emails handed to the dispatcher per job
+     * @param schedule        weekly run time such as "SUNDAY 18:00", or empty to only run on request
+     */
+    public DigestService(@Value("${tss.digest.days:7}") int days,
+                         @Value("${tss.digest.submit-batch-size:500}") int submitBatchSize,
+                         @Value("${tss.digest.schedule:}") String schedule) {
+        this.days = days;
+        this.submitBatchSize = Math.max(1, submitBatchSize);
+        this.schedule = schedule.trim();
+    }
+
+    /**
+     * Schedules the weekly run if tss.digest.schedule is set.
+     *
+     * @throws IllegalArgumentException if the schedule is not "DAY HH:mm"
+     */
+    @PostConstruct
+    public void start() {
+        if (schedule.isEmpty()) {
+            return;
+        }
+        String[] parts = schedule.split("\\s+");
+        if (parts.length != 2) {
+            throw new IllegalArgumentException("tss.digest.schedule must look like SUNDAY 18:00");
+        }
+        DayOfWeek day = DayOfWeek.valueOf(parts[0].toUpperCase(Locale.ROOT));
+        LocalTime time = LocalTime.parse(parts[1]);
+        scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "digest-scheduler");
+            thread.setDaemon(true);
+            return thread;
+        });
+        scheduleNext(day, time);
+    }
+
+    /**
+     * Cancels the scheduled run and stops the compose thread.
+     */
+    @PreDestroy
+    public void close() {
+        if (scheduler != null) {
+            scheduler.shutdownNow();
+        }
+        composer.shutdownNow();
+    }
+
+    /**
+     * Sends the digest of the next days, starting today.
+     *
+     * @pre no other digest is running
+     * @param days length of the window, 1 to MAX_DAYS
+     * @return future completing with the run's report (with an error if only some digests could be queued),
+     *         or failing with IllegalArgumentException for a bad window and IllegalStateException if a digest
+     *         is already running
+     */
+    public CompletableFuture<DigestReport> run(int days) {
+        if (days < 1 || days > MAX_DAYS) {
+            return CompletableFuture.failedFuture(new IllegalArgumentException("days must be between 1 and " + MAX_DAYS));
+        }
+        if (!running.compareAndSet(false, true)) {
+            return CompletableFuture.failedFuture(new IllegalStateException("A digest is already running"));
+        }
+        try {
+            return send(LocalDate.now(ZONE), days).whenComplete((report, error) -> running.set(false));
+        } catch (RuntimeException e) {
+            running.set(false);
+            return CompletableFuture.failedFuture(e);
+        }
+    }
+
+    // Queries the window, composes the digests and queues them
+    private CompletableFuture<DigestReport> send(LocalDate from, int days) {
+        long started = System.nanoTime();
+        LocalDate to = from.plusDays(days - 1);
+
+        com.google.cloud.firestore.Firestore db = FirestoreClient.getFirestore();
+        CompletableFuture<QuerySnapshot> oneOff = firestoreService.query("digestOneOff", () -> db.collection("events")
+                .whereEqualTo("status", "approved")
+                .whereGreaterThanOrEqualTo("date", from.toString())
+                .whereLessThanOrEqualTo("date", to.toString())
+                .orderBy("date")
+                .select(Event.LISTING_FIELDS)
+                .get());
+        CompletableFuture<QuerySnapshot> weekly = firestoreService.query("digestWeekly", () -> db.collection("events")
+                .whereEqualTo("status", "approved")
+                .whereEqualTo("weekly", true)
+                .select(Event.LISTING_FIELDS)
+                .get());
+
+        return oneOff.thenCombineAsync(weekly, (oneOffSnapshot, weeklySnapshot) -> {
+            long queried = System.nanoTime();
+            long reads = Math.max(1, oneOffSnapshot.size()) + Math.max(1, weeklySnapshot.size());
+            List<Occurrence> occurrences = occurrences(oneOffSnapshot.getDocuments(), weeklySnapshot.getDocuments(), from, to);
+
+            SubscriptionIndex subscriptions = subscriptionService.snapshot();
+            Queuing queuing = new Queuing();
+            Composed composed = compose(emailTemplates, occurrences, subscriptions, from, to, submitBatchSize, queuing);
+            long finished = System.nanoTime();
+
+            DigestReport report = new DigestReport(from, to, occurrences.size(), subscriptions.size(),
+                    queuing.queued, composed.distinctBodies(), reads, (queried - started) / 1_000_000,
+                    (finished - queried) / 1_000_000, (finished - started) / 1_000_000, queuing.jobIds, queuing.error);
+            if (queuing.error != null) {
+                System.err.println("Digest " + from + " to " + to + " stopped after queuing " + queuing.queued + " of "
+                        + composed.digests() + " emails in " + queuing.jobIds.size() + " jobs: " + queuing.error);
+            } else {
+                System.out.println("Digest " + from + " to " + to + ": " + report.digests() + " emails from "
+                        + report.occurrences() + " occurrences in " + report.totalMillis() + " ms, " + reads + " Firestore reads");
+            }
+            return report;
+        }, composer);
+    }
+
+    // Hands composed batches to the dispatcher; once one is refused, the rest are dropped and the jobs
+    // already queued are kept for the report
+    private final class Queuing implements Consumer<List<EmailMessage>> {
+        private final List<String> jobIds = new ArrayList<>();
+        private int queued;
+        private String error;
+
+        @Override
+        public void accept(List<EmailMessage> batch) {
+            if (error != null) {
+                return;
+            }
+            try {
+                jobIds.add(emailDispatchService.submit(batch));
+                queued += batch.size();
+            } catch (IllegalArgumentException | IllegalStateException e) {
+                error = e.getMessage();
+            }
+        }
+    }
+
+    /**
+     * Renders one digest per recipient with at least one matching occurrence.
+     * Event and category fragments are rendered once per run and digest bodies once per distinct
+     * set of occurrences; only the recipient line is rendered per email.
+     *
+     * @param templates     the compiled templates
+     * @param occurrences   the occurrences in the window, in date order
+     * @param subscriptions the recipients; must not change while composing
+     * @param from          first day of the window
+     * @param to            last day of the window
+     * @param batchSize     most emails passed to the sink at once
+     * @param batchSink     receives the emails in batches
+     * @return number of digests and of distinct bodies
+     */
+    static Composed compose(EmailTemplates templates, List<Occurrence> occurrences, SubscriptionIndex subscriptions,
+                            LocalDate from, LocalDate to, int batchSize, Consumer<List<EmailMessage>> batchSink) {
+        // Categories in alphabetical order, each occurrence's category, and each occurrence rendered once
+        TreeMap<String, Integer> categoryIndex = new TreeMap<>();
+        for (Occurrence occurrence : occurrences) {
+            categoryIndex.putIfAbsent(categoryOf(occurrence.event()), 0);
+        }
+        String[] categories = categoryIndex.keySet().toArray(new String[0]);
+        for (int i = 0; i < categories.length; i++) {
+            categoryIndex.put(categories[i], i);
+        }
+        int[] categoryOfOccurrence = new int[occurrences.size()];
+        String[] fragments = new String[occurrences.size()];
+        EmailTemplate eventTemplate = templates.get(DIGEST_EVENT);
+        EmailTemplate.Buffer buffer = new EmailTemplate.Buffer(4 * 1024);
+        for (int i = 0; i < occurrences.size(); i++) {
+            Event event = occurrences.get(i).event().onDate(occurrences.get(i).date());
+            categoryOfOccurrence[i] = categoryIndex.get(categoryOf(event));
+            eventTemplate.renderTo(buffer, EmailTemplates.eventValues(eventTemplate, event));
+            fragments[i] = buffer.toString();
+        }
+
+        // Recipient ID -> the occurrences they follow
+        BitSet[] followed = new BitSet[subscriptions.idRange()];
+        for (int r = 0; r < followed.length; r++) {
+            followed[r] = new BitSet(occurrences.size());
+        }
+        for (int i = 0; i < occurrences.size(); i++) {
+            BitSet audience = subscriptions.match(occurrences.get(i).event());
+            for (int r = audience.nextSetBit(0); r >= 0; r = audience.nextSetBit(r + 1)) {
+                followed[r].set(i);
+            }
+        }
+
+        EmailTemplate digestTemplate = templates.get(DIGEST);
+        EmailTemplate categoryTemplate = templates.get(DIGEST_CATEGORY);
+        String[] values = new String[digestTemplate.slotNames().length];
+        setSlot(digestTemplate, values, "from", from.toString());
+        setSlot(digestTemplate, values, "to", to.toString());
+        int sectionsSlot = digestTemplate.slotIndex("sections");
+        int countSlot = digestTemplate.slotIndex("eventCount");
+        int recipientSlot = digestTemplate.slotIndex("recipient");
+        String subject = "TSS Calendar: events " + SUBJECT_DATE.format(from) + " - " + SUBJECT_DATE.format(to);
+
+        Map<BitSet, String> bodies = new HashMap<>();
+        List<EmailMessage> batch = new ArrayList<>(batchSize);
+        int digests = 0;
+        for (int r = 0; r < followed.length; r++) {
+            BitSet events = followed[r];
+            if (events.isEmpty()) {
+                continue;
+            }
+            String sections = bodies.computeIfAbsent(events,
+                    set -> renderSections(set, categories, categoryOfOccurrence, fragments, categoryTemplate));
+            if (sectionsSlot >= 0) {
+                values[sectionsSlot] = sections;
+            }
+            if (countSlot >= 0) {
+                values[countSlot] = Integer.toString(events.cardinality());
+            }
+            String email = subscriptions.get(r).email();
+            if (recipientSlot >= 0) {
+                values[recipientSlot] = email;
+            }
+            digestTemplate.renderTo(buffer, values);
+            batch.add(new EmailMessage(email, subject, buffer.toString()));
+            digests++;
+            if (batch.size() == batchSize) {
+                batchSink.accept(batch);
+                batch = new ArrayList<>(batchSize);
+            }
+        }
+        if (!batch.isEmpty()) {
+            batchSink.accept(batch);
+        }
+        return new Composed(digests, bodies.size());
+    }
+
+    // One section per category with at least one of the occurrences, in category order
+    private static String renderSections(BitSet occurrences, String[] categories, int[] categoryOfOccurrence,
+                                         String[] fragments, EmailTemplate categoryTemplate) {
+        StringBuilder[] byCategory = new StringBuilder[categories.length];
+        for (int i = occurrences.nextSetBit(0); i >= 0; i = occurrences.nextSetBit(i + 1)) {
+            int category = categoryOfOccurrence[i];
+            if (byCategory[category] == null) {
+                byCategory[category] = new StringBuilder();
+            }
+            byCategory[category].append(fragments[i]);
+        }
+        StringBuilder sections = new StringBuilder();
+        for (int c = 0; c < categories.length; c++) {
+            if (byCategory[c] != null) {
+                sections.append(categoryTemplate.render(Map.of("category", categories[c], "events", byCategory[c].toString())));
+            }
+        }
+        return sections.toString();
+    }
+
+    // One-off events from the range query plus weekly events expanded over the window, sorted by date and start time
+    private List<Occurrence> occurrences(List<QueryDocumentSnapshot> oneOffDocuments, List<QueryDocumentSnapshot> weeklyDocuments,
+                                         LocalDate from, LocalDate to) {
+        Map<String, Event> oneOff = new LinkedHashMap<>();
+        for (QueryDocumentSnapshot document : oneOffDocuments) {
+            Event event = Event.fromSnapshot(document);
+            if (!Boolean.TRUE.equals(event.weekly())) {
+                oneOff.put(event.id(), event);
+            }
+        }
+        Set<LocalDate> skipDates = eventOccurrences.findSkipDates(new ArrayList<>(oneOff.values()));
+
+        List<Occurrence> occurrences = new ArrayList<>();
+        for (Event event : oneOff.values()) {
+            if (event.localDate() != null) {
+                occurrences.add(new Occurrence(event.localDate(), event));
+            }
+        }
+        for (QueryDocumentSnapshot document : weeklyDocuments) {
+            Event event = Event.fromSnapshot(document);
+            if (event.localDate() == null) {
+                continue;
+            }
+            Iterator<LocalDate> dates = RecurrenceExpander.weeklyDates(event.localDate(), from, to, skipDates);
+            while (dates.hasNext()) {
+                occurrences.add(new Occurrence(dates.next(), event));
+            }
+        }
+        occurrences.sort(Comparator.comparing(Occurrence::date)
+                .thenComparing(occurrence -> occurrence.event().localStartTime(), Comparator.nullsFirst(Comparator.naturalOrder())));
+        return occurrences;
+    }
+
+    private void scheduleNext(DayOfWeek day, LocalTime time) {
+        ZonedDateTime now = ZonedDateTime.now(ZONE);
+        ZonedDateTime next = now.with(TemporalAdjusters.nextOrSame(day)).with(time);
+        if (!next.isAfter(now)) {
+            next = next.plusWeeks(1);
+        }
+        ZonedDateTime slot = next;
+        scheduler.schedule(() -> runScheduled(slot, day, time), Duration.between(now, next).toMillis(), TimeUnit.MILLISECONDS);
+    }
+
+    // Every instance schedules the digest, but only the leader sends it, and only if no instance has claimed it yet
+    private void runScheduled(ZonedDateTime slot, DayOfWeek day, LocalTime time) {
+        if (!leaderLease.isLeader()) {
+            // Retry through a lease handover instead of skipping the week; the marker stops a second send
+            if (ZonedDateTime.now(ZONE).isBefore(slot.plus(MAX_SCHEDULED_DELAY))) {
+                scheduler.schedule(() -> runScheduled(slot, day, time), leaderLease.getRenewMillis(), TimeUnit.MILLISECONDS);
+            } else {
+                scheduleNext(day, time);
+            }
+            return;
+        }
+        Map<String, Object> marker = new HashMap<>();
+        marker.put("scheduledFor", slot.toString());
+        marker.put("sentAt", ZonedDateTime.now(ZONE).toString());
+        firestoreService.claimDigestAsync(slot.toLocalDate().toString(), marker)
+                .thenCompose(claimed -> claimed ? run(days).thenApply(report -> true) : CompletableFuture.completedFuture(false))
+                .whenComplete((sent, error) -> {
+                    if (error != null) {
+                        System.err.println("Scheduled digest failed: " + error.getMessage());
+                    } else if (!sent) {
+                        System.out.println("Scheduled digest for " + slot.toLocalDate() + " was already sent");
+                    }
+                    scheduleNext(day, time);
+                });
+    }
+
+    private static String categoryOf(Event event) {
+        return event.category() != null && !event.category().isBlank() ? event.category() : "Other";
+    }
+
+    private static void setSlot(EmailTemplate template, String[] values, String name, String value) {
+        int slot = template.slotIndex(name);
+        if (slot >= 0) {
+            values[slot] = value;
+        }
+    }
+}
@@ -0,0 +1,438 @@
+/**
+ * EmailDispatchService.java
+ *
+ * Bulk email dispatch through Resend's batch endpoint.
+ * Jobs are queued and sent by one background worker over a shared HTTP
+ * client, in chunks of up to 100 emails per request. A token bucket keeps
+ * requests within the provider's rate limit, failed requests are retried with
+ * jittered exponential backoff, and every recipient's delivery status is kept
+ * on the job.
+ *
+ * Sources:
+ * - Resend batch emails: https://resend.com/docs/api-reference/emails/send-batch-emails
+ * - Resend rate limits: https://resend.com/docs/api-reference/introduction#rate-limit
+ * - Exponential backoff and jitter: https://aws.amazon.com/blogs/architecture/exponential-backoff-and-jitter/
+ *
+ * @author Artin Mehri
+ * @version 1.0
+ */
+package com.tsscalendar.TSS.Calendar.service;
+import com.google.gson.Gson;
+import com.google.gson.JsonParseException;
+import com.tsscalendar.TSS.Calendar.model.EmailMessage;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Queues bulk email jobs and sends them in rate-limited, retried batches.
+ */
+@Service
+public class EmailDispatchService {
+
+    /**
+     * Delivery status of one recipient.
+     *
+     * @param recipient the email address
+     * @param state     QUEUED, SENT or FAILED
+     * @param emailId   the provider's email ID once sent
+     * @param error     the last error if failed
+     * @param attempts  number of requests that included this recipient
+     */
+    public record RecipientStatus(String recipient, String state, String emailId, String error, int attempts) {
+    }
+
+    // Resend accepts at most 100 emails per batch request
+    private static final int MAX_BATCH_SIZE = 100;
+    // Finished jobs kept for status queries
+    private static final int MAX_RETAINED_JOBS = 100;
+    private static final long MAX_BACKOFF_MILLIS = 30_000;
+
+    // JSON shapes of the batch endpoint
+    private record BatchEmail(String from, List<String> to, String subject, String html) {
+    }
+
+    private record BatchResponse(List<BatchId> data) {
+    }
+
+    private record BatchId(String id) {
+    }
+
+    // One queued job; statuses are replaced by the worker and copied by readers under the job's lock
+    private static final class DispatchJob {
+        private final String id;
+        private final Instant createdAt = Instant.now();
+        private final List<EmailMessage> messages;
+        private final RecipientStatus[] statuses;
+        private String state = "QUEUED";
+
+        private DispatchJob(String id, List<EmailMessage> messages) {
+            this.id = id;
+            this.messages = messages;
+            this.statuses = new RecipientStatus[messages.size()];
+            for (int i = 0; i < statuses.length; i++) {
+                statuses[i] = new RecipientStatus(messages.get(i).to(), "QUEUED", null, null, 0);
+            }
+        }
+    }
+
+    private final String apiKey;
+    private final URI batchUri;
+    private final String from;
+    private final int batchSize;
+    private final int maxAttempts;
+    private final long retryBaseMillis;
+    private final TokenBucket rateLimiter;
+    private final BlockingQueue<DispatchJob> queue;
+    private final Thread worker;
+    private final HttpClient httpClient = HttpClient.newBuilder()
+            .connectTimeout(Duration.ofSeconds(10))
+            .build();
+    private final Gson gson = new Gson();
+
+    // Access-ordered so the oldest jobs are forgotten first
+    private final Map<String, DispatchJob> jobs = new LinkedHashMap<>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, DispatchJob> eldest) {
+            return size() > MAX_RETAINED_JOBS && !"QUEUED".equals(eldest.getValue().state)
+                    && !"RUNNING".equals(eldest.getValue().state);
+        }
+    };
+
+    // Replaced by the Spring bean; a service constructed directly records into the global registry
+    @Autowired
+    private CallMetrics callMetrics = CallMetrics.global();
+
+    private final AtomicLong requests = new AtomicLong();
+    private final AtomicLong retries = new AtomicLong();
+    private final AtomicLong sent = new AtomicLong();
+    private final AtomicLong failed = new AtomicLong();
+
+    private volatile boolean running = true;
+
+    /**
+     * Creates the dispatch service from configuration.
+     *
+     * @pre ratePerSecond, batchSize, maxAttempts and queueCapacity are greater than 0
+     *
+     * @param apiKey          Resend API key (tss.email.api-key, RESEND_API_KEY by default)
+     * @param baseUrl         API base URL, overridable for a local stub server (tss.email.base-url)
+     * @param from            sender address (tss.email.from)
+     * @param ratePerSecond   requests per second allowed by the provider (tss.email.rate-per-second)
+     * @param batchSize       emails per batch request, at most 100 (tss.email.batch-size)
+     * @param maxAttempts     tries per batch request before its recipients are marked failed (tss.email.max-attempts)
+     * @param retryBaseMillis first backoff step; later steps double (tss.email.retry-base-ms)
+     * @param queueCapacity   maximum jobs waiting to be sent (tss.email.queue-capacity)
+     * @throws IllegalArgumentException if the base URL is malformed
+     */
+    public EmailDispatchService(@Value("${tss.email.api-key:${RESEND_API_KEY:}}") String apiKey,
+                                @Value("${tss.email.base-url:https://api.resend.com}") String baseUrl,
+                                @Value("${tss.email.from:TSS-Calendar <calendar@sportiner.com>}") String from,
+                                @Value("${tss.email.rate-per-second:2}") double ratePerSecond,
+                                @Value("${tss.email.batch-size:100}") int batchSize,
+                                @Value("${tss.email.max-attempts:4}") int maxAttempts,
+                                @Value("${tss.email.retry-base-ms:500}") long retryBaseMillis,
+                                @Value("${tss.email.queue-capacity:100}") int queueCapacity) {
+        this.apiKey = apiKey;
+        // Parsed once, so a malformed URL stops startup instead of failing every job
+        this.batchUri = URI.create((baseUrl.endsWith("/") ? baseUrl.substring(0, baseUrl.length() - 1) : baseUrl) + "/emails/batch");
+        this.from = from;
+        this.batchSize = Math.min(batchSize, MAX_BATCH_SIZE);
+        this.maxAttempts = maxAttempts;
+        this.retryBaseMillis = retryBaseMillis;
+        // Burst of one request: the provider's limit is per second, not per window
+        this.rateLimiter = new TokenBucket(ratePerSecond, 1);
+        this.queue = new ArrayBlockingQueue<>(queueCapacity);
+        this.worker = new Thread(this::workLoop, "email-dispatch");
+        this.worker.setDaemon(true);
+    }
+
+    /**
+     * Starts the background worker.
+     */
+    @PostConstruct
+    public void start() {
+        worker.start();
+    }
+
+    /**
+     * Queues emails for sending and returns immediately.
+     *
+     * @param messages the emails, one per recipient
+     * @return the job ID to pass to {@link #getJob(String)}
+     * @throws IllegalArgumentException if there are no messages or a recipient is not an email address
+     * @throws IllegalStateException if the dispatch queue is full
+     */
+    public String submit(List<EmailMessage> messages) {
+        if (messages == null || messages.isEmpty()) {
+            throw new IllegalArgumentException("No emails to send");
+        }
+        for (EmailMessage message : messages) {
+            if (message == null || !isAddress(message.to())) {
+                throw new IllegalArgumentException("Not an email address: " + (message != null ? message.to() : null));
+            }
+        }
+        DispatchJob job = new DispatchJob(UUID.randomUUID().toString(), List.copyOf(messages));
+        synchronized (jobs) {
+            jobs.put(job.id, job);
+        }
+        if (!running || !queue.offer(job)) {
+            synchronized (jobs) {
+                jobs.remove(job.id);
+            }
+            throw new IllegalStateException("Email dispatch queue is full, try again later");
+        }
+        return job.id;
+    }
+
+    /**
+     * Queues the same email for many recipients.
+     *
+     * @param subject    the subject line
+     * @param html       the HTML body
+     * @param recipients the recipient addresses
+     * @return the job ID
+     * @throws IllegalArgumentException if there are no recipients or one is not an email address
+     * @throws IllegalStateException if the dispatch queue is full
+     */
+    public String submit(String subject, String html, List<String> recipients) {
+        List<EmailMessage> messages = new ArrayList<>(recipients.size());
+        for (String recipient : recipients) {
+            messages.add(new EmailMessage(recipient, subject, html));
+        }
+        return submit(messages);
+    }
+
+    /**
+     * Reports a job's state and every recipient's delivery status.
+     *
+     * @param jobId the ID returned by submit
+     * @return map with jobId, state, createdAt, counts and recipients, or null if the job is unknown
+     */
+    public Map<String, Object> getJob(String jobId) {
+        DispatchJob job;
+        synchronized (jobs) {
+            job = jobs.get(jobId);
+        }
+        if (job == null) {
+            return null;
+        }
+        synchronized (job) {
+            Map<String, Integer> counts = new HashMap<>();
+            for (RecipientStatus status : job.statuses) {
+                counts.merge(status.state(), 1, Integer::sum);
+            }
+            Map<String, Object> report = new HashMap<>();
+            report.put("jobId", job.id);
+            report.put("state", job.state);
+            report.put("createdAt", job.createdAt.toString());
+            report.put("counts", counts);
+            report.put("recipients", List.of(job.statuses));
+            return report;
+        }
+    }
+
+    /**
+     * Reports request, retry and delivery counters.
+     *
+     * @return map of metric names to values
+     */
+    public Map<String, Object> getMetrics() {
+        Map<String, Object> metrics = new HashMap<>();
+        metrics.put("queuedJobs", queue.size());
+        metrics.put("requests", requests.get());
+        metrics.put("retries", retries.get());
+        metrics.put("sent", sent.get());
+        metrics.put("failed", failed.get());
+        return metrics;
+    }
+
+    /**
+     * Stops the worker after the job in progress.
+     */
+    @PreDestroy
+    public void close() {
+        running = false;
+        worker.interrupt();
+    }
+
+    private void workLoop() {
+        while (running) {
+            DispatchJob job;
+            try {
+                job = queue.take();
+            } catch (InterruptedException e) {
+                break;
+            }
+            try {
+                send(job);
+            } catch (InterruptedException e) {
+                markRemaining(job, "Dispatch stopped");
+                break;
+            } catch (RuntimeException e) {
+                // One bad job must not stop the only worker, or every later job would stay queued forever
+                System.err.println("Email job " + job.id + " failed: " + e);
+                markRemaining(job, e.getClass().getSimpleName() + ": " + e.getMessage());
+            }
+        }
+    }
+
+    private void send(DispatchJob job) throws InterruptedException {
+        synchronized (job) {
+            job.state = "RUNNING";
+        }
+        for (int start = 0; start < job.messages.size(); start += batchSize) {
+            int end = Math.min(start + batchSize, job.messages.size());
+            sendChunk(job, start, end);
+        }
+        synchronized (job) {
+            job.state = "DONE";
+        }
+    }
+
+    // Sends one batch request, retrying retryable failures, and records the outcome for each recipient
+    private void sendChunk(DispatchJob job, int start, int end) throws InterruptedException {
+        List<BatchEmail> emails = new ArrayList<>(end - start);
+        for (int i = start; i < end; i++) {
+            EmailMessage message = job.messages.get(i);
+            emails.add(new BatchEmail(from, List.of(message.to()), message.subject(), message.html()));
+        }
+        HttpRequest request = HttpRequest.newBuilder(batchUri)
+                .timeout(Duration.ofSeconds(30))
+                .header("Authorization", "Bearer " + apiKey)
+                .header("Content-Type", "application/json")
+                // Lets the provider drop a repeated request if a retry follows a lost response
+                .header("Idempotency-Key", job.id + "-" + start)
+                .POST(HttpRequest.BodyPublishers.ofString(gson.toJson(emails)))
+                .build();
+
+        String lastError = null;
+        for (int attempt = 1; attempt <= maxAttempts; attempt++) {
+            rateLimiter.acquire();
+            requests.incrementAndGet();
+            long retryAfterMillis = -1;
+            long startedAt = System.nanoTime();
+            try {
+                HttpResponse<String> response = httpClient.send(request, HttpResponse.BodyHandlers.ofString());
+                int status = response.statusCode();
+                callMetrics.record(CallMetrics.EMAIL_CALLS, "batchSend", System.nanoTime() - startedAt,
+                        status >= 200 && status < 300, String.valueOf(status));
+                if (status >= 200 && status < 300) {
+                    recordSent(job, start, end, attempt, parseIds(response.body()));
+                    return;
+                }
+                lastError = "HTTP " + status + ": " + response.body();
+                if (status != 429 && status < 500) {
+                    break;
+                }
+                if (status == 429) {
+                    rateLimiter.drain();
+                }
+                retryAfterMillis = response.headers().firstValue("Retry-After")
+                        .map(EmailDispatchService::parseRetryAfter).orElse(-1L);
+            } catch (IOException e) {
+                callMetrics.record(CallMetrics.EMAIL_CALLS, "batchSend", System.nanoTime() - startedAt, e);
+                lastError = e.getClass().getSimpleName() + ": " + e.getMessage();
+            }
+
+            if (attempt < maxAttempts) {
+                retries.incrementAndGet();
+                Thread.sleep(retryAfterMillis >= 0 ? retryAfterMillis : backoffMillis(attempt));
+            }
+        }
+        recordFailed(job, start, end, maxAttempts, lastError);
+    }
+
+    // Full jitter: a random delay up to the exponential step, so retries from many jobs spread out
+    private long backoffMillis(int attempt) {
+        long step = Math.min(MAX_BACKOFF_MILLIS, retryBaseMillis << Math.min(attempt - 1, 20));
+        return ThreadLocalRandom.current().nextLong(step + 1);
+    }
+
+    private static long parseRetryAfter(String value) {
+        try {
+            return TimeUnit.SECONDS.toMillis(Long.parseLong(value.trim()));
+        } catch (NumberFormatException e) {
+            return -1;
+        }
+    }
+
+    private List<String> parseIds(String body) {
+        List<String> ids = new ArrayList<>();
+        try {
+            BatchResponse response = gson.fromJson(body, BatchResponse.class);
+            if (response != null && response.data() != null) {
+                for (BatchId id : response.data()) {
+                    ids.add(id != null ? id.id() : null);
+                }
+            }
+        } catch (JsonParseException e) {
+            System.err.println("Unreadable batch response: " + e.getMessage());
+        }
+        return ids;
+    }
+
+    private void recordSent(DispatchJob job, int start, int end, int attempts, List<String> ids) {
+        synchronized (job) {
+            for (int i = start; i < end; i++) {
+                String emailId = i - start < ids.size() ? ids.get(i - start) : null;
+                job.statuses[i] = new RecipientStatus(job.messages.get(i).to(), "SENT", emailId, null, attempts);
+            }
+        }
+        sent.addAndGet(end - start);
+    }
+
+    private void recordFailed(DispatchJob job, int start, int end, int attempts, String error) {
+        synchronized (job) {
+            for (int i = start; i < end; i++) {
+                job.statuses[i] = new RecipientStatus(job.messages.get(i).to(), "FAILED", null, error, attempts);
+            }
+        }
+        failed.addAndGet(end - start);
+        System.err.println("Email batch failed for job " + job.id + ": " + error);
+    }
+
+    private void markRemaining(DispatchJob job, String error) {
+        int marked = 0;
+        synchronized (job) {
+            for (int i = 0; i < job.statuses.length; i++) {
+                if ("QUEUED".equals(job.statuses[i].state())) {
+                    job.statuses[i] = new RecipientStatus(job.messages.get(i).to(), "FAILED", null, error, job.statuses[i].attempts());
+                    marked++;
+                }
+            }
+            job.state = "DONE";
+        }
+        failed.addAndGet(marked);
+    }
+
+    // A single address with one @, a dot in the domain and no whitespace; the provider does the full check
+    static boolean isAddress(String address) {
+        if (address == null || address.isBlank()) {
+            return false;
+        }
+        int at = address.indexOf('@');
+        return at > 0 && at == address.lastIndexOf('@') && address.indexOf('.', at) > at + 1
+                && !address.endsWith(".") && address.chars().noneMatch(c -> Character.isWhitespace(c) || c == ',' || c == '<' || c == '>');
+    }
+}
@@ -0,0 +1,305 @@
+/**
+ * EmailTemplate.java
+ *
+ * Precompiled HTML email template. The template text is parsed once into
+ * UTF-8 byte segments and placeholder slots, so rendering an email is only a
+ * sequence of array copies plus the escaped placeholder values, written into a
+ * reusable buffer.
+ *
+ * Placeholders are written {{name}} (HTML-escaped) or {{{name}}} (inserted as is).
+ *
+ * Sources:
+ * - OWASP XSS prevention (HTML entity encoding): https://cheatsheetseries.owasp.org/cheatsheets/Cross_Site_Scripting_Prevention_Cheat_Sheet.html
+ *
+ * @author Artin Mehri
+ * @version 1.0
+ */
+package com.tsscalendar.TSS.Calendar.service;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * An immutable, thread-safe compiled template. Rendering state lives in a {@link Buffer}.
+ */
+public class EmailTemplate {
+
+    // segments[i] is written before slot i; the last segment follows the last slot
+    private final byte[][] segments;
+    private final int[] slotOfPlaceholder;
+    private final boolean[] escapePlaceholder;
+    private final String[] slotNames;
+    private final Map<String, Integer> slotIndex;
+    private final int staticBytes;
+
+    private EmailTemplate(byte[][] segments, int[] slotOfPlaceholder, boolean[] escapePlaceholder, String[] slotNames) {
+        this.segments = segments;
+        this.slotOfPlaceholder = slotOfPlaceholder;
+        this.escapePlaceholder = escapePlaceholder;
+        this.slotNames = slotNames;
+        this.slotIndex = new LinkedHashMap<>();
+        for (int i = 0; i < slotNames.length; i++) {
+            slotIndex.put(slotNames[i], i);
+        }
+        int total = 0;
+        for (byte[] segment : segments) {
+            total += segment.length;
+        }
+        this.staticBytes = total;
+    }
+
+    /**
+     * Parses template text.
+     *
+     * @param source the template text
+     * @return the compiled template
+     * @throws IllegalArgumentException if a placeholder is not closed or has an empty name
+     */
+    public static EmailTemplate compile(String source) {
+        List<byte[]> segments = new ArrayList<>();
+        List<Integer> slots = new ArrayList<>();
+        List<Boolean> escapes = new ArrayList<>();
+        Map<String, Integer> names = new LinkedHashMap<>();
+
+        int position = 0;
+        while (true) {
+            int open = source.indexOf("{{", position);
+            if (open < 0) {
+                segments.add(source.substring(position).getBytes(StandardCharsets.UTF_8));
+                break;
+            }
+            boolean raw = source.startsWith("{{{", open);
+            String closing = raw ? "}}}" : "}}";
+            int nameStart = open + (raw ? 3 : 2);
+            int close = source.indexOf(closing, nameStart);
+            if (close < 0) {
+                throw new IllegalArgumentException("Unclosed placeholder at offset " + open);
+            }
+            String name = source.substring(nameStart, close).trim();
+            if (name.isEmpty()) {
+                throw new IllegalArgumentException("Empty placeholder at offset " + open);
+            }
+
+            segments.add(source.substring(position, open).getBytes(StandardCharsets.UTF_8));
+            slots.add(names.computeIfAbsent(name, n -> names.size()));
+            escapes.add(!raw);
+            position = close + closing.length();
+        }
+
+        int[] slotOfPlaceholder = new int[slots.size()];
+        boolean[] escapePlaceholder = new boolean[slots.size()];
+        for (int i = 0; i < slotOfPlaceholder.length; i++) {
+            slotOfPlaceholder[i] = slots.get(i);
+            escapePlaceholder[i] = escapes.get(i);
+        }
+        return new EmailTemplate(segments.toArray(new byte[0][]), slotOfPlaceholder, escapePlaceholder,
+                names.keySet().toArray(new String[0]));
+    }
+
+    /**
+     * Loads and parses a template from the classpath, e.g. "templates/event-announcement.html".
+     *
+     * @param resourcePath the classpath resource
+     * @return the compiled template
+     * @throws IllegalArgumentException if the resource does not exist
+     */
+    public static EmailTemplate load(String resourcePath) {
+        try (InputStream in = EmailTemplate.class.getClassLoader().getResourceAsStream(resourcePath)) {
+            if (in == null) {
+                throw new IllegalArgumentException("Template not found: " + resourcePath);
+            }
+            return compile(new String(in.readAllBytes(), StandardCharsets.UTF_8));
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to read template " + resourcePath, e);
+        }
+    }
+
+    /**
+     * Returns the placeholder names, in order of first appearance. The position of a name
+     * is its slot, i.e. the index of its value in the array passed to {@link #renderTo}.
+     *
+     * @return copy of the slot names
+     */
+    public String[] slotNames() {
+        return slotNames.clone();
+    }
+
+    /**
+     * Returns the slot of a placeholder name.
+     *
+     * @param name the placeholder name
+     * @return the slot, or -1 if the template has no such placeholder
+     */
+    public int slotIndex(String name) {
+        Integer index = slotIndex.get(name);
+        return index != null ? index : -1;
+    }
+
+    /**
+     * Renders into a buffer, replacing its previous content.
+     *
+     * @pre values.length equals the number of slot names; null values render as empty
+     *
+     * @param buffer the reusable output buffer
+     * @param values one value per slot
+     */
+    public void renderTo(Buffer buffer, String[] values) {
+        buffer.reset();
+        buffer.ensureCapacity(staticBytes);
+        for (int i = 0; i < slotOfPlaceholder.length; i++) {
+            buffer.write(segments[i]);
+            String value = values[slotOfPlaceholder[i]];
+            if (value != null) {
+                if (escapePlaceholder[i]) {
+                    buffer.writeEscaped(value);
+                } else {
+                    buffer.writeRaw(value);
+                }
+            }
+        }
+        buffer.write(segments[segments.length - 1]);
+    }
+
+    /**
+     * Renders with named values; convenient when rendering a single email.
+     *
+     * @param values placeholder name to value; missing names render as empty
+     * @return the rendered text
+     */
+    public String render(Map<String, String> values) {
+        String[] slots = new String[slotNames.length];
+        for (int i = 0; i < slots.length; i++) {
+            slots[i] = values.get(slotNames[i]);
+        }
+        Buffer buffer = new Buffer(staticBytes + 256);
+        renderTo(buffer, slots);
+        return buffer.toString();
+    }
+
+    /**
+     * Growable UTF-8 output buffer, reused across renders by one thread.
+     */
+    public static final class Buffer {
+        private byte[] bytes;
+        private int length;
+
+        /**
+         * Creates an empty buffer.
+         *
+         * @param initialCapacity starting size in bytes
+         */
+        public Buffer(int initialCapacity) {
+            this.bytes = new byte[Math.max(16, initialCapacity)];
+        }
+
+        /**
+         * Returns the rendered size in bytes.
+         *
+         * @return number of bytes written since the last reset
+         */
+        public int length() {
+            return length;
+        }
+
+        /**
+         * Returns the underlying array; only the first {@link #length()} bytes are valid.
+         *
+         * @return the internal array, not a copy
+         */
+        public byte[] array() {
+            return bytes;
+        }
+
+        /**
+         * Decodes the rendered bytes.
+         *
+         * @return the rendered text
+         */
+        @Override
+        public String toString() {
+            return new String(bytes, 0, length, StandardCharsets.UTF_8);
+        }
+
+        private void reset() {
+            length = 0;
+        }
+
+        private void ensureCapacity(int needed) {
+            if (needed > bytes.length) {
+                bytes = Arrays.copyOf(bytes, Math.max(needed, bytes.length * 2));
+            }
+        }
+
+        private void write(byte[] segment) {
+            ensureCapacity(length + segment.length);
+            System.arraycopy(segment, 0, bytes, length, segment.length);
+            length += segment.length;
+        }
+
+        private void writeRaw(String value) {
+            for (int i = 0; i < value.length(); i++) {
+                i = writeChar(value, i);
+            }
+        }
+
+        // HTML-escapes & < > " ' and encodes everything else as UTF-8
+        private void writeEscaped(String value) {
+            for (int i = 0; i < value.length(); i++) {
+                char c = value.charAt(i);
+                switch (c) {
+                    case '&' -> writeAscii("&amp;");
+                    case '<' -> writeAscii("&lt;");
+                    case '>' -> writeAscii("&gt;");
+                    case '"' -> writeAscii("&quot;");
+                    case '\'' -> writeAscii("&#39;");
+                    default -> i = writeChar(value, i);
+                }
+            }
+        }
+
+        private void writeAscii(String text) {
+            ensureCapacity(length + text.length());
+            for (int i = 0; i < text.length(); i++) {
+                bytes[length++] = (byte) text.charAt(i);
+            }
+        }
+
+        // Writes the code point at index i as UTF-8 and returns the index of its last char
+        private int writeChar(String value, int i) {
+            ensureCapacity(length + 4);
+            char c = value.charAt(i);
+            if (c < 0x80) {
+                bytes[length++] = (byte) c;
+                return i;
+            }
+            if (c < 0x800) {
+                bytes[length++] = (byte) (0xC0 | (c >> 6));
+                bytes[length++] = (byte) (0x80 | (c & 0x3F));
+                return i;
+            }
+            if (Character.isHighSurrogate(c) && i + 1 < value.length() && Character.isLowSurrogate(value.charAt(i + 1))) {
+                int codePoint = Character.toCodePoint(c, value.charAt(i + 1));
+                bytes[length++] = (byte) (0xF0 | (codePoint >> 18));
+                bytes[length++] = (byte) (0x80 | ((codePoint >> 12) & 0x3F));
+                bytes[length++] = (byte) (0x80 | ((codePoint >> 6) & 0x3F));
+                bytes[length++] = (byte) (0x80 | (codePoint & 0x3F));
+                return i + 1;
+            }
+            if (Character.isSurrogate(c)) {
+                // Unpaired surrogate: write '?' like String.getBytes does
+                bytes[length++] = (byte) '?';
+                return i;
+            }
+            bytes[length++] = (byte) (0xE0 | (c >> 12));
+            bytes[length++] = (byte) (0x80 | ((c >> 6) & 0x3F));
+            bytes[length++] = (byte) (0x80 | (c & 0x3F));
+            return i;
+        }
+    }
+}
@@ -0,0 +1,94 @@
+/**
+ * EmailTemplates.java
+ *
+ * Loads the HTML email templates in resources/templates once and renders
+ * event emails from them, one per recipient.
+ *
+ * @author Artin Mehri
+ * @version 1.0
+ */
+package com.tsscalendar.TSS.Calendar.service;
+import com.tsscalendar.TSS.Calendar.model.EmailMessage;
+import com.tsscalendar.TSS.Calendar.model.Event;
+import org.springframework.stereotype.Service;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Cache of compiled templates plus event-specific rendering.
+ */
+@Service
+public class EmailTemplates {
+
+    /**
+     * Template announcing one event; placeholders are the event fields plus recipient.
+     */
+    public static final String EVENT_ANNOUNCEMENT = "templates/event-announcement.html";
+
+    private final Map<String, EmailTemplate> compiled = new ConcurrentHashMap<>();
+
+    /**
+     * Returns a compiled template, parsing it on first use.
+     *
+     * @param resourcePath the classpath resource, e.g. {@link #EVENT_ANNOUNCEMENT}
+     * @return the compiled template
+     */
+    public EmailTemplate get(String resourcePath) {
+        return compiled.computeIfAbsent(resourcePath, EmailTemplate::load);
+    }
+
+    /**
+     * Renders the announcement of one event for every recipient.
+     * Event fields are HTML-escaped; the values array and output buffer are reused,
+     * so only the recipient slot changes between emails.
+     *
+     * @param event      the event to announce
+     * @param subject    the subject line
+     * @param recipients the recipient addresses
+     * @return one email per recipient
+     */
+    public List<EmailMessage> renderEventEmails(Event event, String subject, List<String> recipients) {
+        EmailTemplate template = get(EVENT_ANNOUNCEMENT);
+        String[] values = eventValues(template, event);
+        int recipientSlot = template.slotIndex("recipient");
+
+        EmailTemplate.Buffer buffer = new EmailTemplate.Buffer(16 * 1024);
+        List<EmailMessage> emails = new ArrayList<>(recipients.size());
+        for (String recipient : recipients) {
+            if (recipientSlot >= 0) {
+                values[recipientSlot] = recipient;
+            }
+            template.renderTo(buffer, values);
+            emails.add(new EmailMessage(recipient, subject, buffer.toString()));
+        }
+        return emails;
+    }
+
+    /**
+     * Fills the slots of a template with an event's fields.
+     * Supported names: title, description, category, supervisor, location, date, time.
+     *
+     * @param template the compiled template
+     * @param event    the event
+     * @return one value per slot; slots without a matching field are null
+     */
+    public static String[] eventValues(EmailTemplate template, Event event) {
+        String[] names = template.slotNames();
+        String[] values = new String[names.length];
+        for (int i = 0; i < names.length; i++) {
+            values[i] = switch (names[i]) {
+                case "title" -> event.title();
+                case "description" -> event.description();
+                case "category" -> event.category();
+                case "supervisor" -> event.supervisor();
+                case "location" -> event.location();
+                case "date" -> event.date();
+                case "time" -> event.endTime() != null ? event.startTime() + " - " + event.endTime() : event.startTime();
+                default -> null;
+            };
+        }
+        return values;
+    }
+}
@@ -0,0 +1,328 @@
+/**
+ * EventBatchWriter.java
+ *
+ * Groups new event documents into batches and writes them to Firestore
+ * with a BulkWriter, keeping only a bounded number of batches in flight.
+ * Each event is created under its form responseId with create(), which
+ * fails instead of overwriting, so a retried sync never stores a response
+ * twice and no read is needed to dedupe. When the document already exists,
+ * the stored lastSubmittedTime is compared with the response's: an edited
+ * response replaces the form fields in place (keeping the event's status),
+ * guarded by an update-time precondition so a concurrent approval is not
+ * lost; an unchanged one is left alone.
+ *
+ * Sources:
+ * - Firestore BulkWriter: https://cloud.google.com/java/docs/reference/google-cloud-firestore/latest/com.google.cloud.firestore.BulkWriter
+ * - Firestore preconditions: https://cloud.google.com/java/docs/reference/google-cloud-firestore/latest/com.google.cloud.firestore.Precondition
+ *
+ * @author Artin Mehri
+ * @version 1.0
+ */
+package com.tsscalendar.TSS.Calendar.service;
+import com.google.api.core.ApiFuture;
+import com.google.api.core.ApiFutureCallback;
+import com.google.api.core.ApiFutures;
+import com.google.cloud.firestore.BulkWriter;
+import com.google.cloud.firestore.CollectionReference;
+import com.google.cloud.firestore.DocumentReference;
+import com.google.cloud.firestore.Precondition;
+import com.google.cloud.firestore.WriteResult;
+import com.google.common.util.concurrent.MoreExecutors;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Writes event documents in batches during one sync run.
+ * Calls to {@link #add(String, Map)} block once maxInFlightBatches are still being committed,
+ * so a large backlog never queues more than that many batches in memory.
+ * Safe to call from several sync worker threads at once; a ReentrantLock rather than synchronized guards
+ * the pending batch, so a virtual thread blocked on backpressure does not pin its carrier thread.
+ */
+public class EventBatchWriter implements AutoCloseable {
+
+    // Fields owned by the admin workflow rather than the form, kept when an edited response is applied
+    private static final List<String> KEPT_ON_EDIT = List.of("status", "image");
+
+    // One queued event and the document ID it is created under
+    private record Queued(String responseId, Map<String, Object> eventData) {
+    }
+
+    private final BulkWriter bulkWriter;
+    private final CollectionReference events;
+    private final int batchSize;
+    private final int maxInFlightBatches;
+    private final Semaphore inFlight;
+    private final CallMetrics callMetrics;
+    private final List<Map<String, Object>> batchReports = Collections.synchronizedList(new ArrayList<>());
+    // Guards pending, batchNumber and closed
+    private final ReentrantLock lock = new ReentrantLock();
+
+    private List<Queued> pending = new ArrayList<>();
+    private int batchNumber = 0;
+    private boolean closed = false;
+
+    /**
+     * Creates a writer for one sync run.
+     *
+     * @pre batchSize and maxInFlightBatches are both greater than 0
+     * @post No documents are written until the first batch fills or the writer is closed
+     *
+     * @param bulkWriter the Firestore BulkWriter used to send the writes
+     * @param events the "events" collection documents are created and updated in
+     * @param batchSize number of events grouped into one reported batch
+     * @param maxInFlightBatches number of batches allowed to be committing at the same time
+     * @param callMetrics records the latency and outcome of every write
+     */
+    public EventBatchWriter(BulkWriter bulkWriter, CollectionReference events, int batchSize, int maxInFlightBatches,
+                            CallMetrics callMetrics) {
+        this.bulkWriter = bulkWriter;
+        this.events = events;
+        this.batchSize = batchSize;
+        this.maxInFlightBatches = maxInFlightBatches;
+        this.inFlight = new Semaphore(maxInFlightBatches);
+        this.callMetrics = callMetrics;
+    }
+
+    /**
+     * Queues one event document, committing the current batch once it is full.
+     *
+     * @pre the writer has not been closed
+     * @post the event is part of the current batch or of a batch that has been sent
+     *
+     * @param responseId the Google Form responseId, used as the document ID
+     * @param eventData  the document fields built by {@link Firestore#buildEventData}
+     * @throws InterruptedException if interrupted while waiting for the lock or for an in-flight batch to finish
+     */
+    public void add(String responseId, Map<String, Object> eventData) throws InterruptedException {
+        if (responseId == null || responseId.isBlank()) {
+            throw new IllegalArgumentException("An event needs the responseId of its form response.");
+        }
+        lock.lockInterruptibly();
+        try {
+            if (closed) {
+                throw new IllegalStateException("EventBatchWriter is already closed.");
+            }
+            pending.add(new Queued(responseId, eventData));
+            if (pending.size() >= batchSize) {
+                commitPending();
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // Sends the pending events as one batch, waiting first if too many batches are still in flight; caller holds lock
+    private void commitPending() throws InterruptedException {
+        if (pending.isEmpty()) {
+            return;
+        }
+        // Backpressure: block the sync loop until an earlier batch has finished
+        inFlight.acquire();
+
+        List<Queued> batch = pending;
+        pending = new ArrayList<>();
+        BatchResult result = new BatchResult(++batchNumber, batch.size());
+
+        for (Queued queued : batch) {
+            String title = (String) queued.eventData().get("title");
+            DocumentReference document = events.document(queued.responseId());
+            long queuedAt = System.nanoTime();
+            ApiFuture<WriteResult> write = bulkWriter.create(document, queued.eventData());
+            ApiFutures.addCallback(write, new ApiFutureCallback<WriteResult>() {
+                @Override
+                public void onSuccess(WriteResult writeResult) {
+                    callMetrics.record(CallMetrics.FIRESTORE_CALLS, "bulkWrite", System.nanoTime() - queuedAt, null);
+                    callMetrics.countWrites("bulkWrite", 1);
+                    result.succeeded(title);
+                }
+
+                @Override
+                public void onFailure(Throwable t) {
+                    // An existing document is recorded as a failure with status ALREADY_EXISTS
+                    callMetrics.record(CallMetrics.FIRESTORE_CALLS, "bulkWrite", System.nanoTime() - queuedAt, t);
+                    if (!Firestore.isAlreadyExists(t)) {
+                        result.failed(title, t);
+                        return;
+                    }
+                    applyEdit(document, queued.eventData()).whenComplete((updated, error) -> {
+                        if (error != null) {
+                            result.failed(title, error);
+                        } else if (updated) {
+                            result.updated(title);
+                        } else {
+                            result.unchanged();
+                        }
+                    });
+                }
+            }, MoreExecutors.directExecutor());
+        }
+        // Send the batch now instead of waiting for the BulkWriter's own buffer to fill
+        bulkWriter.flush();
+    }
+
+    /**
+     * Applies an edited form response to the event already stored under its responseId.
+     * Reads the event and, if the response was submitted after the stored lastSubmittedTime, replaces the
+     * form fields; the update only succeeds if the event has not changed since it was read.
+     *
+     * @param document  the existing event document
+     * @param eventData the document fields built from the response
+     * @return future completing with true if the event was updated, false if the stored version is as new
+     */
+    private CompletableFuture<Boolean> applyEdit(DocumentReference document, Map<String, Object> eventData) {
+        return callMetrics.timeAsync(CallMetrics.FIRESTORE_CALLS, "applyEdit", () -> Firestore.toCompletable(document.get())
+                .thenCompose(snapshot -> {
+                    callMetrics.countReads("applyEdit", 1);
+                    // A document deleted since the create failed stays deleted
+                    if (!snapshot.exists() || !isNewer((String) eventData.get("lastSubmittedTime"), snapshot.getString("lastSubmittedTime"))) {
+                        return CompletableFuture.completedFuture(false);
+                    }
+                    Map<String, Object> fields = new HashMap<>(eventData);
+                    KEPT_ON_EDIT.forEach(fields::remove);
+                    // Fails with FAILED_PRECONDITION if the event was approved or edited after the read
+                    return Firestore.toCompletable(document.update(fields, Precondition.updatedAt(snapshot.getUpdateTime())))
+                            .thenApply(writeResult -> {
+                                callMetrics.countWrites("applyEdit", 1);
+                                return true;
+                            });
+                }));
+    }
+
+    /**
+     * Decides whether a form response is a later edit than the version already stored.
+     *
+     * @param incoming the response's lastSubmittedTime (RFC3339), or null if unknown
+     * @param stored   the stored event's lastSubmittedTime, or null for an event that never recorded one
+     * @return true if the response should replace the stored fields
+     */
+    static boolean isNewer(String incoming, String stored) {
+        if (incoming == null) {
+            return false;
+        }
+        if (stored == null) {
+            return true;
+        }
+        return Instant.parse(incoming).isAfter(Instant.parse(stored));
+    }
+
+    /**
+     * Commits the last partial batch and waits for every batch to finish.
+     *
+     * @post every queued event has either been written or reported as failed
+     *
+     * @throws InterruptedException if interrupted while waiting for the batches
+     */
+    @Override
+    public void close() throws InterruptedException {
+        lock.lockInterruptibly();
+        try {
+            if (closed) {
+                return;
+            }
+            try {
+                commitPending();
+                // Every permit being free again means no batch is still in flight
+                inFlight.acquire(maxInFlightBatches);
+                inFlight.release(maxInFlightBatches);
+            } finally {
+                closed = true;
+                bulkWriter.close();
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Returns one report per committed batch, in the order the batches finished.
+     *
+     * @return list of maps with batch, size, succeeded, updated, unchanged, failed, added, updatedTitles,
+     *         errors and failedTitles keys; succeeded counts newly created events
+     */
+    public List<Map<String, Object>> getBatchReports() {
+        synchronized (batchReports) {
+            return new ArrayList<>(batchReports);
+        }
+    }
+
+    /**
+     * Returns the total number of events created across all batches, not counting edits applied in place.
+     *
+     * @return number of events added
+     */
+    public int getTotalSucceeded() {
+        int total = 0;
+        for (Map<String, Object> report : getBatchReports()) {
+            total += (Integer) report.get("succeeded");
+        }
+        return total;
+    }
+
+    // Collects the per-write outcomes of one batch and reports it once every write has finished
+    private class BatchResult {
+        private final int number;
+        private final int size;
+        private final AtomicInteger remaining;
+        private final List<String> added = Collections.synchronizedList(new ArrayList<>());
+        private final List<String> updated = Collections.synchronizedList(new ArrayList<>());
+        private final AtomicInteger unchanged = new AtomicInteger();
+        private final List<String> errors = Collections.synchronizedList(new ArrayList<>());
+        private final List<String> failedTitles = Collections.synchronizedList(new ArrayList<>());
+
+        BatchResult(int number, int size) {
+            this.number = number;
+            this.size = size;
+            this.remaining = new AtomicInteger(size);
+        }
+
+        void succeeded(String title) {
+            added.add(title);
+            finishOne();
+        }
+
+        void updated(String title) {
+            updated.add(title);
+            finishOne();
+        }
+
+        void unchanged() {
+            unchanged.incrementAndGet();
+            finishOne();
+        }
+
+        void failed(String title, Throwable t) {
+            // Both lists are updated together so failedTitles.get(i) belongs to errors.get(i)
+            synchronized (this) {
+                errors.add(title + ": " + t.getMessage());
+                failedTitles.add(title);
+            }
+            finishOne();
+        }
+
+        private void finishOne() {
+            if (remaining.decrementAndGet() == 0) {
+                Map<String, Object> report = new HashMap<>();
+                report.put("batch", number);
+                report.put("size", size);
+                report.put("succeeded", added.size());
+                report.put("updated", updated.size());
+                report.put("unchanged", unchanged.get());
+                report.put("failed", errors.size());
+                report.put("added", new ArrayList<>(added));
+                report.put("updatedTitles", new ArrayList<>(updated));
+                report.put("errors", new ArrayList<>(errors));
+                report.put("failedTitles", new ArrayList<>(failedTitles));
+                batchReports.add(report);
+                inFlight.release();
+            }
+        }
+    }
+}
@@ -0,0 +1,239 @@
+/**
+ * EventCache.java
+ *
+ * Status-partitioned in-memory copy of the "events" collection.
+ * Kept current by the same snapshot listener as the title index, so status
+ * listings can be served without a Firestore query.
+ *
+ * Sources:
+ * - Firestore realtime updates: https://firebase.google.com/docs/firestore/query-data/listen
+ *
+ * @author Artin Mehri
+ * @version 1.0
+ */
+package com.tsscalendar.TSS.Calendar.service;
+import com.google.cloud.Timestamp;
+import com.google.cloud.firestore.DocumentChange;
+import com.google.cloud.firestore.QueryDocumentSnapshot;
+import com.tsscalendar.TSS.Calendar.model.Event;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Caches event documents grouped by status, holding at most maxSize documents.
+ * When the cache is full, the status partition that was read least recently is evicted as a whole;
+ * reads for an evicted status go to Firestore and re-admit the partition (read-through).
+ * A query result is only admitted if it matches what the listener has seen of that status, so a
+ * listener change that arrived while the status was not cached is never overwritten by an older read.
+ */
+public class EventCache {
+
+    /**
+     * The statuses an event can have; only these are admitted on a read-through.
+     */
+    public static final Set<String> STATUSES = Set.of("pending", "approved", "declined");
+
+    // What the listener last saw of a document: its status and the update time of that version
+    private record Version(String status, Timestamp updateTime) {
+    }
+
+    private final int maxSize;
+    // status -> (document ID -> document); only statuses currently admitted to the cache
+    private final Map<String, Map<String, Event>> partitions = new HashMap<>();
+    // status -> logical time the partition was last read, used to pick eviction victims
+    private final Map<String, Long> lastReadAt = new HashMap<>();
+    // document ID -> latest listener version of every known document, so status changes can leave their old partition
+    // and read-through results can be checked against the listener
+    private final Map<String, Version> versionById = new HashMap<>();
+    // status -> number of known documents with that status
+    private final Map<String, Integer> countByStatus = new HashMap<>();
+
+    private boolean loaded = false;
+    private long readClock = 0;
+    private long size = 0;
+    private long hits = 0;
+    private long misses = 0;
+    private long evictions = 0;
+    private Instant lastSnapshotAt;
+
+    /**
+     * Creates an empty cache.
+     *
+     * @pre maxSize is greater than 0
+     *
+     * @param maxSize maximum number of event documents held across all partitions
+     */
+    public EventCache(int maxSize) {
+        this.maxSize = maxSize;
+    }
+
+    /**
+     * Applies the document changes from one snapshot of the "events" collection.
+     * On the first snapshot every status is admitted, then partitions are evicted until the cache fits.
+     *
+     * @param changes the changes delivered by the snapshot listener
+     */
+    public synchronized void apply(List<DocumentChange> changes) {
+        boolean firstSnapshot = !loaded;
+        for (DocumentChange change : changes) {
+            QueryDocumentSnapshot document = change.getDocument();
+            String id = document.getId();
+            removeFromPartition(id);
+            Version previous = versionById.remove(id);
+            if (previous != null && previous.status() != null) {
+                countByStatus.merge(previous.status(), -1, Integer::sum);
+            }
+
+            if (change.getType() == DocumentChange.Type.REMOVED) {
+                continue;
+            }
+            String status = document.getString("status");
+            versionById.put(id, new Version(status, document.getUpdateTime()));
+            if (status != null) {
+                countByStatus.merge(status, 1, Integer::sum);
+            }
+            Map<String, Event> partition = partitions.get(status);
+            if (partition == null && firstSnapshot && status != null) {
+                partition = new LinkedHashMap<>();
+                partitions.put(status, partition);
+                lastReadAt.put(status, 0L);
+            }
+            if (partition != null) {
+                partition.put(id, Event.fromSnapshot(document));
+                size++;
+            }
+        }
+        loaded = true;
+        lastSnapshotAt = Instant.now();
+        evictUntilFits(null);
+    }
+
+    /**
+     * Returns the cached events with a status, or null if that status is not cached.
+     *
+     * @param status the event status
+     * @return copy of the cached events, or null on a miss
+     */
+    public synchronized List<Event> get(String status) {
+        Map<String, Event> partition = loaded ? partitions.get(status) : null;
+        if (partition == null) {
+            misses++;
+            return null;
+        }
+        hits++;
+        lastReadAt.put(status, ++readClock);
+        return new ArrayList<>(partition.values());
+    }
+
+    /**
+     * Admits a status partition read directly from Firestore, evicting other partitions if needed.
+     * Later listener changes keep the admitted partition current. The result is not admitted if the
+     * status is unknown or the listener has seen a newer state of the status than the query returned.
+     *
+     * @param status    the event status that was read
+     * @param documents every document with that status
+     */
+    public synchronized void admit(String status, List<QueryDocumentSnapshot> documents) {
+        if (!loaded || !STATUSES.contains(status) || documents.size() > maxSize) {
+            return;
+        }
+        Map<String, Event> partition = new LinkedHashMap<>();
+        for (QueryDocumentSnapshot document : documents) {
+            Version seen = versionById.get(document.getId());
+            // Skip documents the listener has not seen yet (it adds them once the partition exists)
+            // or has already seen move to another status since the query ran
+            if (seen == null || !status.equals(seen.status())) {
+                continue;
+            }
+            // The listener changed this document after the query read it, while the status was not cached
+            if (isOlder(document.getUpdateTime(), seen.updateTime())) {
+                return;
+            }
+            partition.put(document.getId(), Event.fromSnapshot(document));
+        }
+        // Documents that moved into this status after the query ran are missing from the result
+        if (partition.size() != countByStatus.getOrDefault(status, 0)) {
+            return;
+        }
+        Map<String, Event> previous = partitions.put(status, partition);
+        if (previous != null) {
+            size -= previous.size();
+        }
+        size += partition.size();
+        lastReadAt.put(status, ++readClock);
+        evictUntilFits(status);
+    }
+
+    /**
+     * Empties the cache, e.g. when the snapshot listener fails.
+     *
+     * @post every read is a miss until the next snapshot is applied
+     */
+    public synchronized void clear() {
+        loaded = false;
+        partitions.clear();
+        lastReadAt.clear();
+        versionById.clear();
+        countByStatus.clear();
+        size = 0;
+    }
+
+    /**
+     * Reports hit, miss, eviction and staleness counters.
+     *
+     * @return map of metric names to values
+     */
+    public synchronized Map<String, Object> getMetrics() {
+        Map<String, Object> metrics = new HashMap<>();
+        metrics.put("loaded", loaded);
+        metrics.put("size", size);
+        metrics.put("maxSize", maxSize);
+        metrics.put("cachedStatuses", new ArrayList<>(partitions.keySet()));
+        metrics.put("hits", hits);
+        metrics.put("misses", misses);
+        metrics.put("evictions", evictions);
+        metrics.put("lastSnapshotAt", lastSnapshotAt != null ? lastSnapshotAt.toString() : null);
+        metrics.put("secondsSinceLastSnapshot", lastSnapshotAt != null ? Duration.between(lastSnapshotAt, Instant.now()).getSeconds() : null);
+        return metrics;
+    }
+
+    private void removeFromPartition(String id) {
+        Version old = versionById.get(id);
+        Map<String, Event> partition = old != null && old.status() != null ? partitions.get(old.status()) : null;
+        if (partition != null && partition.remove(id) != null) {
+            size--;
+        }
+    }
+
+    private static boolean isOlder(Timestamp read, Timestamp seen) {
+        return read != null && seen != null && read.compareTo(seen) < 0;
+    }
+
+    // Evicts least recently read partitions (never the one just admitted) until size is within maxSize
+    private void evictUntilFits(String keep) {
+        while (size > maxSize) {
+            String victim = null;
+            for (String status : partitions.keySet()) {
+                if (status.equals(keep)) {
+                    continue;
+                }
+                if (victim == null || lastReadAt.get(status) < lastReadAt.get(victim)
+                        || (lastReadAt.get(status).equals(lastReadAt.get(victim)) && partitions.get(status).size() > partitions.get(victim).size())) {
+                    victim = status;
+                }
+            }
+            if (victim == null) {
+                victim = keep;
+            }
+            size -= partitions.remove(victim).size();
+            lastReadAt.remove(victim);
+            evictions++;
+        }
+    }
+}
@@ -0,0 +1,215 @@
+/**
+ * EventCalendar.java
+ *
+ * Month and date-range queries over approved events.
+ * Range filters are pushed down to Firestore using the composite indexes
+ * defined in firestore.indexes.json, and month results are cached until
+ * the snapshot listener reports a change in that month.
+ *
+ * Sources:
+ * - Firestore index types: https://firebase.google.com/docs/firestore/query-data/index-overview
+ *
+ * @author Artin Mehri
+ * @version 1.0
+ */
+package com.tsscalendar.TSS.Calendar.service;
+import com.google.cloud.firestore.DocumentChange;
+import com.google.cloud.firestore.QueryDocumentSnapshot;
+import com.google.cloud.firestore.QuerySnapshot;
+import com.google.firebase.cloud.FirestoreClient;
+import com.tsscalendar.TSS.Calendar.model.Event;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Serves approved events for a calendar month or an arbitrary date range.
+ */
+@Service
+public class EventCalendar {
+
+    // Number of months kept in the result cache
+    private static final int MAX_CACHED_MONTHS = 24;
+    // Ranges touching at most this many months are answered from month results instead of a range query
+    private static final int MAX_MONTHS_FROM_CACHE = 3;
+    // Longest date range a single request may ask for
+    private static final int MAX_RANGE_DAYS = 366;
+
+    @Autowired
+    private Firestore firestoreService;
+
+    // Access-ordered so the least recently used month is dropped first
+    private final Map<YearMonth, List<Event>> monthCache = Collections.synchronizedMap(
+            new LinkedHashMap<>(16, 0.75f, true) {
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<YearMonth, List<Event>> eldest) {
+                    return size() > MAX_CACHED_MONTHS;
+                }
+            });
+    // document ID -> month of its date, so a moved event also invalidates the month it left
+    private final Map<String, YearMonth> monthById = new ConcurrentHashMap<>();
+    // Incremented on every invalidation; a query only caches its result if nothing changed while it ran
+    private final AtomicLong generation = new AtomicLong();
+
+    /**
+     * Subscribes to event changes so cached months are dropped when their events change.
+     */
+    @PostConstruct
+    public void registerInvalidation() {
+        firestoreService.addEventChangeListener(new EventChangeListener() {
+            @Override
+            public void onEventChanges(List<DocumentChange> changes) {
+                invalidate(changes);
+            }
+
+            @Override
+            public void onListenerReset() {
+                generation.incrementAndGet();
+                monthCache.clear();
+                monthById.clear();
+            }
+        });
+    }
+
+    /**
+     * Returns the approved events dated in one month, sorted by date.
+     * Uses the (status, year, month, date) composite index.
+     *
+     * @pre month is between 1 and 12
+     * @param year  the calendar year
+     * @param month the month (1-12)
+     * @return future completing with the month's events
+     */
+    public CompletableFuture<List<Event>> getMonth(int year, int month) {
+        YearMonth key = YearMonth.of(year, month);
+        List<Event> cached = monthCache.get(key);
+        if (cached != null) {
+            return CompletableFuture.completedFuture(cached);
+        }
+
+        long startGeneration = generation.get();
+        com.google.cloud.firestore.Firestore db = FirestoreClient.getFirestore();
+        var query = db.collection("events")
+                .whereEqualTo("status", "approved")
+                .whereEqualTo("year", year)
+                .whereEqualTo("month", month)
+                .orderBy("date")
+                .select(Event.LISTING_FIELDS);
+
+        return firestoreService.query("getMonth", query::get).thenApply(snapshot -> {
+            List<Event> events = Collections.unmodifiableList(toEvents(snapshot));
+            if (generation.get() == startGeneration) {
+                monthCache.put(key, events);
+            }
+            return events;
+        });
+    }
+
+    /**
+     * Returns the approved events dated between two days, inclusive, sorted by date.
+     * Short ranges are assembled from (cached) month results; longer ones run a single
+     * range query on the (status, date) composite index.
+     *
+     * @pre from is not after to, and the range is at most MAX_RANGE_DAYS long
+     * @param from the first day of the range
+     * @param to   the last day of the range
+     * @return future completing with the events in the range
+     */
+    public CompletableFuture<List<Event>> getRange(LocalDate from, LocalDate to) {
+        if (from.isAfter(to)) {
+            return CompletableFuture.failedFuture(new IllegalArgumentException("from must not be after to"));
+        }
+        if (ChronoUnit.DAYS.between(from, to) >= MAX_RANGE_DAYS) {
+            return CompletableFuture.failedFuture(new IllegalArgumentException("Date range must be at most " + MAX_RANGE_DAYS + " days"));
+        }
+
+        YearMonth first = YearMonth.from(from);
+        YearMonth last = YearMonth.from(to);
+        if (ChronoUnit.MONTHS.between(first, last) < MAX_MONTHS_FROM_CACHE) {
+            return getRangeFromMonths(from, to, first, last);
+        }
+
+        com.google.cloud.firestore.Firestore db = FirestoreClient.getFirestore();
+        var query = db.collection("events")
+                .whereEqualTo("status", "approved")
+                .whereGreaterThanOrEqualTo("date", from.toString())
+                .whereLessThanOrEqualTo("date", to.toString())
+                .orderBy("date")
+                .select(Event.LISTING_FIELDS);
+        return firestoreService.query("getRange", query::get).thenApply(this::toEvents);
+    }
+
+    // Combines the month results that cover the range and keeps the days inside it
+    private CompletableFuture<List<Event>> getRangeFromMonths(LocalDate from, LocalDate to, YearMonth first, YearMonth last) {
+        List<CompletableFuture<List<Event>>> months = new ArrayList<>();
+        for (YearMonth month = first; !month.isAfter(last); month = month.plusMonths(1)) {
+            months.add(getMonth(month.getYear(), month.getMonthValue()));
+        }
+        String fromText = from.toString();
+        String toText = to.toString();
+
+        return CompletableFuture.allOf(months.toArray(new CompletableFuture<?>[0])).thenApply(done -> {
+            List<Event> events = new ArrayList<>();
+            for (CompletableFuture<List<Event>> month : months) {
+                for (Event event : month.join()) {
+                    // yyyy-MM-dd strings compare in date order
+                    if (event.date() != null && event.date().compareTo(fromText) >= 0 && event.date().compareTo(toText) <= 0) {
+                        events.add(event);
+                    }
+                }
+            }
+            return events;
+        });
+    }
+
+    // Drops the cached months of every changed event, both the month it is in now and the one it was in before
+    private void invalidate(List<DocumentChange> changes) {
+        for (DocumentChange change : changes) {
+            QueryDocumentSnapshot document = change.getDocument();
+            YearMonth before = monthById.remove(document.getId());
+            YearMonth after = null;
+            if (change.getType() != DocumentChange.Type.REMOVED) {
+                after = monthOf(document);
+                if (after != null) {
+                    monthById.put(document.getId(), after);
+                }
+            }
+
+            generation.incrementAndGet();
+            if (before != null) {
+                monthCache.remove(before);
+            }
+            if (after != null) {
+                monthCache.remove(after);
+            }
+        }
+    }
+
+    private YearMonth monthOf(QueryDocumentSnapshot document) {
+        Long year = document.getLong("year");
+        Long month = document.getLong("month");
+        if (year == null || month == null || month < 1 || month > 12) {
+            return null;
+        }
+        return YearMonth.of(year.intValue(), month.intValue());
+    }
+
+    private List<Event> toEvents(QuerySnapshot snapshot) {
+        List<Event> events = new ArrayList<>(snapshot.size());
+        for (QueryDocumentSnapshot document : snapshot.getDocuments()) {
+            events.add(Event.fromSnapshot(document));
+        }
+        return events;
+    }
+}
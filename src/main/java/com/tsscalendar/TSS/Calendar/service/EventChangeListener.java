@@ -0,0 +1,34 @@
+/**
+ * EventChangeListener.java
+ *
+ * Callback for components that keep derived data in sync with the
+ * Firestore "events" collection.
+ *
+ * @author Artin Mehri
+ * @version 1.0
+ */
+package com.tsscalendar.TSS.Calendar.service;
+import com.google.cloud.firestore.DocumentChange;
+import java.util.List;
+
+/**
+ * Receives the document changes seen by the events snapshot listener.
+ * Register with {@link Firestore#addEventChangeListener(EventChangeListener)}.
+ */
+public interface EventChangeListener {
+
+    /**
+     * Called with the changes of each snapshot, in order, on the listener thread.
+     * Implementations must return quickly and must not block on Firestore.
+     *
+     * @param changes the added, modified and removed event documents
+     */
+    void onEventChanges(List<DocumentChange> changes);
+
+    /**
+     * Called when the snapshot listener failed and will be registered again.
+     * The next call to onEventChanges replays every document as ADDED.
+     */
+    default void onListenerReset() {
+    }
+}
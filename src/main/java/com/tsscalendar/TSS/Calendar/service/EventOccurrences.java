@@ -0,0 +1,146 @@
+/**
+ * EventOccurrences.java
+ *
+ * Lists the dated occurrences of approved events in a window, with weekly
+ * events expanded by the RecurrenceExpander. PA days, holidays and similar
+ * days off are read from the approved events themselves: any one-off event
+ * whose title or category contains a skip keyword marks its date as a skip date.
+ *
+ * @author Artin Mehri
+ * @version 1.0
+ */
+package com.tsscalendar.TSS.Calendar.service;
+import com.google.cloud.firestore.DocumentChange;
+import com.tsscalendar.TSS.Calendar.model.Event;
+import com.tsscalendar.TSS.Calendar.model.Occurrence;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import java.time.LocalDate;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Serves approved event occurrences for a date window.
+ */
+@Service
+public class EventOccurrences {
+
+    // Longest window a single request may ask for
+    private static final int MAX_RANGE_DAYS = 366;
+    // Number of (event, window) expansions kept by the expander
+    private static final int MAX_CACHED_EXPANSIONS = 2000;
+
+    @Autowired
+    private Firestore firestoreService;
+
+    @Value("${tss.recurrence.skip-keywords:PA Day,Holiday,No School}")
+    private String[] skipKeywords;
+
+    private final RecurrenceExpander expander = new RecurrenceExpander(MAX_CACHED_EXPANSIONS);
+    // Skip dates of the last request, for metrics; cached expansions are keyed on their own skip dates
+    private volatile Set<LocalDate> lastSkipDates = Set.of();
+
+    /**
+     * Subscribes to event changes so cached expansions of edited events are dropped.
+     */
+    @PostConstruct
+    public void registerInvalidation() {
+        firestoreService.addEventChangeListener(new EventChangeListener() {
+            @Override
+            public void onEventChanges(List<DocumentChange> changes) {
+                for (DocumentChange change : changes) {
+                    expander.invalidate(change.getDocument().getId());
+                }
+            }
+
+            @Override
+            public void onListenerReset() {
+                expander.clear();
+            }
+        });
+    }
+
+    /**
+     * Returns the occurrences of approved events between two days, inclusive, in chronological order.
+     * Weekly events are expanded over the window and leave out skip dates.
+     *
+     * @pre from is not after to, and the window is at most MAX_RANGE_DAYS long
+     * @param from     the first day of the window
+     * @param to       the last day of the window
+     * @param category category to include (case-insensitive), or null for every category
+     * @return future completing with the occurrences
+     */
+    public CompletableFuture<List<Occurrence>> getOccurrences(LocalDate from, LocalDate to, String category) {
+        if (from.isAfter(to)) {
+            return CompletableFuture.failedFuture(new IllegalArgumentException("from must not be after to"));
+        }
+        if (ChronoUnit.DAYS.between(from, to) >= MAX_RANGE_DAYS) {
+            return CompletableFuture.failedFuture(new IllegalArgumentException("Date range must be at most " + MAX_RANGE_DAYS + " days"));
+        }
+
+        return firestoreService.getEventsByStatusAsync("approved", false).thenApply(events -> {
+            Set<LocalDate> skipDates = findSkipDates(events);
+            lastSkipDates = skipDates;
+            List<Event> selected = new ArrayList<>();
+            for (Event event : events) {
+                if (category == null || category.equalsIgnoreCase(event.category())) {
+                    selected.add(event);
+                }
+            }
+
+            List<Occurrence> occurrences = new ArrayList<>();
+            Iterator<Occurrence> iterator = expander.occurrences(selected, from, to, skipDates);
+            iterator.forEachRemaining(occurrences::add);
+            return occurrences;
+        });
+    }
+
+    /**
+     * Finds the skip dates among any list of events, e.g. all approved events or the events of one date window.
+     *
+     * @param events the events to look at
+     * @return dates of one-off events whose title or category contains a skip keyword
+     */
+    public Set<LocalDate> findSkipDates(List<Event> events) {
+        Set<LocalDate> skipDates = new HashSet<>();
+        for (Event event : events) {
+            LocalDate date = event.localDate();
+            if (date != null && !Boolean.TRUE.equals(event.weekly()) && isSkipEvent(event)) {
+                skipDates.add(date);
+            }
+        }
+        return skipDates;
+    }
+
+    /**
+     * Reports expansion cache metrics.
+     *
+     * @return map of metric names to values
+     */
+    public Map<String, Object> getMetrics() {
+        Map<String, Object> metrics = expander.getMetrics();
+        metrics.put("skipDates", lastSkipDates.size());
+        return metrics;
+    }
+
+    private boolean isSkipEvent(Event event) {
+        String title = event.title() != null ? event.title().toLowerCase(Locale.ROOT) : "";
+        String category = event.category() != null ? event.category().toLowerCase(Locale.ROOT) : "";
+        for (String keyword : skipKeywords) {
+            String key = keyword.trim().toLowerCase(Locale.ROOT);
+            if (!key.isEmpty() && (title.contains(key) || category.contains(key))) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
@@ -0,0 +1,189 @@
+/**
+ * EventTitleIndex.java
+ *
+ * In-memory index from normalized event title to document ID and status.
+ * Filled from the first snapshot of the "events" collection and kept current
+ * by the changes delivered to the collection's snapshot listener.
+ * Also keeps the title and submission time of legacy events, the ones stored
+ * under random document IDs before events were keyed on the form responseId,
+ * so a full resync does not add them a second time.
+ *
+ * Sources:
+ * - Firestore realtime updates: https://firebase.google.com/docs/firestore/query-data/listen
+ *
+ * @author Artin Mehri
+ * @version 1.0
+ */
+package com.tsscalendar.TSS.Calendar.service;
+import com.google.cloud.firestore.DocumentChange;
+import com.google.cloud.firestore.QueryDocumentSnapshot;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Resolves event titles to document IDs with local O(1) lookups.
+ * Titles are compared after trimming, collapsing whitespace and lower-casing.
+ */
+public class EventTitleIndex {
+
+    /**
+     * A single event matched by title.
+     *
+     * @param eventId the Firestore document ID
+     * @param status  the event's current status
+     */
+    public record Match(String eventId, String status) {
+    }
+
+    // normalized title -> (document ID -> status)
+    private final Map<String, Map<String, String>> eventsByTitle = new ConcurrentHashMap<>();
+    // document ID -> normalized title, so renamed or removed documents can be unlinked
+    private final Map<String, String> titleById = new ConcurrentHashMap<>();
+    // document ID -> legacy key, for documents without a responseId field
+    private final Map<String, String> legacyKeyById = new ConcurrentHashMap<>();
+    private volatile boolean loaded = false;
+
+    /**
+     * Normalizes a title the same way the index does, for callers that keep their own title sets.
+     *
+     * @param title the raw title
+     * @return trimmed, whitespace-collapsed, lower-case title, or null if title is null
+     */
+    public static String normalize(String title) {
+        if (title == null) {
+            return null;
+        }
+        return title.trim().replaceAll("\\s+", " ").toLowerCase(Locale.ROOT);
+    }
+
+    /**
+     * Builds the key a legacy event is recognized by: its normalized title and the time its response was created.
+     *
+     * @param title      the raw title
+     * @param submitTime the response's createTime, stored as the event's submitTime
+     * @return the key, or null if title is null
+     */
+    public static String legacyKey(String title, String submitTime) {
+        String key = normalize(title);
+        return key != null ? key + "\n" + submitTime : null;
+    }
+
+    /**
+     * Applies the document changes from one snapshot of the "events" collection.
+     *
+     * @post the index reflects every change and is marked as loaded
+     *
+     * @param changes the changes delivered by the snapshot listener
+     */
+    public void apply(List<DocumentChange> changes) {
+        for (DocumentChange change : changes) {
+            QueryDocumentSnapshot document = change.getDocument();
+            unlink(document.getId());
+            if (change.getType() != DocumentChange.Type.REMOVED) {
+                link(document.getId(), document.getString("title"), document.getString("status"));
+                if (document.getString("responseId") == null) {
+                    String key = legacyKey(document.getString("title"), document.getString("submitTime"));
+                    if (key != null) {
+                        legacyKeyById.put(document.getId(), key);
+                    }
+                }
+            }
+        }
+        loaded = true;
+    }
+
+    /**
+     * Empties the index, e.g. before the snapshot listener is registered again.
+     *
+     * @post isLoaded() returns false until the next snapshot is applied
+     */
+    public void clear() {
+        loaded = false;
+        eventsByTitle.clear();
+        titleById.clear();
+        legacyKeyById.clear();
+    }
+
+    /**
+     * Returns whether the index has received at least one snapshot and can answer lookups.
+     *
+     * @return true if lookups reflect the collection
+     */
+    public boolean isLoaded() {
+        return loaded;
+    }
+
+    /**
+     * Checks whether any event has the given title.
+     *
+     * @param title the raw title
+     * @return true if at least one event matches after normalization
+     */
+    public boolean contains(String title) {
+        Map<String, String> matches = eventsByTitle.get(normalize(title));
+        return matches != null && !matches.isEmpty();
+    }
+
+    /**
+     * Resolves a title to exactly one event.
+     *
+     * @param title the raw title
+     * @return the single matching event
+     * @throws IllegalArgumentException if no event has the title
+     * @throws IllegalStateException if more than one event has the title
+     */
+    public Match resolve(String title) {
+        Map<String, String> matches = eventsByTitle.get(normalize(title));
+        if (matches == null || matches.isEmpty()) {
+            throw new IllegalArgumentException("No event found with title: " + title);
+        }
+        if (matches.size() > 1) {
+            throw new IllegalStateException("Ambiguous title '" + title + "' matches " + matches.size() + " events: " + matches.keySet());
+        }
+        Map.Entry<String, String> match = matches.entrySet().iterator().next();
+        return new Match(match.getKey(), match.getValue());
+    }
+
+    /**
+     * Returns the {@link #legacyKey} of every event stored without a responseId.
+     *
+     * @return copy of the legacy keys
+     */
+    public Set<String> legacyKeys() {
+        return new HashSet<>(legacyKeyById.values());
+    }
+
+    /**
+     * Returns the number of events in the index.
+     *
+     * @return number of indexed documents
+     */
+    public int size() {
+        return titleById.size();
+    }
+
+    private void link(String eventId, String title, String status) {
+        String key = normalize(title);
+        if (key == null) {
+            return;
+        }
+        titleById.put(eventId, key);
+        eventsByTitle.computeIfAbsent(key, k -> new ConcurrentHashMap<>()).put(eventId, status != null ? status : "");
+    }
+
+    private void unlink(String eventId) {
+        legacyKeyById.remove(eventId);
+        String key = titleById.remove(eventId);
+        if (key == null) {
+            return;
+        }
+        eventsByTitle.computeIfPresent(key, (k, matches) -> {
+            matches.remove(eventId);
+            return matches.isEmpty() ? null : matches;
+        });
+    }
+}
@@ -1,34 +1,84 @@
 package com.tsscalendar.TSS.Calendar.service;
+import com.google.auth.oauth2.AccessToken;
 import com.google.auth.oauth2.GoogleCredentials;
 import java.io.FileInputStream;
 import com.google.api.core.ApiFuture;
+import com.google.api.core.ApiFutureCallback;
+import com.google.api.core.ApiFutures;
+import com.google.api.gax.rpc.ApiException;
+import com.google.api.gax.rpc.StatusCode;
+import com.google.cloud.Timestamp;
 import com.google.cloud.firestore.*;
 import com.google.firebase.FirebaseApp;
 import com.google.firebase.FirebaseOptions;
 import com.google.firebase.cloud.FirestoreClient;
+import com.google.common.util.concurrent.MoreExecutors;
+import com.tsscalendar.TSS.Calendar.model.Event;
+import com.tsscalendar.TSS.Calendar.model.EventPage;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 import java.io.IOException;
+import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CopyOnWriteArrayList;
 import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
 
 @Service
 public class Firestore {
     private FirebaseOptions options;
     private boolean initialized = false;
     private static final String CREDENTIALS_FILE = "src/main/resources/firebase-credential.json";
+    private static final String PROJECT_ID = "tss-calendar-a03ad";
+    // Events grouped into one reported write batch during a sync
+    private static final int WRITE_BATCH_SIZE = 100;
+    // Batches allowed to be committing at once before the sync loop waits
+    private static final int MAX_IN_FLIGHT_BATCHES = 4;
+    // Delay before re-registering the events listener after it fails
+    private static final long LISTENER_RETRY_SECONDS = 30;
 
-    public Firestore() throws IOException {
+    private final EventTitleIndex titleIndex = new EventTitleIndex();
+    private final EventCache eventCache;
+    private final CallMetrics callMetrics;
+    private final ScheduledExecutorService listenerRetry = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "events-listener-retry");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private final List<EventChangeListener> changeListeners = new CopyOnWriteArrayList<>();
+    private ListenerRegistration eventsListener;
+
+    public Firestore(@Value("${tss.cache.events.max-size:5000}") int eventCacheMaxSize, CallMetrics callMetrics) throws IOException {
+        eventCache = new EventCache(eventCacheMaxSize);
+        this.callMetrics = callMetrics;
         // Check if Firebase is already initialized to avoid IllegalStateException
         if (FirebaseApp.getApps().isEmpty()) {
-            System.out.println("Initializing Firebase with credentials from: " + CREDENTIALS_FILE);
-            GoogleCredentials credential = GoogleCredentials.fromStream(new FileInputStream(CREDENTIALS_FILE));
-            
-            System.out.println("Using project ID: tss-calendar-a03ad");
+            GoogleCredentials credential;
+            String emulatorHost = System.getenv("FIRESTORE_EMULATOR_HOST");
+            if (emulatorHost != null && !emulatorHost.isBlank()) {
+                // The client sends every call to the emulator, which accepts any token
+                System.out.println("Using the Firestore emulator at " + emulatorHost);
+                credential = GoogleCredentials.create(new AccessToken("owner", null));
+            } else {
+                System.out.println("Initializing Firebase with credentials from: " + CREDENTIALS_FILE);
+                credential = GoogleCredentials.fromStream(new FileInputStream(CREDENTIALS_FILE));
+            }
+
+            System.out.println("Using project ID: " + PROJECT_ID);
             options = FirebaseOptions.builder()
                     .setCredentials(credential)
-                    .setProjectId("tss-calendar-a03ad")
+                    .setProjectId(PROJECT_ID)
                     .build();
             FirebaseApp.initializeApp(options);
             System.out.println("Firebase initialized successfully");
@@ -36,45 +86,234 @@ public class Firestore {
         initialized = true;
     }
 
+    /**
+     * Registers a snapshot listener on the "events" collection.
+     * The first snapshot loads every event into the title index and the event cache; later snapshots only carry changes.
+     *
+     * @pre Firebase must be initialized
+     * @post the title index and event cache are filled asynchronously and kept current until shutdown
+     */
+    @PostConstruct
+    public synchronized void startEventListener() {
+        com.google.cloud.firestore.Firestore db = FirestoreClient.getFirestore();
+        titleIndex.clear();
+        eventCache.clear();
+        eventsListener = db.collection("events").addSnapshotListener(this::onEventsChanged);
+    }
+
+    /**
+     * Registers a component to receive every change seen by the events snapshot listener.
+     * Listeners registered after startup only see changes from then on.
+     *
+     * @param listener the component to notify
+     */
+    public void addEventChangeListener(EventChangeListener listener) {
+        changeListeners.add(listener);
+    }
+
+    /**
+     * Removes the events listener when the application shuts down.
+     */
+    @PreDestroy
+    public synchronized void stopEventListener() {
+        listenerRetry.shutdownNow();
+        if (eventsListener != null) {
+            eventsListener.remove();
+            eventsListener = null;
+        }
+    }
+
+    // Applies each snapshot to the in-memory index; a failed listener falls back to queries and is restarted
+    private void onEventsChanged(QuerySnapshot snapshot, FirestoreException error) {
+        if (error != null) {
+            System.err.println("Events listener failed, falling back to queries: " + error.getMessage());
+            titleIndex.clear();
+            eventCache.clear();
+            for (EventChangeListener listener : changeListeners) {
+                listener.onListenerReset();
+            }
+            listenerRetry.schedule(this::startEventListener, LISTENER_RETRY_SECONDS, TimeUnit.SECONDS);
+            return;
+        }
+        if (snapshot != null) {
+            List<DocumentChange> changes = snapshot.getDocumentChanges();
+            // Each changed document delivered to the listener is billed as a read
+            callMetrics.countReads("eventsListener", changes.size());
+            titleIndex.apply(changes);
+            eventCache.apply(changes);
+            for (EventChangeListener listener : changeListeners) {
+                listener.onEventChanges(changes);
+            }
+        }
+    }
+
     public boolean checkDocumentExists(String eventTitle) throws ExecutionException, InterruptedException {
-            com.google.cloud.firestore.Firestore db = FirestoreClient.getFirestore();
-            // asynchronously retrieve multiple documents
-            ApiFuture<QuerySnapshot> future = db.collection("events").whereEqualTo("title", eventTitle).get();
             // future.get() blocks on response
-            List<QueryDocumentSnapshot> documents = future.get().getDocuments();
-            // return a boolean on whether the document exists or no
-            return !documents.isEmpty();
+            return checkDocumentExistsAsync(eventTitle).get();
     }
 
-    public String[] getAllEventsStatusBased(String status) throws ExecutionException, InterruptedException {
-        try {
-            System.out.println("Fetching events with status: " + status);
-            com.google.cloud.firestore.Firestore db = FirestoreClient.getFirestore();
-            ApiFuture<QuerySnapshot> future = db.collection("events").whereEqualTo("status", status).get();
-            // Returning all the documents with that status
-            List<QueryDocumentSnapshot> documents = future.get().getDocuments();
-            
-            System.out.println("Found " + documents.size() + " events with status: " + status);
+    /**
+     * Checks whether an event with the given title exists without blocking the caller.
+     *
+     * @param eventTitle the event title, matched as {@link EventTitleIndex#normalize} does
+     * @return future completing with true if at least one event has that title
+     */
+    public CompletableFuture<Boolean> checkDocumentExistsAsync(String eventTitle) {
+            // Answer from the in-memory index when the listener has loaded it
+            if (titleIndex.isLoaded()) {
+                return CompletableFuture.completedFuture(titleIndex.contains(eventTitle));
+            }
+            // Otherwise scan the titles, matching them the way the index does
+            return findByTitle("checkDocumentExists", eventTitle).thenApply(documents -> !documents.isEmpty());
+    }
 
-            // RUBRIC REQUIREMENT: Demonstrate Wealth of Knowledge using standard Arrays []
-            String[] formattedEvents = new String[documents.size()];
+    /**
+     * Returns the {@link EventTitleIndex#legacyKey} of every event stored before events were keyed on the form responseId.
+     * Served from the in-memory index when it is loaded; otherwise a single query reads only the fields the key needs,
+     * so a full resync can skip responses that already have a legacy event without one query per response.
+     *
+     * @return set of title and submission time keys of events that have no responseId field
+     * @throws ExecutionException if the query fails
+     * @throws InterruptedException if interrupted while waiting for the query
+     */
+    public Set<String> getLegacyEventKeys() throws ExecutionException, InterruptedException {
+        if (titleIndex.isLoaded()) {
+            return titleIndex.legacyKeys();
+        }
+        com.google.cloud.firestore.Firestore db = FirestoreClient.getFirestore();
+        List<QueryDocumentSnapshot> documents = query("getLegacyEventKeys",
+                () -> db.collection("events").select("title", "submitTime", "responseId").get())
+                .get().getDocuments();
 
-            for (int i = 0; i < documents.size(); i++) {
-                QueryDocumentSnapshot document = documents.get(i);
-                formattedEvents[i] = String.format(
-                        "Event ID: %s\nTitle: %s\nDescription: %s\nDate: %s\nTime: %s\nRespondent Email: %s\nCategory: %s\nSupervisor: %s\nIs It Weekly?:%s",
-                        document.getId(),
-                        document.getString("title"),
-                        document.getString("description"),
-                        document.getString("date"),
-                        document.getString("time"),
-                        document.getString("respondentEmail"),
-                        document.getString("category"),
-                        document.getString("supervisor"),
-                        document.getBoolean("weekly")
-                        );
-            }
-            return formattedEvents;
+        Set<String> keys = new HashSet<>();
+        for (QueryDocumentSnapshot document : documents) {
+            String key = EventTitleIndex.legacyKey(document.getString("title"), document.getString("submitTime"));
+            if (key != null && document.getString("responseId") == null) {
+                keys.add(key);
+            }
+        }
+        return keys;
+    }
+
+    /**
+     * Reads the sync watermark stored for a form.
+     *
+     * @param formId the Google Form the watermark belongs to
+     * @return the last processed submission time as an RFC3339 timestamp, or null if the form was never synced
+     * @throws ExecutionException if the read fails
+     * @throws InterruptedException if interrupted while waiting for the read
+     */
+    public String getSyncWatermark(String formId) throws ExecutionException, InterruptedException {
+        com.google.cloud.firestore.Firestore db = FirestoreClient.getFirestore();
+        DocumentSnapshot state = callMetrics.timeAsync(CallMetrics.FIRESTORE_CALLS, "getSyncWatermark",
+                () -> toCompletable(db.collection("syncState").document(formId).get())).get();
+        callMetrics.countReads("getSyncWatermark", 1);
+        return state.exists() ? state.getString("lastSubmittedTime") : null;
+    }
+
+    /**
+     * Stores the sync watermark for a form so the next sync only fetches newer responses.
+     *
+     * @param formId the Google Form the watermark belongs to
+     * @param lastSubmittedTime the newest submission time that was fully processed
+     * @throws ExecutionException if the write fails
+     * @throws InterruptedException if interrupted while waiting for the write
+     */
+    public void saveSyncWatermark(String formId, String lastSubmittedTime) throws ExecutionException, InterruptedException {
+        com.google.cloud.firestore.Firestore db = FirestoreClient.getFirestore();
+        write("saveSyncWatermark", () -> db.collection("syncState").document(formId).set(watermarkData(lastSubmittedTime), SetOptions.merge())).get();
+    }
+
+    /**
+     * Stores the sync watermark only if the given fencing token is still the lease's token.
+     * The lease is read in the same transaction, so a node whose lease has passed to another
+     * node cannot move the watermark after the new leader has.
+     *
+     * @param formId the Google Form the watermark belongs to
+     * @param lastSubmittedTime the newest submission time that was fully processed
+     * @param leaseId the lease document in the "leases" collection
+     * @param fencingToken the token of the lease the sync ran under
+     * @throws ExecutionException if the write fails, with an IllegalStateException cause if the token is stale
+     * @throws InterruptedException if interrupted while waiting for the write
+     */
+    public void saveSyncWatermark(String formId, String lastSubmittedTime, String leaseId, long fencingToken) throws ExecutionException, InterruptedException {
+        com.google.cloud.firestore.Firestore db = FirestoreClient.getFirestore();
+        DocumentReference leaseRef = db.collection("leases").document(leaseId);
+        DocumentReference stateRef = db.collection("syncState").document(formId);
+        callMetrics.timeAsync(CallMetrics.FIRESTORE_CALLS, "saveSyncWatermark", () -> toCompletable(db.runTransaction(transaction -> {
+            LeaderLease.Lease lease = toLease(transaction.get(leaseRef).get());
+            if (lease == null || lease.token() != fencingToken) {
+                throw new IllegalStateException("Fencing token " + fencingToken + " is stale; the lease is at "
+                        + (lease != null ? lease.token() + " held by " + lease.holder() : "none"));
+            }
+            transaction.set(stateRef, watermarkData(lastSubmittedTime), SetOptions.merge());
+            return null;
+        }))).get();
+        callMetrics.countReads("saveSyncWatermark", 1);
+        callMetrics.countWrites("saveSyncWatermark", 1);
+    }
+
+    private static Map<String, Object> watermarkData(String lastSubmittedTime) {
+        Map<String, Object> state = new HashMap<>();
+        state.put("lastSubmittedTime", lastSubmittedTime);
+        state.put("updatedAt", java.time.Instant.now().toString());
+        return state;
+    }
+
+    /**
+     * Takes, renews or reads a lease in one transaction.
+     * The lease is taken if it does not exist or has expired, and renewed if the node already holds it;
+     * the expiry is computed from this node's clock, so leases should be much longer than the clock skew between nodes.
+     *
+     * @param leaseId     the lease document in the "leases" collection
+     * @param nodeId      the node asking for the lease
+     * @param leaseMillis how long the lease lasts from now
+     * @return future completing with the lease after the transaction: held by this node, or by the node that still holds it
+     */
+    public CompletableFuture<LeaderLease.Lease> acquireLeaseAsync(String leaseId, String nodeId, long leaseMillis) {
+        com.google.cloud.firestore.Firestore db = FirestoreClient.getFirestore();
+        DocumentReference leaseRef = db.collection("leases").document(leaseId);
+        return callMetrics.timeAsync(CallMetrics.FIRESTORE_CALLS, "acquireLease", () -> toCompletable(db.runTransaction(transaction -> {
+            LeaderLease.Lease current = toLease(transaction.get(leaseRef).get());
+            LeaderLease.Lease next = LeaderLease.next(current, nodeId, System.currentTimeMillis(), leaseMillis);
+            if (next == null) {
+                return current;
+            }
+            Map<String, Object> data = new HashMap<>();
+            data.put("holder", next.holder());
+            data.put("token", next.token());
+            data.put("expiresAt", Timestamp.ofTimeMicroseconds(TimeUnit.MILLISECONDS.toMicros(next.expiresAtMillis())));
+            transaction.set(leaseRef, data);
+            return next;
+        })));
+    }
+
+    private static LeaderLease.Lease toLease(DocumentSnapshot document) {
+        if (!document.exists()) {
+            return null;
+        }
+        Long token = document.getLong("token");
+        Timestamp expiresAt = document.getTimestamp("expiresAt");
+        return new LeaderLease.Lease(document.getString("holder"), token != null ? token : 0,
+                expiresAt != null ? expiresAt.toDate().getTime() : 0);
+    }
+
+    public String[] getAllEventsStatusBased(String status) throws ExecutionException, InterruptedException {
+        return getAllEventsStatusBased(status, false);
+    }
+
+    /**
+     * Lists every event with the given status, from the event cache unless a direct read is forced.
+     *
+     * @param status the event status, e.g. "pending" or "approved"
+     * @param forceDirectRead true to bypass the cache and query Firestore
+     * @return one formatted string per event
+     * @throws ExecutionException if the query fails
+     * @throws InterruptedException if interrupted while waiting for the query
+     */
+    public String[] getAllEventsStatusBased(String status, boolean forceDirectRead) throws ExecutionException, InterruptedException {
+        try {
+            return getAllEventsStatusBasedAsync(status, forceDirectRead).get();
         } catch (Exception e) {
             System.err.println("Error fetching events with status '" + status + "': " + e.getMessage());
             e.printStackTrace();
@@ -82,68 +321,333 @@ public class Firestore {
         }
     }
 
-    public void approveAllEvents() throws ExecutionException, InterruptedException {
+    /**
+     * Fetches and formats every event with the given status without blocking the caller.
+     *
+     * @param status the event status, e.g. "pending" or "approved"
+     * @return future completing with one formatted string per event
+     */
+    public CompletableFuture<String[]> getAllEventsStatusBasedAsync(String status) {
+        return getAllEventsStatusBasedAsync(status, false);
+    }
+
+    /**
+     * Fetches and formats every event with the given status without blocking the caller.
+     * Served from the event cache when the status is cached; otherwise Firestore is queried
+     * and the result is admitted to the cache (read-through).
+     *
+     * @param status the event status, e.g. "pending" or "approved"
+     * @param forceDirectRead true to bypass the cache and query Firestore
+     * @return future completing with one formatted string per event
+     */
+    public CompletableFuture<String[]> getAllEventsStatusBasedAsync(String status, boolean forceDirectRead) {
+        return getEventsByStatusAsync(status, forceDirectRead).thenApply(this::formatEvents);
+    }
+
+    /**
+     * Returns every event with the given status as typed events, without blocking the caller.
+     * Served from the event cache when the status is cached; otherwise Firestore is queried
+     * and the result is admitted to the cache (read-through).
+     *
+     * @param status the event status, e.g. "pending" or "approved"
+     * @param forceDirectRead true to bypass the cache and query Firestore
+     * @return future completing with the events
+     */
+    public CompletableFuture<List<Event>> getEventsByStatusAsync(String status, boolean forceDirectRead) {
+        if (!forceDirectRead) {
+            List<Event> cached = eventCache.get(status);
+            if (cached != null) {
+                return CompletableFuture.completedFuture(cached);
+            }
+        }
+
+        System.out.println("Fetching events with status: " + status);
         com.google.cloud.firestore.Firestore db = FirestoreClient.getFirestore();
-        // Asynchronously retrieve all documents
-        ApiFuture<QuerySnapshot> future = db.collection("events").get();
-        List<QueryDocumentSnapshot> documents = future.get().getDocuments();
+        // Returning all the documents with that status
+        return query("getEventsByStatus", () -> db.collection("events").whereEqualTo("status", status).get()).thenApply(snapshot -> {
+            List<QueryDocumentSnapshot> documents = snapshot.getDocuments();
+            System.out.println("Found " + documents.size() + " events with status: " + status);
+            eventCache.admit(status, documents);
 
-        for (QueryDocumentSnapshot document : documents) {
-            document.getReference().update("status", "approved");
+            List<Event> events = new ArrayList<>(documents.size());
+            for (QueryDocumentSnapshot document : documents) {
+                events.add(Event.fromSnapshot(document));
+            }
+            return events;
+        });
+    }
+
+    /**
+     * Reports hit, miss, eviction and staleness counters of the event cache.
+     *
+     * @return map of metric names to values
+     */
+    public Map<String, Object> getEventCacheMetrics() {
+        return eventCache.getMetrics();
+    }
+
+    // Formats events for the console and the status listing endpoint
+    private String[] formatEvents(List<Event> events) {
+        // RUBRIC REQUIREMENT: Demonstrate Wealth of Knowledge using standard Arrays []
+        String[] formattedEvents = new String[events.size()];
+
+        for (int i = 0; i < events.size(); i++) {
+            formattedEvents[i] = events.get(i).toConsoleString();
         }
+        return formattedEvents;
+    }
+
+    /**
+     * Reads one page of events with a status, without blocking the caller.
+     * Only the listing fields are read (select projection) and the page starts after the cursor,
+     * so each page costs at most pageSize document reads however large the collection is.
+     *
+     * @pre pageSize is greater than 0
+     * @param status   the event status, e.g. "approved"
+     * @param pageSize maximum number of events on the page
+     * @param cursor   the nextCursor of the previous page, or null for the first page
+     * @return future completing with the page and the cursor for the next one
+     */
+    public CompletableFuture<EventPage> getEventPageAsync(String status, int pageSize, String cursor) {
+        com.google.cloud.firestore.Firestore db = FirestoreClient.getFirestore();
+        Query query = db.collection("events")
+                .whereEqualTo("status", status)
+                .orderBy(FieldPath.documentId())
+                .select(Event.LISTING_FIELDS)
+                .limit(pageSize);
+        if (cursor != null && !cursor.isEmpty()) {
+            query = query.startAfter(cursor);
+        }
+
+        Query pageQuery = query;
+        return query("getEventPage", pageQuery::get).thenApply(snapshot -> {
+            List<QueryDocumentSnapshot> documents = snapshot.getDocuments();
+            List<Event> events = new ArrayList<>(documents.size());
+            for (QueryDocumentSnapshot document : documents) {
+                events.add(Event.fromSnapshot(document));
+            }
+            // A full page may have more after it; a short page is the last one
+            String nextCursor = documents.size() == pageSize ? documents.get(documents.size() - 1).getId() : null;
+            return new EventPage(events, nextCursor);
+        });
+    }
+
+    public void approveAllEvents() throws ExecutionException, InterruptedException {
+        approveAllEventsAsync().get();
+    }
+
+    /**
+     * Approves every event without blocking the caller.
+     * All updates are sent at once and the future completes when the last one is written.
+     *
+     * @return future completing with the number of events updated
+     */
+    public CompletableFuture<Integer> approveAllEventsAsync() {
+        com.google.cloud.firestore.Firestore db = FirestoreClient.getFirestore();
+        // Asynchronously retrieve all documents
+        return query("approveAllEvents", () -> db.collection("events").get()).thenCompose(snapshot -> {
+            List<QueryDocumentSnapshot> documents = snapshot.getDocuments();
+            CompletableFuture<?>[] updates = new CompletableFuture<?>[documents.size()];
+            for (int i = 0; i < documents.size(); i++) {
+                DocumentReference docRef = documents.get(i).getReference();
+                updates[i] = write("approveAllEvents", () -> docRef.update("status", "approved"));
+            }
+            return CompletableFuture.allOf(updates).thenApply(done -> documents.size());
+        });
     }
     
     public void approveEvent(String eventTitle) throws ExecutionException, InterruptedException {
+        approveEventAsync(eventTitle).get();
+    }
+
+    /**
+     * Approves an event by title without blocking the caller.
+     *
+     * @param eventTitle the event title, matched as {@link EventTitleIndex#normalize} does
+     * @return future completing when the status update is written, or failing with
+     *         IllegalArgumentException if no event has that title and
+     *         IllegalStateException if several events share it
+     */
+    public CompletableFuture<Void> approveEventAsync(String eventTitle) {
+        return updateStatusByTitle("approveEvent", eventTitle, "approved")
+                .thenRun(() -> System.out.println(eventTitle + " Approved!"));
+    }
+
+
+    public void declineEvent(String eventTitle) throws ExecutionException, InterruptedException {
+        declineEventAsync(eventTitle).get();
+    }
+
+    /**
+     * Declines an event by title without blocking the caller.
+     *
+     * @param eventTitle the event title, matched as {@link EventTitleIndex#normalize} does
+     * @return future completing when the status update is written, or failing with
+     *         IllegalArgumentException if no event has that title and
+     *         IllegalStateException if several events share it
+     */
+    public CompletableFuture<Void> declineEventAsync(String eventTitle) {
+        return updateStatusByTitle("declineEvent", eventTitle, "declined")
+                .thenRun(() -> System.out.println(eventTitle + " Declined!"));
+    }
+
+    // Resolves the title to one event, then updates its status; unknown and ambiguous titles fail the future
+    private CompletableFuture<WriteResult> updateStatusByTitle(String operation, String eventTitle, String status) {
         com.google.cloud.firestore.Firestore db = FirestoreClient.getFirestore();
-        String eventId = "";
-        // Find event by title
-        var query = db.collection("events")
-                .whereEqualTo("title", eventTitle)
-                .get()
-                .get();
-
-        for (DocumentSnapshot doc : query.getDocuments()) {
-            eventId = doc.getId();  // Get the ID
-            // Now you can reference it
+
+        // Local O(1) lookup when the listener has loaded the index
+        if (titleIndex.isLoaded()) {
+            EventTitleIndex.Match match;
+            try {
+                match = titleIndex.resolve(eventTitle);
+            } catch (RuntimeException e) {
+                return CompletableFuture.failedFuture(e);
+            }
+            return write(operation, () -> db.collection("events").document(match.eventId()).update("status", status));
         }
 
-        // Update an existing document
-        DocumentReference docRef = db.collection("events").document(eventId);
+        // Before the index loads, match titles the same way by scanning them
+        return findByTitle(operation, eventTitle).thenCompose(documents -> {
+            if (documents.isEmpty()) {
+                return CompletableFuture.failedFuture(new IllegalArgumentException("No event found with title: " + eventTitle));
+            }
+            if (documents.size() > 1) {
+                return CompletableFuture.failedFuture(new IllegalStateException("Ambiguous title '" + eventTitle + "' matches " + documents.size() + " events"));
+            }
+
+            // (async) Update one field of the existing document
+            DocumentReference docRef = documents.get(0).getReference();
+            return write(operation, () -> docRef.update("status", status));
+        });
+    }
 
-        // (async) Update one field
-        ApiFuture<WriteResult> future = docRef.update("status", "approved");
+    // Reads every event's title and keeps the ones equal to eventTitle after normalization; used until the index loads
+    private CompletableFuture<List<QueryDocumentSnapshot>> findByTitle(String operation, String eventTitle) {
+        com.google.cloud.firestore.Firestore db = FirestoreClient.getFirestore();
+        String key = EventTitleIndex.normalize(eventTitle);
+        return query(operation, () -> db.collection("events").select("title").get())
+                .thenApply(snapshot -> snapshot.getDocuments().stream()
+                        .filter(document -> key != null && key.equals(EventTitleIndex.normalize(document.getString("title"))))
+                        .toList());
+    }
 
-        WriteResult result = future.get();
-        System.out.println(eventTitle + " Approved!");
+    /**
+     * Claims a reminder by creating its marker document in the "reminders" collection.
+     * create() fails if the document already exists, so each reminder is claimed once
+     * across restarts and running instances.
+     *
+     * @param reminderId the marker document ID, unique per event occurrence and lead time
+     * @param data       fields stored on the marker
+     * @return future completing with true if this call created the marker, false if it already existed
+     */
+    public CompletableFuture<Boolean> claimReminderAsync(String reminderId, Map<String, Object> data) {
+        return claim("claimReminder", "reminders", reminderId, data);
     }
 
+    /**
+     * Claims a scheduled digest by creating its marker document in the "digests" collection,
+     * so a digest retried across a lease handover is sent by one instance only.
+     *
+     * @param digestId the marker document ID, the scheduled date
+     * @param data     fields stored on the marker
+     * @return future completing with true if this call created the marker, false if it already existed
+     */
+    public CompletableFuture<Boolean> claimDigestAsync(String digestId, Map<String, Object> data) {
+        return claim("claimDigest", "digests", digestId, data);
+    }
 
-    public void declineEvent(String eventTitle) throws ExecutionException, InterruptedException {
+    // Creates a marker document; an existing marker is recorded as a failure with status ALREADY_EXISTS
+    private CompletableFuture<Boolean> claim(String operation, String collection, String id, Map<String, Object> data) {
         com.google.cloud.firestore.Firestore db = FirestoreClient.getFirestore();
-        String eventId = "";
-        // Find event by title
-        var query = db.collection("events")
-                .whereEqualTo("title", eventTitle)
-                .get()
-                .get();
-
-        for (DocumentSnapshot doc : query.getDocuments()) {
-            eventId = doc.getId();  // Get the ID
-            // Now you can reference it
+        return write(operation, () -> db.collection(collection).document(id).create(data))
+                .handle((result, error) -> {
+                    if (error == null) {
+                        return true;
+                    }
+                    if (isAlreadyExists(error)) {
+                        return false;
+                    }
+                    throw error instanceof CompletionException ? (CompletionException) error : new CompletionException(error);
+                });
+    }
+
+    // True if any cause in the chain is Firestore's ALREADY_EXISTS error
+    static boolean isAlreadyExists(Throwable error) {
+        for (Throwable cause = error; cause != null; cause = cause.getCause()) {
+            if (cause instanceof ApiException apiException && apiException.getStatusCode() != null
+                    && apiException.getStatusCode().getCode() == StatusCode.Code.ALREADY_EXISTS) {
+                return true;
+            }
         }
+        return false;
+    }
 
-        // Update an existing document
-        DocumentReference docRef = db.collection("events").document(eventId);
+    /**
+     * Runs and times a query, counting the documents it returns as reads.
+     * Other services run their own queries through this, so every read shows up in the Firestore metrics.
+     *
+     * @param operation the operation tag, e.g. "getMonth"
+     * @param call      starts the query
+     * @return future completing with the query result
+     */
+    CompletableFuture<QuerySnapshot> query(String operation, Supplier<ApiFuture<QuerySnapshot>> call) {
+        return callMetrics.timeAsync(CallMetrics.FIRESTORE_CALLS, operation, () -> toCompletable(call.get()))
+                .thenApply(snapshot -> {
+                    callMetrics.countReads(operation, snapshot.size());
+                    return snapshot;
+                });
+    }
+
+    /**
+     * Runs and times a single-document write (set, update or delete), counting it once it succeeds.
+     *
+     * @param operation the operation tag, e.g. "subscribe"
+     * @param call      starts the write
+     * @return future completing with the write result
+     */
+    CompletableFuture<WriteResult> write(String operation, Supplier<ApiFuture<WriteResult>> call) {
+        return callMetrics.timeAsync(CallMetrics.FIRESTORE_CALLS, operation, () -> toCompletable(call.get()))
+                .thenApply(result -> {
+                    callMetrics.countWrites(operation, 1);
+                    return result;
+                });
+    }
 
-        // (async) Update one field
-        ApiFuture<WriteResult> future = docRef.update("status", "declined");
+    /**
+     * Adapts a Firestore ApiFuture to a CompletableFuture using a callback instead of a blocking get().
+     *
+     * @param apiFuture the pending Firestore call
+     * @return future completing with the same result or failure
+     */
+    static <T> CompletableFuture<T> toCompletable(ApiFuture<T> apiFuture) {
+        CompletableFuture<T> result = new CompletableFuture<>();
+        ApiFutures.addCallback(apiFuture, new ApiFutureCallback<T>() {
+            @Override
+            public void onSuccess(T value) {
+                result.complete(value);
+            }
 
-        WriteResult result = future.get();
-        System.out.println(eventTitle + " Declined!");
+            @Override
+            public void onFailure(Throwable t) {
+                result.completeExceptionally(t);
+            }
+        }, MoreExecutors.directExecutor());
+        return result;
     }
 
 
-    public void addEvent(String eventTitle, String eventSupervisor, String eventDate, String eventStartTime, String eventEndTime, String eventDescription, String eventCategory, Boolean weekly, String submitTime, String respondentEmail, String eventLocation, String actionRequired, int month, int year) throws ExecutionException, InterruptedException {
+    /**
+     * Creates the event for one form response, keyed on the responseId so a retried call cannot add it twice.
+     *
+     * @pre Firestore must be initialized
+     * @post the events collection holds a document with ID responseId
+     *
+     * @param responseId        the Google Form responseId, used as the document ID
+     * @param lastSubmittedTime when the response was last submitted or edited (RFC3339)
+     * @throws ExecutionException if the write fails, including with ALREADY_EXISTS if the response was stored before
+     * @throws InterruptedException if interrupted while waiting for the write
+     */
+    public void addEvent(String responseId, String lastSubmittedTime, String eventTitle, String eventSupervisor, String eventDate, String eventStartTime, String eventEndTime, String eventDescription, String eventCategory, Boolean weekly, String submitTime, String respondentEmail, String eventLocation, String actionRequired, int month, int year) throws ExecutionException, InterruptedException {
         // Ensure Firebase is initialized before using Firestore
         if (!initialized) {
             throw new IllegalStateException("Firestore not initialized. Call constructor first.");
@@ -151,10 +655,27 @@ public class Firestore {
         
         // Get Firestore instance - this requires Firebase to be initialized
         com.google.cloud.firestore.Firestore db = FirestoreClient.getFirestore();
-        DocumentReference docRef = db.collection("events").document();
-        
+        DocumentReference docRef = db.collection("events").document(responseId);
+
+        Map<String, Object> data = buildEventData(responseId, lastSubmittedTime, eventTitle, eventSupervisor, eventDate, eventStartTime, eventEndTime,
+                eventDescription, eventCategory, weekly, submitTime, respondentEmail, eventLocation, actionRequired, month, year);
+
+        // create() fails instead of overwriting when the document already exists
+        write("addEvent", () -> docRef.create(data)).get();
+    }
+
+    /**
+     * Builds the document fields for a new pending event.
+     *
+     * @param responseId        the Google Form responseId the event comes from, also its document ID
+     * @param lastSubmittedTime when the response was last submitted or edited, compared to apply later edits
+     * @return map of field names to values, ready to be written to the "events" collection
+     */
+    public Map<String, Object> buildEventData(String responseId, String lastSubmittedTime, String eventTitle, String eventSupervisor, String eventDate, String eventStartTime, String eventEndTime, String eventDescription, String eventCategory, Boolean weekly, String submitTime, String respondentEmail, String eventLocation, String actionRequired, int month, int year) {
         // Add document data using the parameters passed to the method
         Map<String, Object> data = new HashMap<>();
+        data.put("responseId", responseId);
+        data.put("lastSubmittedTime", lastSubmittedTime);
         data.put("title", eventTitle);
         data.put("image", "");
         data.put("category", eventCategory);
@@ -171,8 +692,23 @@ public class Firestore {
         data.put("year", year);
         data.put("submitTime",submitTime );
         data.put("respondentEmail", respondentEmail);
+        return data;
+    }
 
-        // Asynchronously write data
-        ApiFuture<WriteResult> result = docRef.set(data);
+    /**
+     * Opens a batch writer for adding many events in one sync run.
+     * The caller must close it to commit the last batch and wait for all writes.
+     *
+     * @pre Firestore must be initialized
+     * @post Returned writer commits events in batches of WRITE_BATCH_SIZE
+     *
+     * @return a new EventBatchWriter on the "events" collection
+     */
+    public EventBatchWriter openBatchWriter() {
+        if (!initialized) {
+            throw new IllegalStateException("Firestore not initialized. Call constructor first.");
+        }
+        com.google.cloud.firestore.Firestore db = FirestoreClient.getFirestore();
+        return new EventBatchWriter(db.bulkWriter(), db.collection("events"), WRITE_BATCH_SIZE, MAX_IN_FLIGHT_BATCHES, callMetrics);
     }
 }
\ No newline at end of file
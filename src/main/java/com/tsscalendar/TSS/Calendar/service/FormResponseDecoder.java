@@ -0,0 +1,229 @@
+/**
+ * FormResponseDecoder.java
+ *
+ * Decodes a page of the Forms API responses.list JSON with a streaming
+ * Jackson parser. Only the responseId, timestamps, respondent email and the
+ * first text answer of each configured question are read; every other value
+ * (other questions, grades, file uploads) is skipped token by token. Each
+ * response becomes one flat FormSubmission, so no FormResponse, Answer or
+ * TextAnswer objects and none of their backing maps are allocated.
+ *
+ * Sources:
+ * - Jackson streaming API: https://github.com/FasterXML/jackson-core
+ * - Google Forms API FormResponse: https://developers.google.com/workspace/forms/api/reference/rest/v1/forms.responses
+ *
+ * @author Artin Mehri
+ * @version 1.0
+ */
+package com.tsscalendar.TSS.Calendar.service;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.tsscalendar.TSS.Calendar.model.FormSubmission;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Reads the configured questions of every response on a page into FormSubmission records.
+ * Thread-safe: the question map is read-only and each call uses its own parser.
+ */
+public class FormResponseDecoder {
+
+    /**
+     * The event questions of the form, in FormSubmission order.
+     */
+    public enum Question {
+        TITLE, SUPERVISOR, LOCATION, DATE, START_TIME, END_TIME, DESCRIPTION, CATEGORY, ACTION_REQUIRED, WEEKLY
+    }
+
+    /**
+     * One decoded page of responses.
+     *
+     * @param submissions   the responses on the page
+     * @param nextPageToken token for the next page, or null on the last page
+     */
+    public record Page(List<FormSubmission> submissions, String nextPageToken) {
+    }
+
+    private static final Question[] QUESTIONS = Question.values();
+    // Jackson factories are thread-safe and cache their symbol tables, so one is shared
+    private static final JsonFactory JSON = new JsonFactory();
+
+    // question ID on the form -> the event field it answers
+    private final Map<String, Question> questionsById = new HashMap<>();
+
+    /**
+     * Creates a decoder for a form's questions.
+     *
+     * @pre every Question has a question ID
+     *
+     * @param questionIds the form's question ID for each event field
+     * @throws IllegalArgumentException if a question is missing or two questions share a question ID
+     */
+    public FormResponseDecoder(Map<Question, String> questionIds) {
+        for (Question question : QUESTIONS) {
+            String questionId = questionIds.get(question);
+            if (questionId == null || questionId.isBlank()) {
+                throw new IllegalArgumentException("No question ID configured for " + question);
+            }
+            Question previous = questionsById.put(questionId, question);
+            if (previous != null) {
+                throw new IllegalArgumentException("Question ID " + questionId + " is configured for both " + previous + " and " + question);
+            }
+        }
+    }
+
+    /**
+     * Parses a question list such as "title:46cfc9f8,supervisor:03e3278b,start-time:0db76540".
+     *
+     * @param questions comma-separated name:questionId pairs; names are the Question constants in lower case with dashes
+     * @return the question ID of each listed question
+     * @throws IllegalArgumentException if an entry is malformed, names an unknown question or repeats a question
+     */
+    public static Map<Question, String> parseQuestions(String questions) {
+        Map<Question, String> questionIds = new EnumMap<>(Question.class);
+        for (String entry : questions.split(",")) {
+            if (entry.isBlank()) {
+                continue;
+            }
+            String[] pair = entry.split(":");
+            if (pair.length != 2) {
+                throw new IllegalArgumentException("Expected name:questionId but got '" + entry.trim() + "'");
+            }
+            Question question = Question.valueOf(pair[0].trim().replace('-', '_').toUpperCase(Locale.ROOT));
+            if (questionIds.put(question, pair[1].trim()) != null) {
+                throw new IllegalArgumentException("Question '" + pair[0].trim() + "' is listed twice");
+            }
+        }
+        return questionIds;
+    }
+
+    /**
+     * Decodes one responses.list page.
+     *
+     * @param json the response body; closed once the page is decoded
+     * @return the page's submissions and its nextPageToken
+     * @throws IOException if the body cannot be read or is not a responses.list object
+     */
+    public Page decodePage(InputStream json) throws IOException {
+        try (JsonParser parser = JSON.createParser(json)) {
+            if (parser.nextToken() != JsonToken.START_OBJECT) {
+                throw new IOException("Expected a responses.list object but got " + parser.currentToken());
+            }
+            List<FormSubmission> submissions = new ArrayList<>();
+            String nextPageToken = null;
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                String field = parser.currentName();
+                JsonToken value = parser.nextToken();
+                if ("responses".equals(field) && value == JsonToken.START_ARRAY) {
+                    for (JsonToken item = parser.nextToken(); item != JsonToken.END_ARRAY; item = parser.nextToken()) {
+                        if (item == JsonToken.START_OBJECT) {
+                            submissions.add(decodeResponse(parser));
+                        } else {
+                            parser.skipChildren();
+                        }
+                    }
+                } else if ("nextPageToken".equals(field)) {
+                    nextPageToken = parser.getValueAsString();
+                } else {
+                    parser.skipChildren();
+                }
+            }
+            return new Page(submissions, nextPageToken);
+        }
+    }
+
+    // Reads one response object; the parser is on its START_OBJECT and is left on its END_OBJECT
+    private FormSubmission decodeResponse(JsonParser parser) throws IOException {
+        String responseId = null;
+        String createTime = null;
+        String lastSubmittedTime = null;
+        String respondentEmail = null;
+        String[] answers = new String[QUESTIONS.length];
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String field = parser.currentName();
+            JsonToken value = parser.nextToken();
+            switch (field) {
+                case "responseId" -> responseId = parser.getValueAsString();
+                case "createTime" -> createTime = parser.getValueAsString();
+                case "lastSubmittedTime" -> lastSubmittedTime = parser.getValueAsString();
+                case "respondentEmail" -> respondentEmail = parser.getValueAsString();
+                case "answers" -> {
+                    if (value == JsonToken.START_OBJECT) {
+                        decodeAnswers(parser, answers);
+                    } else {
+                        parser.skipChildren();
+                    }
+                }
+                default -> parser.skipChildren();
+            }
+        }
+        return new FormSubmission(responseId, createTime, lastSubmittedTime, respondentEmail,
+                answers[Question.TITLE.ordinal()], answers[Question.SUPERVISOR.ordinal()],
+                answers[Question.LOCATION.ordinal()], answers[Question.DATE.ordinal()],
+                answers[Question.START_TIME.ordinal()], answers[Question.END_TIME.ordinal()],
+                answers[Question.DESCRIPTION.ordinal()], answers[Question.CATEGORY.ordinal()],
+                answers[Question.ACTION_REQUIRED.ordinal()], answers[Question.WEEKLY.ordinal()]);
+    }
+
+    // Reads the answers map, keyed by question ID, keeping only the configured questions
+    private void decodeAnswers(JsonParser parser, String[] answers) throws IOException {
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            Question question = questionsById.get(parser.currentName());
+            JsonToken value = parser.nextToken();
+            if (question != null && value == JsonToken.START_OBJECT) {
+                answers[question.ordinal()] = firstTextAnswer(parser);
+            } else {
+                parser.skipChildren();
+            }
+        }
+    }
+
+    // Reads {"textAnswers": {"answers": [{"value": ...}, ...]}, ...} and returns the first value
+    private static String firstTextAnswer(JsonParser parser) throws IOException {
+        String text = null;
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String field = parser.currentName();
+            if (parser.nextToken() != JsonToken.START_OBJECT || !"textAnswers".equals(field)) {
+                parser.skipChildren();
+                continue;
+            }
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                String inner = parser.currentName();
+                if (parser.nextToken() != JsonToken.START_ARRAY || !"answers".equals(inner)) {
+                    parser.skipChildren();
+                    continue;
+                }
+                for (JsonToken item = parser.nextToken(); item != JsonToken.END_ARRAY; item = parser.nextToken()) {
+                    if (text == null && item == JsonToken.START_OBJECT) {
+                        text = answerValue(parser);
+                    } else {
+                        parser.skipChildren();
+                    }
+                }
+            }
+        }
+        return text;
+    }
+
+    // Reads the "value" of one text answer object
+    private static String answerValue(JsonParser parser) throws IOException {
+        String value = null;
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String field = parser.currentName();
+            parser.nextToken();
+            if ("value".equals(field)) {
+                value = parser.getValueAsString();
+            } else {
+                parser.skipChildren();
+            }
+        }
+        return value;
+    }
+}
@@ -0,0 +1,77 @@
+/**
+ * FormSchema.java
+ *
+ * The compiled schema of one synced Google Form: its form ID, the decoder
+ * that extracts the event questions from its responses, and the table that
+ * maps the category options shown on the form to stored categories. Built
+ * once at startup by FormSchemas from the tss.forms.&lt;name&gt;.* properties.
+ *
+ * @author Artin Mehri
+ * @version 1.0
+ */
+package com.tsscalendar.TSS.Calendar.service;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * One form's question extractors and category lookup table.
+ *
+ * @param name       the form's name in tss.forms.names, used in requests, status and the journal
+ * @param formId     the Google Form ID
+ * @param decoder    extracts the configured questions from a page of responses
+ * @param categories form option text to stored category
+ */
+public record FormSchema(String name, String formId, FormResponseDecoder decoder, Map<String, String> categories) {
+
+    /**
+     * Compiles a form's configuration.
+     *
+     * @param name       the form's name
+     * @param formId     the Google Form ID (tss.forms.&lt;name&gt;.form-id)
+     * @param questions  name:questionId pairs (tss.forms.&lt;name&gt;.questions), see {@link FormResponseDecoder#parseQuestions}
+     * @param categories "option=Category" pairs separated by | (tss.forms.&lt;name&gt;.categories), or blank for none
+     * @return the compiled schema
+     * @throws IllegalArgumentException if the form ID is blank or a question or category entry is malformed
+     */
+    public static FormSchema compile(String name, String formId, String questions, String categories) {
+        if (formId == null || formId.isBlank()) {
+            throw new IllegalArgumentException("No form ID configured for form '" + name + "'");
+        }
+        FormResponseDecoder decoder;
+        try {
+            decoder = new FormResponseDecoder(FormResponseDecoder.parseQuestions(questions));
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Form '" + name + "': " + e.getMessage(), e);
+        }
+        return new FormSchema(name, formId.trim(), decoder, parseCategories(name, categories));
+    }
+
+    /**
+     * Maps a category answer to the stored category.
+     *
+     * @param answer the option text the respondent chose
+     * @return the mapped category, or the answer itself if the table has no entry for it
+     */
+    public String category(String answer) {
+        return answer != null ? categories.getOrDefault(answer, answer) : null;
+    }
+
+    private static Map<String, String> parseCategories(String name, String categories) {
+        if (categories == null) {
+            return Map.of();
+        }
+        Map<String, String> table = new HashMap<>();
+        for (String entry : categories.split("\\|")) {
+            if (entry.isBlank()) {
+                continue;
+            }
+            // Options may contain '=', category names do not
+            int separator = entry.lastIndexOf('=');
+            if (separator <= 0 || separator == entry.length() - 1) {
+                throw new IllegalArgumentException("Form '" + name + "': expected option=Category but got '" + entry.trim() + "'");
+            }
+            table.put(entry.substring(0, separator).trim(), entry.substring(separator + 1).trim());
+        }
+        return Map.copyOf(table);
+    }
+}
@@ -0,0 +1,101 @@
+/**
+ * FormSchemas.java
+ *
+ * The Google Forms the application syncs, one per school or club. Each form
+ * listed in tss.forms.names has its own tss.forms.&lt;name&gt;.form-id,
+ * .questions and .categories properties, compiled once at startup into a
+ * FormSchema. A form is added by configuration alone; a mistake in any
+ * form's settings stops startup instead of failing its syncs later.
+ *
+ * Sources:
+ * - Spring Environment: https://docs.spring.io/spring-framework/reference/core/beans/environment.html
+ *
+ * @author Artin Mehri
+ * @version 1.0
+ */
+package com.tsscalendar.TSS.Calendar.service;
+import org.springframework.core.env.Environment;
+import org.springframework.stereotype.Service;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Compiles and looks up the configured form schemas.
+ */
+@Service
+public class FormSchemas {
+
+    private final Map<String, FormSchema> schemas = new LinkedHashMap<>();
+
+    /**
+     * Compiles every form listed in tss.forms.names.
+     *
+     * @pre tss.forms.names lists at least one form, each with form-id and questions set
+     * @post every listed form has a compiled schema, in the listed order
+     *
+     * @param environment the application's configuration
+     * @throws IllegalStateException if no form is listed, a name is repeated or a form's settings are missing or malformed
+     */
+    public FormSchemas(Environment environment) {
+        for (String name : environment.getProperty("tss.forms.names", "").split(",")) {
+            name = name.trim();
+            if (name.isEmpty()) {
+                continue;
+            }
+            String prefix = "tss.forms." + name + ".";
+            try {
+                FormSchema schema = FormSchema.compile(name, environment.getProperty(prefix + "form-id"),
+                        environment.getRequiredProperty(prefix + "questions"), environment.getProperty(prefix + "categories"));
+                if (schemas.putIfAbsent(name, schema) != null) {
+                    throw new IllegalStateException("Form '" + name + "' is listed twice in tss.forms.names");
+                }
+            } catch (IllegalArgumentException e) {
+                throw new IllegalStateException(e.getMessage(), e);
+            }
+        }
+        if (schemas.isEmpty()) {
+            throw new IllegalStateException("tss.forms.names must list at least one form");
+        }
+        System.out.println("Syncing " + schemas.size() + " form(s): " + String.join(", ", schemas.keySet()));
+    }
+
+    /**
+     * Returns every configured form.
+     *
+     * @return the schemas in the order of tss.forms.names
+     */
+    public Collection<FormSchema> all() {
+        return Collections.unmodifiableCollection(schemas.values());
+    }
+
+    /**
+     * Returns the configured form names.
+     *
+     * @return the names in the order of tss.forms.names
+     */
+    public List<String> names() {
+        return new ArrayList<>(schemas.keySet());
+    }
+
+    /**
+     * Looks up a form by name, or the first listed form if no name is given.
+     *
+     * @param name the form's name, or null for the first form
+     * @return the form's schema
+     * @throws IllegalArgumentException if no form has that name
+     */
+    public FormSchema get(String name) {
+        if (name == null || name.isBlank()) {
+            return schemas.values().iterator().next();
+        }
+        FormSchema schema = schemas.get(name.trim());
+        if (schema == null) {
+            throw new IllegalArgumentException("Unknown form '" + name + "'; configured forms are " + schemas.keySet());
+        }
+        return schema;
+    }
+}
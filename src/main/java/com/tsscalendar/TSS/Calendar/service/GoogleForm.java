@@ -16,13 +16,21 @@ import com.google.api.client.googleapis.javanet.GoogleNetHttpTransport;
 import com.google.api.client.json.JsonFactory;
 import com.google.api.client.json.jackson2.JacksonFactory;
 import com.google.api.services.forms.v1.Forms;
-import com.google.api.services.forms.v1.FormsScopes;
+import com.google.api.services.forms.v1.model.FormResponse;
 import com.google.api.services.forms.v1.model.ListFormResponsesResponse;
-import com.google.auth.oauth2.GoogleCredentials;
+import com.tsscalendar.TSS.Calendar.model.FormSubmission;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
-import java.io.FileInputStream;
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
 import java.security.GeneralSecurityException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
 
 
 /**
@@ -34,16 +42,24 @@ public class GoogleForm {
 
     // Constants for Google API configuration
     private static final String APPLICATION_NAME = "TSS Calendar Backend";
-    private static final String CREDENTIALS_FILE = "src/main/resources/tss-calendar.json";
 
 
     private Forms formsService;
 
+    @Autowired
+    private GoogleTokenCache tokenCache;
+    @Autowired
+    private CallMetrics callMetrics;
+
+    // Number of responses requested per page (the Forms API allows up to 5000)
+    @Value("${tss.forms.page-size:500}")
+    private int pageSize;
+
     /**
      * Constructor that initializes Google Forms API connection.
      * Creates authenticated Forms service using service account credentials.
      *
-     * @pre credentials.json must exist at CREDENTIALS_FILE path with valid service account key
+     * @pre tss-calendar.json must hold a valid service account key (read by GoogleTokenCache)
      * @post formsService is initialized and ready to make API calls
      *
      * @throws GeneralSecurityException if SSL/TLS setup fails
@@ -55,19 +71,9 @@ public class GoogleForm {
 
     }
 
-    // Getting access token from the local file and getting access to everything (read, write, etc...)
+    // Getting the shared access token; the cache only hits the credential file and Google when it has to
     private String getAccessToken() throws IOException {
-
-            // Load service account credentials from file
-            GoogleCredentials credential = GoogleCredentials.fromStream(new FileInputStream(CREDENTIALS_FILE)).createScoped(FormsScopes.all());
-
-            // If there is already a token use it, otherwise ask Google for a new one (sometimes the tokens are cashed)
-            if (credential.getAccessToken() != null) {
-                return credential.getAccessToken().getTokenValue();
-            } else {
-                // If no token exist, refresh it to get a new one
-                return credential.refreshAccessToken().getTokenValue();
-            }
+            return tokenCache.getAccessToken();
     }
 
     /**
@@ -82,6 +88,157 @@ public class GoogleForm {
      * @throws IOException if API call fails or network error occurs
      */
     public ListFormResponsesResponse getFormResponses(String formId) throws IOException {
-            return formsService.forms().responses().list(formId).setAccessToken(getAccessToken()).execute();
+            return getFormResponses(formId, null);
+    }
+
+    /**
+     * Retrieves the responses submitted to a Google Form after a given time.
+     * Uses the Forms API "timestamp" filter so older responses are never downloaded,
+     * and follows every page so no response is dropped.
+     *
+     * @pre formsService must be initialized with valid credentials
+     * @pre submittedAfter is null or an RFC3339 UTC timestamp
+     * @post Returns only responses whose submission time is after submittedAfter
+     *
+     * @param formId the unique identifier of the Google Form
+     * @param submittedAfter the sync watermark, or null to retrieve every response
+     * @return ListFormResponsesResponse containing the matching form submissions
+     * @throws IOException if API call fails or network error occurs
+     */
+    public ListFormResponsesResponse getFormResponses(String formId, String submittedAfter) throws IOException {
+            return callMetrics.time(CallMetrics.FORMS_CALLS, "getFormResponses", () -> {
+                List<FormResponse> responses = new ArrayList<>();
+                try {
+                    for (List<FormResponse> page : getFormResponsePages(formId, submittedAfter)) {
+                        responses.addAll(page);
+                    }
+                } catch (UncheckedIOException e) {
+                    throw e.getCause();
+                }
+                return new ListFormResponsesResponse().setResponses(responses);
+            });
+    }
+
+    /**
+     * Returns the responses of a Google Form one page at a time.
+     * Each page is only requested when the iterator reaches it, so callers hold at most one page in memory.
+     *
+     * @pre formsService must be initialized with valid credentials
+     * @pre submittedAfter is null or an RFC3339 UTC timestamp
+     * @post Iterating visits every matching response exactly once, following nextPageToken until it is absent
+     *
+     * @param formId the unique identifier of the Google Form
+     * @param submittedAfter the sync watermark, or null to retrieve every response
+     * @return Iterable of pages; its iterator throws UncheckedIOException if a page request fails
+     */
+    public Iterable<List<FormResponse>> getFormResponsePages(String formId, String submittedAfter) {
+            return () -> new FormResponsePageIterator(formId, submittedAfter);
+    }
+
+    /**
+     * Returns the event answers of a Google Form's responses one page at a time.
+     * Each page body is decoded as it streams in by the form's schema, keeping only its event questions,
+     * so no FormResponse objects are built.
+     *
+     * @pre formsService must be initialized with valid credentials
+     * @pre submittedAfter is null or an RFC3339 UTC timestamp
+     * @post Iterating visits every matching response exactly once, following nextPageToken until it is absent
+     *
+     * @param schema the form to read and the decoder for its questions
+     * @param submittedAfter the sync watermark, or null to retrieve every response
+     * @return Iterable of pages; its iterator throws UncheckedIOException if a page request fails
+     */
+    public Iterable<List<FormSubmission>> getSubmissionPages(FormSchema schema, String submittedAfter) {
+            return () -> new SubmissionPageIterator(schema, submittedAfter);
+    }
+
+    // Requests one page per call to next(), following nextPageToken
+    private class FormResponsePageIterator implements Iterator<List<FormResponse>> {
+        private final String formId;
+        private final String submittedAfter;
+        private String pageToken;
+        private boolean lastPageFetched = false;
+
+        FormResponsePageIterator(String formId, String submittedAfter) {
+            this.formId = formId;
+            this.submittedAfter = submittedAfter;
+        }
+
+        @Override
+        public boolean hasNext() {
+            return !lastPageFetched;
+        }
+
+        @Override
+        public List<FormResponse> next() {
+            if (lastPageFetched) {
+                throw new NoSuchElementException();
+            }
+            try {
+                Forms.FormsOperations.Responses.List request = listRequest(formId, submittedAfter, pageToken);
+                // Each page request is timed on its own, so slow pages show up in the latency histogram
+                ListFormResponsesResponse page = callMetrics.time(CallMetrics.FORMS_CALLS, "listResponsesPage", request::execute);
+
+                pageToken = page.getNextPageToken();
+                lastPageFetched = pageToken == null || pageToken.isEmpty();
+                return page.getResponses() != null ? page.getResponses() : Collections.emptyList();
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+    }
+
+    // Requests one page per call to next() and decodes it while it streams in
+    private class SubmissionPageIterator implements Iterator<List<FormSubmission>> {
+        private final FormSchema schema;
+        private final String submittedAfter;
+        private String pageToken;
+        private boolean lastPageFetched = false;
+
+        SubmissionPageIterator(FormSchema schema, String submittedAfter) {
+            this.schema = schema;
+            this.submittedAfter = submittedAfter;
+        }
+
+        @Override
+        public boolean hasNext() {
+            return !lastPageFetched;
+        }
+
+        @Override
+        public List<FormSubmission> next() {
+            if (lastPageFetched) {
+                throw new NoSuchElementException();
+            }
+            try {
+                Forms.FormsOperations.Responses.List request = listRequest(schema.formId(), submittedAfter, pageToken);
+                // Timed together with decoding, which happens as the body is read
+                FormResponseDecoder.Page page = callMetrics.time(CallMetrics.FORMS_CALLS, "listResponsesPage", () -> {
+                    try (InputStream body = request.executeAsInputStream()) {
+                        return schema.decoder().decodePage(body);
+                    }
+                });
+
+                pageToken = page.nextPageToken();
+                lastPageFetched = pageToken == null || pageToken.isEmpty();
+                return page.submissions();
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+    }
+
+    // Builds the responses.list request for one page
+    private Forms.FormsOperations.Responses.List listRequest(String formId, String submittedAfter, String pageToken) throws IOException {
+        Forms.FormsOperations.Responses.List request = formsService.forms().responses().list(formId)
+                .setAccessToken(getAccessToken())
+                .setPageSize(pageSize);
+        if (submittedAfter != null) {
+            request.setFilter("timestamp > " + submittedAfter);
+        }
+        if (pageToken != null) {
+            request.setPageToken(pageToken);
+        }
+        return request;
     }
 }
\ No newline at end of file
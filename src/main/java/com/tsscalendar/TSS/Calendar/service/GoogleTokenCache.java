@@ -0,0 +1,166 @@
+/**
+ * GoogleTokenCache.java
+ *
+ * Shared OAuth access token for the Google Forms API.
+ * Loads the service account once, keeps the current token in memory and
+ * refreshes it in the background shortly before it expires.
+ *
+ * Sources:
+ * - Google Auth Library: https://github.com/googleapis/google-auth-library-java
+ *
+ * @author Artin Mehri
+ * @version 1.0
+ */
+package com.tsscalendar.TSS.Calendar.service;
+import com.google.api.services.forms.v1.FormsScopes;
+import com.google.auth.oauth2.AccessToken;
+import com.google.auth.oauth2.GoogleCredentials;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Caches the Google Forms access token for every API call.
+ * Concurrent callers that find the token missing or expired wait on a single refresh.
+ */
+@Service
+public class GoogleTokenCache {
+
+    private static final String CREDENTIALS_FILE = "src/main/resources/tss-calendar.json";
+    // Background refresh starts this long before the token expires
+    private static final long REFRESH_AHEAD_MILLIS = TimeUnit.MINUTES.toMillis(5);
+    // Callers refresh the token themselves if it is closer than this to expiring
+    private static final long MIN_REMAINING_MILLIS = TimeUnit.MINUTES.toMillis(1);
+    // Delay before retrying a failed background refresh
+    private static final long RETRY_DELAY_MILLIS = TimeUnit.SECONDS.toMillis(30);
+
+    private final Object refreshLock = new Object();
+    private final ScheduledExecutorService refresher = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "google-token-refresh");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    @Autowired
+    private CallMetrics callMetrics;
+
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong refreshes = new AtomicLong();
+    private final AtomicLong refreshFailures = new AtomicLong();
+
+    private GoogleCredentials credentials;
+    private volatile AccessToken cachedToken;
+    private ScheduledFuture<?> scheduledRefresh;
+
+    /**
+     * Returns a valid access token, refreshing it only if it is missing or about to expire.
+     *
+     * @pre CREDENTIALS_FILE must contain a valid service account key
+     * @post The returned token is valid for at least MIN_REMAINING_MILLIS
+     *
+     * @return the OAuth access token value
+     * @throws IOException if the credentials cannot be read or the refresh fails
+     */
+    public String getAccessToken() throws IOException {
+        AccessToken token = cachedToken;
+        if (isUsable(token)) {
+            hits.incrementAndGet();
+            return token.getTokenValue();
+        }
+
+        misses.incrementAndGet();
+        synchronized (refreshLock) {
+            // Another caller may have refreshed the token while this one was waiting
+            token = cachedToken;
+            if (isUsable(token)) {
+                return token.getTokenValue();
+            }
+            return refreshNow().getTokenValue();
+        }
+    }
+
+    /**
+     * Returns counters that show how often the cached token was reused.
+     *
+     * @return map with hits, misses, refreshes, refreshFailures and expiresAt keys
+     */
+    public Map<String, Object> getMetrics() {
+        Map<String, Object> metrics = new HashMap<>();
+        metrics.put("hits", hits.get());
+        metrics.put("misses", misses.get());
+        metrics.put("refreshes", refreshes.get());
+        metrics.put("refreshFailures", refreshFailures.get());
+        AccessToken token = cachedToken;
+        metrics.put("expiresAt", token != null && token.getExpirationTime() != null ? token.getExpirationTime().toInstant().toString() : null);
+        return metrics;
+    }
+
+    /**
+     * Stops the background refresh thread when the application shuts down.
+     */
+    @PreDestroy
+    public void shutdown() {
+        refresher.shutdownNow();
+    }
+
+    // Fetches a new token and schedules the next background refresh; caller must hold refreshLock
+    private AccessToken refreshNow() throws IOException {
+        if (credentials == null) {
+            // The service account file is only read once for the lifetime of the application
+            try (InputStream in = new FileInputStream(CREDENTIALS_FILE)) {
+                credentials = GoogleCredentials.fromStream(in).createScoped(FormsScopes.all());
+            }
+        }
+        AccessToken token = callMetrics.time(CallMetrics.FORMS_CALLS, "tokenRefresh", credentials::refreshAccessToken);
+        cachedToken = token;
+        refreshes.incrementAndGet();
+
+        Date expiresAt = token.getExpirationTime();
+        if (expiresAt != null) {
+            long delay = expiresAt.getTime() - System.currentTimeMillis() - REFRESH_AHEAD_MILLIS;
+            scheduleRefresh(Math.max(delay, 0));
+        }
+        return token;
+    }
+
+    // Replaces any pending background refresh with one that runs after the given delay
+    private void scheduleRefresh(long delayMillis) {
+        if (scheduledRefresh != null) {
+            scheduledRefresh.cancel(false);
+        }
+        scheduledRefresh = refresher.schedule(this::refreshInBackground, delayMillis, TimeUnit.MILLISECONDS);
+    }
+
+    private void refreshInBackground() {
+        synchronized (refreshLock) {
+            try {
+                refreshNow();
+            } catch (IOException e) {
+                refreshFailures.incrementAndGet();
+                System.err.println("Background Google token refresh failed: " + e.getMessage());
+                scheduleRefresh(RETRY_DELAY_MILLIS);
+            }
+        }
+    }
+
+    // A token is usable if it exists and has not come within MIN_REMAINING_MILLIS of expiring
+    private boolean isUsable(AccessToken token) {
+        if (token == null) {
+            return false;
+        }
+        Date expiresAt = token.getExpirationTime();
+        return expiresAt == null || expiresAt.getTime() - System.currentTimeMillis() > MIN_REMAINING_MILLIS;
+    }
+}
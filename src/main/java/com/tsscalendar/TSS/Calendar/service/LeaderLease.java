@@ -0,0 +1,259 @@
+/**
+ * LeaderLease.java
+ *
+ * Elects one node to run the background jobs (form sync, reminders and the
+ * weekly digest) when several instances run behind a load balancer. The
+ * leader holds a lease stored in the "leases" collection: the holder's node
+ * ID, a fencing token and an expiry time. The leader renews it well before
+ * it expires; every other node keeps trying to take it and succeeds once it
+ * has expired, so a standby takes over within one lease length of the leader
+ * stopping.
+ *
+ * The fencing token goes up by one every time the lease changes hands.
+ * Writes that must only come from the current leader (the sync watermark)
+ * check the token in the same transaction, so a paused former leader whose
+ * lease ran out cannot overwrite the new leader's progress.
+ * A node stops calling itself leader a safety margin before its lease
+ * expires by its own clock, so a renewal failure never leaves two leaders.
+ *
+ * Sources:
+ * - Martin Kleppmann, How to do distributed locking: https://martin.kleppmann.com/2016/02/08/how-to-do-distributed-locking.html
+ * - Firestore transactions: https://firebase.google.com/docs/firestore/manage-data/transactions
+ *
+ * @author Artin Mehri
+ * @version 1.0
+ */
+package com.tsscalendar.TSS.Calendar.service;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import java.net.InetAddress;
+import java.net.UnknownHostException;
+import java.time.Instant;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Holds or waits for the background-job lease.
+ */
+@Service
+public class LeaderLease {
+
+    /**
+     * Document ID of the lease in the "leases" collection.
+     */
+    public static final String LEASE_ID = "background-jobs";
+
+    /**
+     * The stored state of a lease.
+     *
+     * @param holder          node ID of the leader
+     * @param token           fencing token, one higher for every new holder
+     * @param expiresAtMillis when the lease lapses unless renewed, in epoch milliseconds
+     */
+    public record Lease(String holder, long token, long expiresAtMillis) {
+    }
+
+    @Autowired
+    private Firestore firestoreService;
+
+    private final boolean enabled;
+    private final long leaseMillis;
+    private final long renewMillis;
+    private final String nodeId;
+    private final ScheduledExecutorService renewer = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "leader-lease");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private final AtomicLong acquisitions = new AtomicLong();
+    private final AtomicLong renewalFailures = new AtomicLong();
+
+    // The last lease read or written, and the nanoTime before which this node may act on it
+    private volatile Lease lease;
+    private volatile long validUntilNanos;
+
+    /**
+     * Creates the lease from the tss.lease.* properties.
+     *
+     * @pre renewSeconds is less than half of leaseSeconds
+     *
+     * @param enabled      false to run every job on this node without a lease, e.g. for a single instance (tss.lease.enabled)
+     * @param leaseSeconds how long a lease lasts without renewal, and so the longest takeover time (tss.lease.seconds)
+     * @param renewSeconds how often the leader renews and standbys retry (tss.lease.renew-seconds)
+     */
+    public LeaderLease(@Value("${tss.lease.enabled:true}") boolean enabled,
+                       @Value("${tss.lease.seconds:10}") long leaseSeconds,
+                       @Value("${tss.lease.renew-seconds:3}") long renewSeconds) {
+        if (renewSeconds <= 0 || renewSeconds * 2 >= leaseSeconds) {
+            throw new IllegalArgumentException("tss.lease.renew-seconds must be positive and less than half of tss.lease.seconds");
+        }
+        this.enabled = enabled;
+        this.leaseMillis = TimeUnit.SECONDS.toMillis(leaseSeconds);
+        this.renewMillis = TimeUnit.SECONDS.toMillis(renewSeconds);
+        this.nodeId = hostName() + "-" + UUID.randomUUID().toString().substring(0, 8);
+    }
+
+    /**
+     * Tries to take the lease now and then keeps renewing or retrying it.
+     */
+    @PostConstruct
+    public void start() {
+        if (enabled) {
+            renewer.scheduleWithFixedDelay(this::renew, 0, renewMillis, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    /**
+     * Stops renewing; the lease lapses and a standby takes over.
+     */
+    @PreDestroy
+    public void stop() {
+        renewer.shutdownNow();
+    }
+
+    /**
+     * Reports whether this node may run the background jobs right now.
+     *
+     * @return true if leases are disabled, or this node holds a lease that has not reached its safety margin
+     */
+    public boolean isLeader() {
+        if (!enabled) {
+            return true;
+        }
+        Lease current = lease;
+        return current != null && nodeId.equals(current.holder()) && System.nanoTime() - validUntilNanos < 0;
+    }
+
+    /**
+     * Returns the fencing token to attach to leader-only writes.
+     *
+     * @return the current lease's token, or 0 if leases are disabled
+     * @throws IllegalStateException if this node is not the leader
+     */
+    public long token() {
+        if (!enabled) {
+            return 0;
+        }
+        Lease current = lease;
+        if (!isLeader() || current == null) {
+            throw new IllegalStateException("Node " + nodeId + " does not hold the lease" + holderSuffix());
+        }
+        return current.token();
+    }
+
+    /**
+     * Reports whether leader election is on.
+     *
+     * @return the tss.lease.enabled setting
+     */
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Returns how often the leader renews and standbys retry the lease.
+     *
+     * @return the renew interval in milliseconds
+     */
+    public long getRenewMillis() {
+        return renewMillis;
+    }
+
+    /**
+     * Returns the node ID of the leader as last seen by this node.
+     *
+     * @return the holder, or null if no lease has been read yet
+     */
+    public String getHolder() {
+        Lease current = lease;
+        return current != null ? current.holder() : null;
+    }
+
+    /**
+     * Reports this node's view of the lease.
+     *
+     * @return map with enabled, nodeId, leader, holder, token, expiresAt, acquisitions and renewalFailures keys
+     */
+    public Map<String, Object> getStatus() {
+        Lease current = lease;
+        Map<String, Object> status = new LinkedHashMap<>();
+        status.put("enabled", enabled);
+        status.put("nodeId", nodeId);
+        status.put("leader", isLeader());
+        status.put("holder", current != null ? current.holder() : null);
+        status.put("token", current != null ? current.token() : null);
+        status.put("expiresAt", current != null ? Instant.ofEpochMilli(current.expiresAtMillis()).toString() : null);
+        status.put("acquisitions", acquisitions.get());
+        status.put("renewalFailures", renewalFailures.get());
+        return status;
+    }
+
+    /**
+     * Decides the lease after this node's attempt to take or renew it.
+     *
+     * @param current     the stored lease, or null if there is none
+     * @param nodeId      the node trying to take or renew it
+     * @param nowMillis   the current time
+     * @param leaseMillis the lease length
+     * @return the lease to store, or null if another node holds an unexpired lease;
+     *         an expired lease is taken with the next fencing token, even by its former holder
+     */
+    static Lease next(Lease current, String nodeId, long nowMillis, long leaseMillis) {
+        if (current == null) {
+            return new Lease(nodeId, 1, nowMillis + leaseMillis);
+        }
+        if (current.expiresAtMillis() <= nowMillis) {
+            return new Lease(nodeId, current.token() + 1, nowMillis + leaseMillis);
+        }
+        if (nodeId.equals(current.holder())) {
+            return new Lease(nodeId, current.token(), nowMillis + leaseMillis);
+        }
+        return null;
+    }
+
+    // Runs on the renewer thread: one transaction that takes, renews or just reads the lease
+    private void renew() {
+        long startedNanos = System.nanoTime();
+        boolean wasLeader = isLeader();
+        try {
+            Lease result = firestoreService.acquireLeaseAsync(LEASE_ID, nodeId, leaseMillis).get(renewMillis, TimeUnit.MILLISECONDS);
+            boolean holding = nodeId.equals(result.holder());
+            if (holding) {
+                // Measured from before the request, and one renewal short of the expiry, to absorb delay and clock skew
+                validUntilNanos = startedNanos + TimeUnit.MILLISECONDS.toNanos(leaseMillis - renewMillis);
+            }
+            Lease previous = lease;
+            lease = result;
+            if (holding && (previous == null || previous.token() != result.token())) {
+                acquisitions.incrementAndGet();
+                System.out.println("Node " + nodeId + " is now the leader (fencing token " + result.token() + ")");
+            } else if (!holding && wasLeader) {
+                System.out.println("Node " + nodeId + " lost the lease to " + result.holder());
+            }
+        } catch (Exception e) {
+            renewalFailures.incrementAndGet();
+            System.err.println("Lease renewal failed on " + nodeId + ": " + e.getMessage());
+        }
+    }
+
+    private String holderSuffix() {
+        String holder = getHolder();
+        return holder != null ? "; " + holder + " is the leader" : "";
+    }
+
+    private static String hostName() {
+        try {
+            return InetAddress.getLocalHost().getHostName();
+        } catch (UnknownHostException e) {
+            return "node";
+        }
+    }
+}
@@ -0,0 +1,257 @@
+/**
+ * RecurrenceExpander.java
+ *
+ * Expands weekly events into the dates they occur on within a window.
+ * Dates are produced lazily by iterators, so a window never has to be turned
+ * into a list unless the caller collects it. Expansions of short windows are
+ * cached per (event, window, skip dates), so callers with different skip
+ * dates never see each other's expansions.
+ *
+ * Sources:
+ * - Java Iterator: https://docs.oracle.com/en/java/javase/17/docs/api/java.base/java/util/Iterator.html
+ *
+ * @author Artin Mehri
+ * @version 1.0
+ */
+package com.tsscalendar.TSS.Calendar.service;
+import com.tsscalendar.TSS.Calendar.model.Event;
+import com.tsscalendar.TSS.Calendar.model.Occurrence;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.PriorityQueue;
+import java.util.Set;
+
+/**
+ * Produces the occurrences of one-off and weekly events inside a date window.
+ * Weekly events do not occur on skip dates (PA days, holidays); one-off events always do.
+ */
+public class RecurrenceExpander {
+
+    // Only windows up to this many days are cached, so a cached expansion holds at most ~60 dates
+    private static final int MAX_CACHED_WINDOW_DAYS = 400;
+    private static final Comparator<LocalTime> START_ORDER = Comparator.nullsFirst(Comparator.naturalOrder());
+
+    // The skip dates are part of the key: an expansion is only valid for the skip dates it was computed with
+    private record ExpansionKey(String eventId, LocalDate from, LocalDate to, Set<LocalDate> skipDates) {
+    }
+
+    private final int maxCachedExpansions;
+    // Access-ordered so the least recently used expansion is dropped first
+    private final Map<ExpansionKey, LocalDate[]> expansions;
+    // Incremented on every invalidation; an expansion is only cached if nothing changed while it ran
+    private long generation = 0;
+    private long hits = 0;
+    private long misses = 0;
+
+    /**
+     * Creates an expander with an empty cache.
+     *
+     * @pre maxCachedExpansions is greater than 0
+     *
+     * @param maxCachedExpansions maximum number of (event, window, skip dates) expansions kept
+     */
+    public RecurrenceExpander(int maxCachedExpansions) {
+        this.maxCachedExpansions = maxCachedExpansions;
+        this.expansions = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<ExpansionKey, LocalDate[]> eldest) {
+                return size() > RecurrenceExpander.this.maxCachedExpansions;
+            }
+        };
+    }
+
+    /**
+     * Lazily iterates the weekly dates of a series starting on first, restricted to [from, to].
+     * The first date in the window is computed directly, so earlier weeks are never visited.
+     *
+     * @param first     the date of the first occurrence of the series
+     * @param from      the first day of the window
+     * @param to        the last day of the window
+     * @param skipDates days on which the series does not occur
+     * @return iterator over the occurrence dates in ascending order
+     */
+    public static Iterator<LocalDate> weeklyDates(LocalDate first, LocalDate from, LocalDate to, Set<LocalDate> skipDates) {
+        LocalDate start = first;
+        if (first.isBefore(from)) {
+            long weeks = (ChronoUnit.DAYS.between(first, from) + 6) / 7;
+            start = first.plusWeeks(weeks);
+        }
+        LocalDate firstInWindow = start;
+
+        return new Iterator<>() {
+            private LocalDate next = advance(firstInWindow);
+
+            private LocalDate advance(LocalDate candidate) {
+                while (!candidate.isAfter(to) && skipDates.contains(candidate)) {
+                    candidate = candidate.plusWeeks(1);
+                }
+                return candidate.isAfter(to) ? null : candidate;
+            }
+
+            @Override
+            public boolean hasNext() {
+                return next != null;
+            }
+
+            @Override
+            public LocalDate next() {
+                if (next == null) {
+                    throw new NoSuchElementException();
+                }
+                LocalDate current = next;
+                next = advance(current.plusWeeks(1));
+                return current;
+            }
+        };
+    }
+
+    /**
+     * Iterates the dates one event occurs on within [from, to].
+     * Weekly expansions of short windows are served from, and added to, the cache.
+     *
+     * @param event     the event to expand
+     * @param from      the first day of the window
+     * @param to        the last day of the window
+     * @param skipDates days on which weekly events do not occur
+     * @return iterator over the occurrence dates in ascending order
+     */
+    public Iterator<LocalDate> dates(Event event, LocalDate from, LocalDate to, Set<LocalDate> skipDates) {
+        LocalDate date = event.localDate();
+        if (date == null || date.isAfter(to)) {
+            return Collections.emptyIterator();
+        }
+        if (!Boolean.TRUE.equals(event.weekly())) {
+            return date.isBefore(from) ? Collections.emptyIterator() : List.of(date).iterator();
+        }
+        if (event.id() == null || ChronoUnit.DAYS.between(from, to) > MAX_CACHED_WINDOW_DAYS) {
+            return weeklyDates(date, from, to, skipDates);
+        }
+
+        ExpansionKey key = new ExpansionKey(event.id(), from, to, skipDates);
+        long startGeneration;
+        synchronized (this) {
+            LocalDate[] cached = expansions.get(key);
+            if (cached != null) {
+                hits++;
+                return List.of(cached).iterator();
+            }
+            misses++;
+            startGeneration = generation;
+        }
+
+        LocalDate[] expanded = toArray(weeklyDates(date, from, to, skipDates));
+        synchronized (this) {
+            if (generation == startGeneration) {
+                // Copied so a caller changing its set afterwards cannot alter the key
+                expansions.put(new ExpansionKey(key.eventId(), from, to, Set.copyOf(skipDates)), expanded);
+            }
+        }
+        return List.of(expanded).iterator();
+    }
+
+    /**
+     * Lazily merges the occurrences of many events into one stream ordered by date, then start time.
+     * At most one pending occurrence per event is held at a time.
+     *
+     * @param events    the events to expand
+     * @param from      the first day of the window
+     * @param to        the last day of the window
+     * @param skipDates days on which weekly events do not occur
+     * @return iterator over the occurrences in chronological order
+     */
+    public Iterator<Occurrence> occurrences(List<Event> events, LocalDate from, LocalDate to, Set<LocalDate> skipDates) {
+        PriorityQueue<Cursor> queue = new PriorityQueue<>(Math.max(1, events.size()),
+                Comparator.comparing((Cursor c) -> c.current)
+                        .thenComparing(c -> c.start, START_ORDER));
+        for (Event event : events) {
+            Iterator<LocalDate> dates = dates(event, from, to, skipDates);
+            if (dates.hasNext()) {
+                queue.add(new Cursor(event, dates));
+            }
+        }
+
+        return new Iterator<>() {
+            @Override
+            public boolean hasNext() {
+                return !queue.isEmpty();
+            }
+
+            @Override
+            public Occurrence next() {
+                Cursor cursor = queue.poll();
+                if (cursor == null) {
+                    throw new NoSuchElementException();
+                }
+                Occurrence occurrence = new Occurrence(cursor.current, cursor.event);
+                if (cursor.dates.hasNext()) {
+                    cursor.current = cursor.dates.next();
+                    queue.add(cursor);
+                }
+                return occurrence;
+            }
+        };
+    }
+
+    /**
+     * Drops every cached expansion of one event, e.g. after it was edited or removed.
+     *
+     * @param eventId the Firestore document ID
+     */
+    public synchronized void invalidate(String eventId) {
+        generation++;
+        expansions.keySet().removeIf(key -> key.eventId().equals(eventId));
+    }
+
+    /**
+     * Drops every cached expansion, e.g. when the event listener restarts.
+     */
+    public synchronized void clear() {
+        generation++;
+        expansions.clear();
+    }
+
+    /**
+     * Reports cache size, hits and misses.
+     *
+     * @return map of metric names to values
+     */
+    public synchronized Map<String, Object> getMetrics() {
+        Map<String, Object> metrics = new HashMap<>();
+        metrics.put("cachedExpansions", expansions.size());
+        metrics.put("maxCachedExpansions", maxCachedExpansions);
+        metrics.put("hits", hits);
+        metrics.put("misses", misses);
+        return metrics;
+    }
+
+    private static LocalDate[] toArray(Iterator<LocalDate> dates) {
+        List<LocalDate> list = new ArrayList<>();
+        dates.forEachRemaining(list::add);
+        return list.toArray(new LocalDate[0]);
+    }
+
+    // Position of one event's date iterator inside the merge
+    private static final class Cursor {
+        private final Event event;
+        private final Iterator<LocalDate> dates;
+        private final LocalTime start;
+        private LocalDate current;
+
+        private Cursor(Event event, Iterator<LocalDate> dates) {
+            this.event = event;
+            this.dates = dates;
+            this.start = event.localStartTime();
+            this.current = dates.next();
+        }
+    }
+}
@@ -0,0 +1,461 @@
+/**
+ * ReminderScheduler.java
+ *
+ * Emails reminders ahead of approved events at configurable lead times.
+ * Every pending reminder sits on one TimingWheel driven by a single ticker
+ * thread, so thousands of events cost no scheduled task each. The schedule
+ * follows the events snapshot listener: approving, declining, editing or
+ * deleting an event cancels its reminders and plans them again. Weekly events
+ * are expanded a few days ahead at a time (the horizon), which is extended
+ * as the days pass.
+ *
+ * Nothing about the schedule is persisted. After a restart it is planned
+ * again from the approved events; if the shortest-lead reminder of an event
+ * came due while the server was down, it is sent late as long as the event
+ * has not started. Each reminder is
+ * claimed by creating a marker document in the "reminders" collection before
+ * it is sent, so a reminder is sent once however often it is planned.
+ * Every instance keeps its wheel current, but only the holder of the
+ * LeaderLease sends. A standby puts its due reminders back on the wheel for
+ * the next tick until their occurrence starts, so reminders that come due
+ * while the lease changes hands are sent by whichever node takes it; the
+ * marker keeps them from being sent twice.
+ *
+ * @author Artin Mehri
+ * @version 1.0
+ */
+package com.tsscalendar.TSS.Calendar.service;
+import com.google.cloud.firestore.DocumentChange;
+import com.tsscalendar.TSS.Calendar.model.EmailMessage;
+import com.tsscalendar.TSS.Calendar.model.Event;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.time.ZoneId;
+import java.time.ZonedDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Plans, tracks and sends event reminders.
+ */
+@Service
+public class ReminderScheduler {
+
+    /**
+     * One planned reminder.
+     *
+     * @param id       marker document ID, unique per event, occurrence date and lead time
+     * @param eventId  the event's document ID
+     * @param date     the occurrence date
+     * @param lead     how long before the start the reminder is sent
+     * @param startsAt when the occurrence starts
+     */
+    record Reminder(String id, String eventId, LocalDate date, Duration lead, Instant startsAt) {
+    }
+
+    // Event dates and times are school-local
+    private static final ZoneId ZONE = ZoneId.of("America/Toronto");
+    // Events without a readable start time are taken to start with the school day
+    private static final LocalTime DEFAULT_START = LocalTime.of(8, 0);
+    // Buckets on the wheel; at one-minute ticks a revolution is about 2.8 days
+    private static final int WHEEL_SIZE = 4096;
+
+    @Autowired
+    private Firestore firestoreService;
+
+    @Autowired
+    private EventOccurrences eventOccurrences;
+
+    @Autowired
+    private EmailTemplates emailTemplates;
+
+    @Autowired
+    private EmailDispatchService emailDispatchService;
+
+    @Autowired
+    private SubscriptionService subscriptionService;
+
+    @Autowired
+    private LeaderLease leaderLease;
+
+    private final List<Duration> leadTimes;
+    private final int horizonDays;
+    private final long tickMillis;
+    private final TimingWheel<String, Reminder> wheel;
+
+    // Guarded by this: the approved events, the reminder IDs planned for each, and how far ahead they are planned
+    private final Map<String, Event> approved = new HashMap<>();
+    private final Map<String, List<String>> reminderIds = new HashMap<>();
+    // Events the listener reported since the last full load; a slower load must not overwrite them
+    private final Set<String> seenByListener = new HashSet<>();
+    private Set<LocalDate> skipDates = Set.of();
+    private LocalDate plannedThrough;
+    private boolean reloadRequested;
+
+    private final AtomicLong fired = new AtomicLong();
+    private final AtomicLong sent = new AtomicLong();
+    private final AtomicLong alreadySent = new AtomicLong();
+    private final AtomicLong noRecipients = new AtomicLong();
+    private final AtomicLong failed = new AtomicLong();
+    private final AtomicLong deferredOnStandby = new AtomicLong();
+    private final AtomicLong expiredOnStandby = new AtomicLong();
+
+    private ScheduledExecutorService ticker;
+
+    /**
+     * Creates the scheduler from the tss.reminders.* properties.
+     *
+     * @param leadTimes   ISO-8601 durations before the start to send a reminder at, e.g. P1D,PT1H
+     * @param horizonDays days ahead that reminders are planned; raised to exceed the longest lead time
+     * @param tickSeconds resolution of the timing wheel
+     */
+    public ReminderScheduler(@Value("${tss.reminders.lead-times:P1D,PT1H}") String[] leadTimes,
+                             @Value("${tss.reminders.horizon-days:14}") int horizonDays,
+                             @Value("${tss.reminders.tick-seconds:60}") int tickSeconds) {
+        List<Duration> leads = new ArrayList<>();
+        for (String leadTime : leadTimes) {
+            if (!leadTime.isBlank()) {
+                leads.add(Duration.parse(leadTime.trim()));
+            }
+        }
+        Collections.sort(leads);
+        this.leadTimes = List.copyOf(leads);
+        long longestLeadDays = leads.isEmpty() ? 0 : leads.get(leads.size() - 1).toDays();
+        this.horizonDays = (int) Math.max(horizonDays, longestLeadDays + 1);
+        this.tickMillis = TimeUnit.SECONDS.toMillis(Math.max(1, tickSeconds));
+
+        this.wheel = new TimingWheel<>(tickMillis, WHEEL_SIZE, System.currentTimeMillis());
+    }
+
+    /**
+     * Follows event changes, loads the approved events and starts the ticker.
+     *
+     * @post reminders of approved events are planned asynchronously and sent until shutdown
+     */
+    @PostConstruct
+    public void start() {
+        synchronized (this) {
+            plannedThrough = today().plusDays(horizonDays);
+        }
+        firestoreService.addEventChangeListener(new EventChangeListener() {
+            @Override
+            public void onEventChanges(List<DocumentChange> changes) {
+                applyChanges(changes);
+            }
+
+            @Override
+            public void onListenerReset() {
+                synchronized (ReminderScheduler.this) {
+                    reloadRequested = true;
+                }
+            }
+        });
+        reload();
+
+        ticker = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "reminder-ticker");
+            thread.setDaemon(true);
+            return thread;
+        });
+        ticker.scheduleAtFixedRate(this::tick, tickMillis, tickMillis, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Stops the ticker; pending reminders are planned again on the next start.
+     */
+    @PreDestroy
+    public void close() {
+        if (ticker != null) {
+            ticker.shutdownNow();
+        }
+    }
+
+    /**
+     * Reports planned, sent and skipped reminder counters.
+     *
+     * @return map of metric names to values
+     */
+    public Map<String, Object> getMetrics() {
+        Map<String, Object> metrics = new LinkedHashMap<>();
+        synchronized (this) {
+            metrics.put("approvedEvents", approved.size());
+            metrics.put("plannedThrough", String.valueOf(plannedThrough));
+        }
+        metrics.put("pending", wheel.size());
+        metrics.put("leadTimes", leadTimes.stream().map(Duration::toString).toList());
+        metrics.put("fired", fired.get());
+        metrics.put("sent", sent.get());
+        metrics.put("alreadySent", alreadySent.get());
+        metrics.put("noRecipients", noRecipients.get());
+        metrics.put("failed", failed.get());
+        metrics.put("deferredOnStandby", deferredOnStandby.get());
+        metrics.put("expiredOnStandby", expiredOnStandby.get());
+        return metrics;
+    }
+
+    /**
+     * Plans the reminders of one event in a date window.
+     * Reminders of occurrences that already started are left out, and so are reminders already due
+     * except the one with the shortest lead, so a late plan sends at most one reminder per occurrence.
+     *
+     * @param event     the approved event
+     * @param from      first occurrence date to plan
+     * @param to        last occurrence date to plan
+     * @param skipDates dates weekly events do not take place
+     * @param now       the current time
+     * @return the reminders, each due at startsAt minus lead
+     */
+    List<Reminder> plan(Event event, LocalDate from, LocalDate to, Set<LocalDate> skipDates, Instant now) {
+        LocalDate first = event.localDate();
+        if (first == null || from.isAfter(to)) {
+            return List.of();
+        }
+        Iterator<LocalDate> dates;
+        if (Boolean.TRUE.equals(event.weekly())) {
+            dates = RecurrenceExpander.weeklyDates(first, from, to, skipDates);
+        } else if (!first.isBefore(from) && !first.isAfter(to)) {
+            dates = List.of(first).iterator();
+        } else {
+            return List.of();
+        }
+
+        LocalTime start = event.localStartTime() != null ? event.localStartTime() : DEFAULT_START;
+        List<Reminder> reminders = new ArrayList<>();
+        while (dates.hasNext()) {
+            LocalDate date = dates.next();
+            Instant startsAt = ZonedDateTime.of(date, start, ZONE).toInstant();
+            if (!startsAt.isAfter(now)) {
+                continue;
+            }
+            for (int i = 0; i < leadTimes.size(); i++) {
+                Duration lead = leadTimes.get(i);
+                if (i > 0 && !startsAt.minus(lead).isAfter(now)) {
+                    continue;
+                }
+                String id = event.id() + "_" + date + "_" + lead.toMinutes() + "m";
+                reminders.add(new Reminder(id, event.id(), date, lead, startsAt));
+            }
+        }
+        return reminders;
+    }
+
+    // Applies listener changes: every changed event loses its reminders and approved ones are planned again
+    private synchronized void applyChanges(List<DocumentChange> changes) {
+        Instant now = Instant.now();
+        for (DocumentChange change : changes) {
+            String eventId = change.getDocument().getId();
+            seenByListener.add(eventId);
+            Event event = change.getType() == DocumentChange.Type.REMOVED ? null : Event.fromSnapshot(change.getDocument());
+            replaceEvent(eventId, event != null && "approved".equals(event.status()) ? event : null, now);
+        }
+        refreshSkipDates(now);
+    }
+
+    // Reads every approved event and replaces the plan, keeping events the listener reported meanwhile
+    private void reload() {
+        synchronized (this) {
+            seenByListener.clear();
+        }
+        firestoreService.getEventsByStatusAsync("approved", true).whenComplete((events, error) -> {
+            if (error != null) {
+                System.err.println("Failed to load approved events for reminders: " + error.getMessage());
+                synchronized (this) {
+                    reloadRequested = true;
+                }
+                return;
+            }
+            loadApproved(events);
+        });
+    }
+
+    private synchronized void loadApproved(List<Event> events) {
+        Instant now = Instant.now();
+        Set<String> loadedIds = new HashSet<>();
+        for (Event event : events) {
+            loadedIds.add(event.id());
+            if (!seenByListener.contains(event.id())) {
+                replaceEvent(event.id(), event, now);
+            }
+        }
+        for (String eventId : new ArrayList<>(approved.keySet())) {
+            if (!loadedIds.contains(eventId) && !seenByListener.contains(eventId)) {
+                replaceEvent(eventId, null, now);
+            }
+        }
+        refreshSkipDates(now);
+        System.out.println("Planned " + wheel.size() + " reminders for " + approved.size() + " approved events");
+    }
+
+    // Cancels an event's reminders and, if the event is given, plans them again up to the horizon
+    private void replaceEvent(String eventId, Event event, Instant now) {
+        List<String> ids = reminderIds.remove(eventId);
+        if (ids != null) {
+            for (String id : ids) {
+                wheel.cancel(id);
+            }
+        }
+        if (event == null) {
+            approved.remove(eventId);
+            return;
+        }
+        approved.put(eventId, event);
+        schedule(event, today(), plannedThrough, now);
+    }
+
+    private void schedule(Event event, LocalDate from, LocalDate to, Instant now) {
+        for (Reminder reminder : plan(event, from, to, skipDates, now)) {
+            wheel.schedule(reminder.id(), reminder.startsAt().minus(reminder.lead()).toEpochMilli(), reminder);
+            reminderIds.computeIfAbsent(event.id(), id -> new ArrayList<>()).add(reminder.id());
+        }
+    }
+
+    // Weekly events are planned again when a PA day or holiday is added or removed
+    private void refreshSkipDates(Instant now) {
+        Set<LocalDate> current = eventOccurrences.findSkipDates(new ArrayList<>(approved.values()));
+        if (current.equals(skipDates)) {
+            return;
+        }
+        skipDates = current;
+        for (Event event : new ArrayList<>(approved.values())) {
+            if (Boolean.TRUE.equals(event.weekly())) {
+                replaceEvent(event.id(), event, now);
+            }
+        }
+    }
+
+    // Runs on the ticker thread: extends the horizon, reloads after a listener failure, and sends due reminders
+    private void tick() {
+        try {
+            Instant now = Instant.now();
+            boolean reload;
+            synchronized (this) {
+                LocalDate horizon = today().plusDays(horizonDays);
+                if (horizon.isAfter(plannedThrough)) {
+                    LocalDate from = plannedThrough.plusDays(1);
+                    for (Event event : approved.values()) {
+                        schedule(event, from, horizon, now);
+                    }
+                    plannedThrough = horizon;
+                }
+                reload = reloadRequested;
+                reloadRequested = false;
+            }
+            if (reload) {
+                reload();
+            }
+            List<Reminder> due = wheel.advance(now.toEpochMilli());
+            if (!leaderLease.isLeader()) {
+                deferDue(due, now);
+                return;
+            }
+            for (Reminder reminder : due) {
+                send(reminder);
+            }
+        } catch (RuntimeException e) {
+            System.err.println("Reminder tick failed: " + e.getMessage());
+        }
+    }
+
+    // Puts due reminders back on the wheel for the next tick, unless they were cancelled meanwhile or their occurrence started
+    private synchronized void deferDue(List<Reminder> due, Instant now) {
+        for (Reminder reminder : due) {
+            List<String> ids = reminderIds.get(reminder.eventId());
+            if (ids == null || !ids.contains(reminder.id())) {
+                continue;
+            }
+            if (!reminder.startsAt().isAfter(now)) {
+                ids.remove(reminder.id());
+                expiredOnStandby.incrementAndGet();
+                continue;
+            }
+            wheel.schedule(reminder.id(), now.toEpochMilli(), reminder);
+            deferredOnStandby.incrementAndGet();
+        }
+    }
+
+    // Claims the reminder's marker, then renders and queues one email per recipient
+    private void send(Reminder reminder) {
+        fired.incrementAndGet();
+        Event event;
+        synchronized (this) {
+            event = approved.get(reminder.eventId());
+            List<String> ids = reminderIds.get(reminder.eventId());
+            if (ids != null) {
+                ids.remove(reminder.id());
+            }
+        }
+        if (event == null) {
+            return;
+        }
+        List<String> recipients = subscriptionService.recipientsFor(event);
+        if (recipients.isEmpty()) {
+            noRecipients.incrementAndGet();
+            return;
+        }
+
+        Map<String, Object> marker = new HashMap<>();
+        marker.put("eventId", reminder.eventId());
+        marker.put("date", reminder.date().toString());
+        marker.put("leadMinutes", reminder.lead().toMinutes());
+        marker.put("sentAt", Instant.now().toString());
+        firestoreService.claimReminderAsync(reminder.id(), marker).whenComplete((claimed, error) -> {
+            if (error != null) {
+                failed.incrementAndGet();
+                System.err.println("Failed to claim reminder " + reminder.id() + ": " + error.getMessage());
+                return;
+            }
+            if (!claimed) {
+                alreadySent.incrementAndGet();
+                return;
+            }
+            // Weekly reminders show the date of this occurrence
+            Event occurrence = event.onDate(reminder.date());
+            List<EmailMessage> emails = emailTemplates.renderEventEmails(occurrence,
+                    "Reminder: " + event.title() + " " + leadLabel(reminder.lead()), recipients);
+            try {
+                emailDispatchService.submit(emails);
+                sent.incrementAndGet();
+            } catch (RuntimeException e) {
+                failed.incrementAndGet();
+                System.err.println("Failed to queue reminder " + reminder.id() + ": " + e.getMessage());
+            }
+        });
+    }
+
+    // "in 1 day", "in 2 hours", "in 30 minutes"
+    private static String leadLabel(Duration lead) {
+        if (lead.toDays() > 0 && lead.toHours() % 24 == 0) {
+            return plural(lead.toDays(), "day");
+        }
+        if (lead.toHours() > 0 && lead.toMinutes() % 60 == 0) {
+            return plural(lead.toHours(), "hour");
+        }
+        return plural(lead.toMinutes(), "minute");
+    }
+
+    private static String plural(long count, String unit) {
+        return "in " + count + " " + unit + (count == 1 ? "" : "s");
+    }
+
+    private static LocalDate today() {
+        return LocalDate.now(ZONE);
+    }
+}
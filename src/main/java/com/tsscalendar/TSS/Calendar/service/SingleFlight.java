@@ -0,0 +1,115 @@
+/**
+ * SingleFlight.java
+ *
+ * Runs at most one instance of a task at a time. A caller that asks for the
+ * task while it is running gets the running instance's future instead of
+ * starting another one, so concurrent triggers share one result.
+ *
+ * Sources:
+ * - Go singleflight package: https://pkg.go.dev/golang.org/x/sync/singleflight
+ *
+ * @author Artin Mehri
+ * @version 1.0
+ */
+package com.tsscalendar.TSS.Calendar.service;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Supplier;
+
+/**
+ * Coalesces concurrent runs of a task into one.
+ *
+ * @param <T> the task's result type
+ */
+public class SingleFlight<T> {
+
+    /**
+     * The future of a run and whether the caller joined a run that was already in progress.
+     *
+     * @param result completes with the run's result or failure
+     * @param joined true if the caller shares a run started by someone else
+     */
+    public record Flight<T>(CompletableFuture<T> result, boolean joined) {
+    }
+
+    private final Executor executor;
+    private final AtomicReference<CompletableFuture<T>> inFlight = new AtomicReference<>();
+    private final AtomicLong started = new AtomicLong();
+    private final AtomicLong joined = new AtomicLong();
+
+    /**
+     * Creates a single-flight guard.
+     *
+     * @param executor runs the task
+     */
+    public SingleFlight(Executor executor) {
+        this.executor = executor;
+    }
+
+    /**
+     * Starts the task, or joins the run already in progress.
+     *
+     * @param task the task; only called if no run is in progress
+     * @return the run's future and whether it was joined
+     */
+    public Flight<T> run(Supplier<T> task) {
+        CompletableFuture<T> run = new CompletableFuture<>();
+        CompletableFuture<T> current = inFlight.compareAndExchange(null, run);
+        if (current != null) {
+            joined.incrementAndGet();
+            return new Flight<>(current, true);
+        }
+        started.incrementAndGet();
+        try {
+            executor.execute(() -> {
+                T result = null;
+                Throwable error = null;
+                try {
+                    result = task.get();
+                } catch (Throwable t) {
+                    error = t;
+                }
+                // Cleared before completing, so a caller reacting to the result can start the next run
+                inFlight.set(null);
+                if (error == null) {
+                    run.complete(result);
+                } else {
+                    run.completeExceptionally(error);
+                }
+            });
+        } catch (RuntimeException e) {
+            inFlight.set(null);
+            run.completeExceptionally(e);
+        }
+        return new Flight<>(run, false);
+    }
+
+    /**
+     * Reports whether a run is in progress.
+     *
+     * @return true while a run has not completed
+     */
+    public boolean isRunning() {
+        return inFlight.get() != null;
+    }
+
+    /**
+     * Returns the number of runs started.
+     *
+     * @return runs started
+     */
+    public long getStarted() {
+        return started.get();
+    }
+
+    /**
+     * Returns the number of calls that joined a run in progress.
+     *
+     * @return calls coalesced into an earlier run
+     */
+    public long getJoined() {
+        return joined.get();
+    }
+}
@@ -0,0 +1,259 @@
+/**
+ * SubscriptionIndex.java
+ *
+ * In-memory index from categories and supervisors to the recipients who
+ * follow them. Every recipient gets a small integer ID, and each category and
+ * supervisor keeps a bitset of the IDs following it, so the audience of an
+ * event is the OR of at most three bitsets (its category, its supervisor, and
+ * the recipients who follow everything) instead of a scan of every
+ * subscription. IDs of removed recipients are reused to keep the bitsets dense.
+ *
+ * Sources:
+ * - Java BitSet: https://docs.oracle.com/en/java/javase/17/docs/api/java.base/java/util/BitSet.html
+ * - Bitmap indexes: https://en.wikipedia.org/wiki/Bitmap_index
+ *
+ * @author Artin Mehri
+ * @version 1.0
+ */
+package com.tsscalendar.TSS.Calendar.service;
+import com.tsscalendar.TSS.Calendar.model.Event;
+import com.tsscalendar.TSS.Calendar.model.Subscription;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Thread-safe bitset index of subscriptions.
+ */
+public class SubscriptionIndex {
+
+    // Recipient ID -> subscription; null for free IDs
+    private final List<Subscription> byId = new ArrayList<>();
+    private final Map<String, Integer> idByEmail = new HashMap<>();
+    private final Deque<Integer> freeIds = new ArrayDeque<>();
+    private final Map<String, BitSet> byCategory = new HashMap<>();
+    private final Map<String, BitSet> bySupervisor = new HashMap<>();
+    // Recipients that follow neither a category nor a supervisor receive every event
+    private final BitSet everything = new BitSet();
+
+    /**
+     * Creates an empty index.
+     */
+    public SubscriptionIndex() {
+    }
+
+    /**
+     * Creates an index of the given subscriptions.
+     *
+     * @param subscriptions the subscriptions; a later one replaces an earlier one with the same email
+     */
+    public SubscriptionIndex(List<Subscription> subscriptions) {
+        for (Subscription subscription : subscriptions) {
+            put(subscription);
+        }
+    }
+
+    /**
+     * Adds a subscription or replaces the one with the same email.
+     *
+     * @param subscription the subscription
+     */
+    public synchronized void put(Subscription subscription) {
+        String email = key(subscription.email());
+        Integer existing = idByEmail.get(email);
+        int id;
+        if (existing != null) {
+            id = existing;
+            unindex(id);
+        } else {
+            id = freeIds.isEmpty() ? byId.size() : freeIds.pop();
+            if (id == byId.size()) {
+                byId.add(null);
+            }
+            idByEmail.put(email, id);
+        }
+        byId.set(id, subscription);
+
+        if (subscription.categories().isEmpty() && subscription.supervisors().isEmpty()) {
+            everything.set(id);
+        }
+        for (String category : subscription.categories()) {
+            byCategory.computeIfAbsent(key(category), k -> new BitSet()).set(id);
+        }
+        for (String supervisor : subscription.supervisors()) {
+            bySupervisor.computeIfAbsent(key(supervisor), k -> new BitSet()).set(id);
+        }
+    }
+
+    /**
+     * Removes the subscription of an email.
+     *
+     * @param email the recipient address, compared case-insensitively
+     * @return true if it was subscribed
+     */
+    public synchronized boolean remove(String email) {
+        Integer id = idByEmail.remove(key(email));
+        if (id == null) {
+            return false;
+        }
+        unindex(id);
+        byId.set(id, null);
+        freeIds.push(id);
+        return true;
+    }
+
+    /**
+     * Finds the audience of an event.
+     *
+     * @param event the event
+     * @return IDs of the recipients following the event's category or supervisor, or everything;
+     *         look them up with {@link #get(int)}
+     */
+    public synchronized BitSet match(Event event) {
+        BitSet audience = (BitSet) everything.clone();
+        if (event.category() != null) {
+            BitSet category = byCategory.get(key(event.category()));
+            if (category != null) {
+                audience.or(category);
+            }
+        }
+        if (event.supervisor() != null) {
+            BitSet supervisor = bySupervisor.get(key(event.supervisor()));
+            if (supervisor != null) {
+                audience.or(supervisor);
+            }
+        }
+        return audience;
+    }
+
+    /**
+     * Returns the email addresses an event goes to.
+     *
+     * @param event the event
+     * @return the matching recipients' addresses
+     */
+    public synchronized List<String> recipientsFor(Event event) {
+        BitSet audience = match(event);
+        List<String> recipients = new ArrayList<>(audience.cardinality());
+        for (int id = audience.nextSetBit(0); id >= 0; id = audience.nextSetBit(id + 1)) {
+            recipients.add(byId.get(id).email());
+        }
+        return recipients;
+    }
+
+    /**
+     * Returns the subscription with an ID.
+     *
+     * @param id a recipient ID from {@link #match}
+     * @return the subscription, or null if the ID is free
+     */
+    public synchronized Subscription get(int id) {
+        return id < byId.size() ? byId.get(id) : null;
+    }
+
+    /**
+     * Returns the subscription of an email.
+     *
+     * @param email the recipient address, compared case-insensitively
+     * @return the subscription, or null if not subscribed
+     */
+    public synchronized Subscription get(String email) {
+        Integer id = idByEmail.get(key(email));
+        return id != null ? byId.get(id) : null;
+    }
+
+    /**
+     * Returns the number of subscriptions.
+     *
+     * @return subscribed recipients
+     */
+    public synchronized int size() {
+        return idByEmail.size();
+    }
+
+    /**
+     * Returns one more than the highest recipient ID in use, the length bitsets from {@link #match} can reach.
+     *
+     * @return the ID range
+     */
+    public synchronized int idRange() {
+        return byId.size();
+    }
+
+    /**
+     * Copies the index, e.g. so a long job sees the same recipients throughout.
+     *
+     * @return an independent copy with the same recipient IDs
+     */
+    public synchronized SubscriptionIndex copy() {
+        SubscriptionIndex copy = new SubscriptionIndex();
+        copy.byId.addAll(byId);
+        copy.idByEmail.putAll(idByEmail);
+        copy.freeIds.addAll(freeIds);
+        byCategory.forEach((category, ids) -> copy.byCategory.put(category, (BitSet) ids.clone()));
+        bySupervisor.forEach((supervisor, ids) -> copy.bySupervisor.put(supervisor, (BitSet) ids.clone()));
+        copy.everything.or(everything);
+        return copy;
+    }
+
+    /**
+     * Counts the followers of each category.
+     *
+     * @return normalized category to number of recipients, sorted by category
+     */
+    public synchronized Map<String, Integer> categoryCounts() {
+        Map<String, Integer> counts = new TreeMap<>();
+        byCategory.forEach((category, ids) -> counts.put(category, ids.cardinality()));
+        return counts;
+    }
+
+    /**
+     * Removes every subscription.
+     */
+    public synchronized void clear() {
+        byId.clear();
+        idByEmail.clear();
+        freeIds.clear();
+        byCategory.clear();
+        bySupervisor.clear();
+        everything.clear();
+    }
+
+    // Clears the recipient's bit everywhere; emptied bitsets are dropped
+    private void unindex(int id) {
+        Subscription subscription = byId.get(id);
+        everything.clear(id);
+        for (String category : subscription.categories()) {
+            clearBit(byCategory, key(category), id);
+        }
+        for (String supervisor : subscription.supervisors()) {
+            clearBit(bySupervisor, key(supervisor), id);
+        }
+    }
+
+    private static void clearBit(Map<String, BitSet> index, String key, int id) {
+        BitSet ids = index.get(key);
+        if (ids != null) {
+            ids.clear(id);
+            if (ids.isEmpty()) {
+                index.remove(key);
+            }
+        }
+    }
+
+    /**
+     * Normalizes an email, category or supervisor for comparison.
+     *
+     * @param value the raw value
+     * @return the value trimmed and lower-cased
+     */
+    public static String key(String value) {
+        return value.trim().toLowerCase(Locale.ROOT);
+    }
+}
@@ -0,0 +1,265 @@
+/**
+ * SubscriptionService.java
+ *
+ * Stores recipients' category and supervisor subscriptions in the
+ * "subscriptions" collection (one document per email) and keeps them in a
+ * local SubscriptionIndex. A snapshot listener keeps the index current, so
+ * matching an event to its audience never reads Firestore.
+ *
+ * Sources:
+ * - Firestore realtime listeners: https://firebase.google.com/docs/firestore/query-data/listen
+ *
+ * @author Artin Mehri
+ * @version 1.0
+ */
+package com.tsscalendar.TSS.Calendar.service;
+import com.google.cloud.firestore.DocumentChange;
+import com.google.cloud.firestore.DocumentSnapshot;
+import com.google.cloud.firestore.FirestoreException;
+import com.google.cloud.firestore.ListenerRegistration;
+import com.google.cloud.firestore.QueryDocumentSnapshot;
+import com.google.cloud.firestore.QuerySnapshot;
+import com.google.firebase.cloud.FirestoreClient;
+import com.tsscalendar.TSS.Calendar.model.Event;
+import com.tsscalendar.TSS.Calendar.model.Subscription;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Reads, writes and matches subscriptions.
+ */
+@Service
+public class SubscriptionService {
+
+    /**
+     * The normalized event categories a recipient can follow.
+     */
+    public static final List<String> CATEGORIES = List.of("Academics", "Clubs", "Student Life", "Sports");
+
+    private static final String COLLECTION = "subscriptions";
+    // Delay before re-registering the listener after it fails
+    private static final long LISTENER_RETRY_SECONDS = 30;
+
+    // Injected so Firebase is initialized before the listener starts
+    @Autowired
+    private Firestore firestoreService;
+
+    private final SubscriptionIndex index = new SubscriptionIndex();
+    private final ScheduledExecutorService listenerRetry = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "subscriptions-listener-retry");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private ListenerRegistration listener;
+    // True until the first snapshot after (re)starting the listener, which replaces the whole index
+    private volatile boolean awaitingFullSnapshot = true;
+    private volatile boolean loaded;
+
+    /**
+     * Registers the snapshot listener on the "subscriptions" collection.
+     *
+     * @post the index is filled asynchronously and kept current until shutdown
+     */
+    @PostConstruct
+    public synchronized void startListener() {
+        awaitingFullSnapshot = true;
+        listener = FirestoreClient.getFirestore().collection(COLLECTION).addSnapshotListener(this::onChanged);
+    }
+
+    /**
+     * Removes the listener when the application shuts down.
+     */
+    @PreDestroy
+    public synchronized void stopListener() {
+        listenerRetry.shutdownNow();
+        if (listener != null) {
+            listener.remove();
+            listener = null;
+        }
+    }
+
+    /**
+     * Creates or replaces the subscription of an email.
+     *
+     * @param subscription the email and the categories and supervisors it follows
+     * @return future completing when the subscription is stored, or failing with IllegalArgumentException
+     *         if the email is invalid or a category is unknown
+     */
+    public CompletableFuture<Subscription> subscribe(Subscription subscription) {
+        Subscription normalized;
+        try {
+            normalized = normalize(subscription);
+        } catch (IllegalArgumentException e) {
+            return CompletableFuture.failedFuture(e);
+        }
+        Map<String, Object> data = new HashMap<>();
+        data.put("email", normalized.email());
+        data.put("categories", new ArrayList<>(normalized.categories()));
+        data.put("supervisors", new ArrayList<>(normalized.supervisors()));
+
+        return firestoreService.write("subscribe", () -> FirestoreClient.getFirestore().collection(COLLECTION)
+                        .document(SubscriptionIndex.key(normalized.email())).set(data))
+                .thenApply(result -> {
+                    // Write-through, so the change is visible before the listener reports it
+                    index.put(normalized);
+                    return normalized;
+                });
+    }
+
+    /**
+     * Deletes the subscription of an email.
+     *
+     * @param email the recipient address
+     * @return future completing with true if the email was subscribed
+     */
+    public CompletableFuture<Boolean> unsubscribe(String email) {
+        boolean subscribed = index.get(email) != null;
+        return firestoreService.write("unsubscribe", () -> FirestoreClient.getFirestore().collection(COLLECTION)
+                        .document(SubscriptionIndex.key(email)).delete())
+                .thenApply(result -> index.remove(email) || subscribed);
+    }
+
+    /**
+     * Returns the cached subscription of an email.
+     *
+     * @param email the recipient address
+     * @return the subscription, or null if not subscribed
+     */
+    public Subscription get(String email) {
+        return index.get(email);
+    }
+
+    /**
+     * Returns the addresses an event goes to, from the cached index.
+     *
+     * @param event the event
+     * @return recipients following the event's category or supervisor, or everything
+     */
+    public List<String> recipientsFor(Event event) {
+        return index.recipientsFor(event);
+    }
+
+    /**
+     * Copies the index so a job sees one consistent set of recipients.
+     *
+     * @return copy of the current index
+     */
+    public SubscriptionIndex snapshot() {
+        return index.copy();
+    }
+
+    /**
+     * Reports subscriber counts.
+     *
+     * @return map of metric names to values
+     */
+    public Map<String, Object> getMetrics() {
+        Map<String, Object> metrics = new LinkedHashMap<>();
+        metrics.put("loaded", loaded);
+        metrics.put("subscribers", index.size());
+        metrics.put("byCategory", index.categoryCounts());
+        return metrics;
+    }
+
+    // Applies a snapshot to the index; the first one after (re)starting the listener replaces it entirely
+    private void onChanged(QuerySnapshot snapshot, FirestoreException error) {
+        if (error != null) {
+            // The stale index keeps serving until the listener is back
+            System.err.println("Subscriptions listener failed: " + error.getMessage());
+            loaded = false;
+            listenerRetry.schedule(this::startListener, LISTENER_RETRY_SECONDS, TimeUnit.SECONDS);
+            return;
+        }
+        if (snapshot == null) {
+            return;
+        }
+        if (awaitingFullSnapshot) {
+            List<Subscription> subscriptions = new ArrayList<>();
+            for (QueryDocumentSnapshot document : snapshot.getDocuments()) {
+                subscriptions.add(fromSnapshot(document));
+            }
+            synchronized (index) {
+                index.clear();
+                for (Subscription subscription : subscriptions) {
+                    index.put(subscription);
+                }
+            }
+            awaitingFullSnapshot = false;
+            loaded = true;
+            System.out.println("Loaded " + subscriptions.size() + " subscriptions");
+            return;
+        }
+        for (DocumentChange change : snapshot.getDocumentChanges()) {
+            if (change.getType() == DocumentChange.Type.REMOVED) {
+                index.remove(fromSnapshot(change.getDocument()).email());
+            } else {
+                index.put(fromSnapshot(change.getDocument()));
+            }
+        }
+    }
+
+    private static Subscription fromSnapshot(DocumentSnapshot document) {
+        String email = document.getString("email");
+        return new Subscription(email != null ? email : document.getId(),
+                toSet(document.get("categories")), toSet(document.get("supervisors")));
+    }
+
+    private static Set<String> toSet(Object value) {
+        Set<String> values = new LinkedHashSet<>();
+        if (value instanceof List<?> list) {
+            for (Object item : list) {
+                if (item instanceof String text && !text.isBlank()) {
+                    values.add(text.trim());
+                }
+            }
+        }
+        return values;
+    }
+
+    // Checks the email, maps categories to their canonical spelling and drops blank entries
+    private static Subscription normalize(Subscription subscription) {
+        String email = subscription.email() != null ? subscription.email().trim() : "";
+        if (email.isEmpty() || email.indexOf('@') <= 0 || email.contains("/")) {
+            throw new IllegalArgumentException("Invalid email: " + subscription.email());
+        }
+        Set<String> categories = new LinkedHashSet<>();
+        if (subscription.categories() != null) {
+            for (String category : subscription.categories()) {
+                categories.add(canonicalCategory(category));
+            }
+        }
+        Set<String> supervisors = new LinkedHashSet<>();
+        if (subscription.supervisors() != null) {
+            for (String supervisor : subscription.supervisors()) {
+                if (supervisor != null && !supervisor.isBlank()) {
+                    supervisors.add(supervisor.trim());
+                }
+            }
+        }
+        return new Subscription(email, categories, supervisors);
+    }
+
+    private static String canonicalCategory(String category) {
+        if (category != null) {
+            for (String known : CATEGORIES) {
+                if (known.equalsIgnoreCase(category.trim())) {
+                    return known;
+                }
+            }
+        }
+        throw new IllegalArgumentException("Unknown category '" + category + "', expected one of " + CATEGORIES);
+    }
+}
@@ -0,0 +1,179 @@
+/**
+ * SyncExecutor.java
+ *
+ * Executor for the per-response work of a sync.
+ * Uses virtual threads when enabled and running on Java 21+, otherwise a
+ * fixed pool of platform threads, with the same concurrency limit in both modes.
+ * When several forms sync at once, each form submits through its own lane,
+ * which caps how many of the shared slots that form can hold, and waiting
+ * forms are served in arrival order, so a form with a large backlog cannot
+ * starve the others.
+ *
+ * Sources:
+ * - JEP 444 Virtual Threads: https://openjdk.org/jeps/444
+ * - Spring Boot virtual threads: https://docs.spring.io/spring-boot/reference/features/spring-application.html#features.spring-application.virtual-threads
+ *
+ * @author Artin Mehri
+ * @version 1.0
+ */
+package com.tsscalendar.TSS.Calendar.service;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Runs sync tasks with a bounded number in flight.
+ * {@link #submit(Callable)} blocks once the limit is reached, which keeps the sync
+ * from fetching pages faster than they can be written and protects Firestore quotas.
+ */
+@Service
+public class SyncExecutor {
+
+    private final ExecutorService executor;
+    private final Semaphore permits;
+    private final int maxConcurrency;
+    private final int maxConcurrencyPerForm;
+    private final boolean virtualThreads;
+
+    /**
+     * Creates the executor from configuration.
+     *
+     * @pre maxConcurrency and maxConcurrencyPerForm are greater than 0
+     * @post Virtual threads are used only if requested and supported by the running JVM
+     *
+     * @param useVirtualThreads true to run tasks on virtual threads (tss.sync.virtual-threads)
+     * @param maxConcurrency maximum number of tasks submitted but not finished (tss.sync.max-concurrency)
+     * @param maxConcurrencyPerForm maximum of those tasks belonging to one form (tss.sync.max-concurrency-per-form)
+     */
+    public SyncExecutor(@Value("${tss.sync.virtual-threads:${spring.threads.virtual.enabled:false}}") boolean useVirtualThreads,
+                        @Value("${tss.sync.max-concurrency:16}") int maxConcurrency,
+                        @Value("${tss.sync.max-concurrency-per-form:8}") int maxConcurrencyPerForm) {
+        if (maxConcurrency <= 0 || maxConcurrencyPerForm <= 0) {
+            throw new IllegalArgumentException("tss.sync.max-concurrency and tss.sync.max-concurrency-per-form must be positive");
+        }
+        this.maxConcurrency = maxConcurrency;
+        this.maxConcurrencyPerForm = Math.min(maxConcurrencyPerForm, maxConcurrency);
+        // Fair, so forms waiting for a slot get them in turn
+        this.permits = new Semaphore(maxConcurrency, true);
+
+        ExecutorService virtualExecutor = useVirtualThreads ? newVirtualThreadExecutor() : null;
+        if (virtualExecutor != null) {
+            this.executor = virtualExecutor;
+            this.virtualThreads = true;
+        } else {
+            AtomicInteger threadNumber = new AtomicInteger();
+            this.executor = Executors.newFixedThreadPool(maxConcurrency, runnable -> {
+                Thread thread = new Thread(runnable, "sync-worker-" + threadNumber.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            });
+            this.virtualThreads = false;
+        }
+        System.out.println("Sync executor using " + (virtualThreads ? "virtual" : "platform") + " threads, max concurrency " + maxConcurrency);
+    }
+
+    /**
+     * Runs a task, waiting first if maxConcurrency tasks are already in flight.
+     *
+     * @param task the work to run
+     * @return future completing with the task's result or failure
+     * @throws InterruptedException if interrupted while waiting for a free slot
+     */
+    public <T> CompletableFuture<T> submit(Callable<T> task) throws InterruptedException {
+        return submit(null, task);
+    }
+
+    /**
+     * Creates the lane one form's tasks are submitted through.
+     *
+     * @return a lane allowing maxConcurrencyPerForm tasks in flight
+     */
+    public Semaphore newLane() {
+        return new Semaphore(maxConcurrencyPerForm, true);
+    }
+
+    /**
+     * Runs a task for one form, waiting first if the form's lane or the executor is full.
+     *
+     * @param lane the form's lane from {@link #newLane()}, or null for no per-form limit
+     * @param task the work to run
+     * @return future completing with the task's result or failure
+     * @throws InterruptedException if interrupted while waiting for a free slot
+     */
+    public <T> CompletableFuture<T> submit(Semaphore lane, Callable<T> task) throws InterruptedException {
+        if (lane != null) {
+            lane.acquire();
+        }
+        try {
+            permits.acquire();
+        } catch (InterruptedException e) {
+            release(lane, false);
+            throw e;
+        }
+        CompletableFuture<T> result = new CompletableFuture<>();
+        try {
+            executor.execute(() -> {
+                try {
+                    result.complete(task.call());
+                } catch (Throwable t) {
+                    result.completeExceptionally(t);
+                } finally {
+                    release(lane, true);
+                }
+            });
+        } catch (RuntimeException e) {
+            release(lane, true);
+            throw e;
+        }
+        return result;
+    }
+
+    private void release(Semaphore lane, boolean permit) {
+        if (permit) {
+            permits.release();
+        }
+        if (lane != null) {
+            lane.release();
+        }
+    }
+
+    /**
+     * Reports which thread model is in use and how busy the executor is.
+     *
+     * @return map with virtualThreads, maxConcurrency, maxConcurrencyPerForm and inFlight keys
+     */
+    public Map<String, Object> getStatus() {
+        Map<String, Object> status = new HashMap<>();
+        status.put("virtualThreads", virtualThreads);
+        status.put("maxConcurrency", maxConcurrency);
+        status.put("maxConcurrencyPerForm", maxConcurrencyPerForm);
+        status.put("inFlight", maxConcurrency - permits.availablePermits());
+        return status;
+    }
+
+    /**
+     * Stops the worker threads when the application shuts down.
+     */
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+    // The project compiles for Java 17, so the Java 21 factory method is looked up at runtime
+    private static ExecutorService newVirtualThreadExecutor() {
+        try {
+            return (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+        } catch (ReflectiveOperationException e) {
+            System.err.println("Virtual threads requested but not supported on Java " + Runtime.version().feature() + "; using platform threads.");
+            return null;
+        }
+    }
+}
@@ -0,0 +1,497 @@
+/**
+ * SyncJournal.java
+ *
+ * Append-only journal of sync activity (the sync_history file), one JSON
+ * record per line. Callers only put records on a bounded queue; a single
+ * background thread writes them, flushing once per drained group instead of
+ * once per record, and rotates the file by size or date. A full queue either
+ * drops the record or waits briefly for space, depending on the overflow policy.
+ * Written records are added to an offset index so history queries read only
+ * the lines they need.
+ *
+ * Sources:
+ * - BlockingQueue: https://docs.oracle.com/en/java/javase/17/docs/api/java.base/java/util/concurrent/BlockingQueue.html
+ * - JSON Lines: https://jsonlines.org/
+ *
+ * @author Artin Mehri
+ * @version 1.0
+ */
+package com.tsscalendar.TSS.Calendar.service;
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+import com.google.gson.JsonParseException;
+import com.tsscalendar.TSS.Calendar.model.SyncRecord;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Stream;
+
+/**
+ * Writes sync journal records on a background thread so the sync loop never waits on disk,
+ * and answers history queries through the offset index.
+ */
+@Service
+public class SyncJournal {
+
+    /**
+     * What to do with a record when the queue is full.
+     */
+    public enum OverflowPolicy {
+        /** Discard the record immediately. */
+        DROP,
+        /** Wait up to the block timeout for space, then discard the record. */
+        BLOCK
+    }
+
+    /**
+     * Result of a history query.
+     *
+     * @param records   matching records, oldest first
+     * @param truncated true if more records matched than the limit allowed
+     */
+    public record HistoryPage(List<SyncRecord> records, boolean truncated) {
+    }
+
+    // Largest number of records written between two flushes
+    private static final int MAX_GROUP_SIZE = 512;
+
+    // Index entry of a written but not yet flushed record
+    private record PendingIndexEntry(long offset, long endOffset, long timeMillis, String eventKey) {
+    }
+
+    private final Path file;
+    private final long maxFileBytes;
+    private final boolean rotateDaily;
+    private final OverflowPolicy overflowPolicy;
+    private final long blockTimeoutMillis;
+    private final BlockingQueue<SyncRecord> queue;
+    private final Thread writerThread;
+    private final SyncJournalIndex index;
+    private final Gson gson = new GsonBuilder().disableHtmlEscaping().create();
+
+    private final AtomicLong queued = new AtomicLong();
+    private final AtomicLong written = new AtomicLong();
+    private final AtomicLong dropped = new AtomicLong();
+    private final AtomicLong flushes = new AtomicLong();
+    private final AtomicLong rotations = new AtomicLong();
+    private final AtomicLong writeErrors = new AtomicLong();
+
+    private volatile boolean running = true;
+    private volatile boolean indexReady = false;
+    // Only touched by the writer thread
+    private OutputStream out;
+    private long fileBytes;
+    private LocalDate fileDate;
+    private final List<PendingIndexEntry> pending = new ArrayList<>();
+
+    /**
+     * Creates the journal from configuration.
+     *
+     * @pre queueCapacity, maxFileBytes and indexedFiles are greater than 0
+     *
+     * @param file               journal file path (tss.journal.file)
+     * @param queueCapacity      maximum records waiting to be written (tss.journal.queue-capacity)
+     * @param maxFileBytes       size at which the file is rotated (tss.journal.max-file-bytes)
+     * @param rotateDaily        true to also rotate when the date changes (tss.journal.rotate-daily)
+     * @param overflowPolicy     DROP or BLOCK when the queue is full (tss.journal.overflow-policy)
+     * @param blockTimeoutMillis longest wait for queue space under BLOCK (tss.journal.block-timeout-ms)
+     * @param indexedFiles       number of journal files, current plus rotated, that can be queried (tss.journal.indexed-files)
+     */
+    public SyncJournal(@Value("${tss.journal.file:sync_history.jsonl}") String file,
+                       @Value("${tss.journal.queue-capacity:10000}") int queueCapacity,
+                       @Value("${tss.journal.max-file-bytes:10485760}") long maxFileBytes,
+                       @Value("${tss.journal.rotate-daily:true}") boolean rotateDaily,
+                       @Value("${tss.journal.overflow-policy:DROP}") OverflowPolicy overflowPolicy,
+                       @Value("${tss.journal.block-timeout-ms:100}") long blockTimeoutMillis,
+                       @Value("${tss.journal.indexed-files:30}") int indexedFiles) {
+        this.file = Path.of(file);
+        this.maxFileBytes = maxFileBytes;
+        this.rotateDaily = rotateDaily;
+        this.overflowPolicy = overflowPolicy;
+        this.blockTimeoutMillis = blockTimeoutMillis;
+        this.queue = new ArrayBlockingQueue<>(queueCapacity);
+        this.index = new SyncJournalIndex(indexedFiles);
+        this.writerThread = new Thread(this::writeLoop, "sync-journal");
+        this.writerThread.setDaemon(true);
+    }
+
+    /**
+     * Starts the background writer thread, which first indexes the existing journal files.
+     */
+    @PostConstruct
+    public void start() {
+        writerThread.start();
+    }
+
+    /**
+     * Queues a record for the journal. Never waits on disk; under the BLOCK policy it may
+     * wait up to the block timeout for queue space.
+     *
+     * @param record the record to write
+     * @return true if the record was queued, false if it was dropped
+     */
+    public boolean append(SyncRecord record) {
+        boolean accepted;
+        if (!running) {
+            accepted = false;
+        } else if (overflowPolicy == OverflowPolicy.BLOCK) {
+            try {
+                accepted = queue.offer(record, blockTimeoutMillis, TimeUnit.MILLISECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                accepted = false;
+            }
+        } else {
+            accepted = queue.offer(record);
+        }
+
+        if (accepted) {
+            queued.incrementAndGet();
+        } else {
+            dropped.incrementAndGet();
+        }
+        return accepted;
+    }
+
+    /**
+     * Finds journal records by time, event title and type.
+     * Only the indexed lines are read: a since-only query seeks to the nearest sparse
+     * index entry, and an event query reads exactly that event's lines.
+     *
+     * @param since only records at or after this time, or null for all
+     * @param event only records for this event title (compared normalized), or null for all
+     * @param type  only records of this type ("run" or "event"), or null for all
+     * @param limit maximum number of records returned
+     * @return the matching records, oldest first
+     */
+    public HistoryPage query(Instant since, String event, String type, int limit) {
+        long sinceMillis = since != null ? since.toEpochMilli() : Long.MIN_VALUE;
+        String eventKey = EventTitleIndex.normalize(event);
+        List<SyncRecord> records = new ArrayList<>();
+
+        for (SyncJournalIndex.ReadPlan plan : index.plan(sinceMillis, eventKey)) {
+            try (FileChannel channel = FileChannel.open(plan.path(), StandardOpenOption.READ)) {
+                if (plan.offsets() != null) {
+                    // One buffer for the whole file; each positional read fetches exactly one indexed line
+                    ByteBuffer buffer = ByteBuffer.allocate(1024);
+                    for (int i = 0; i < plan.offsets().length; i++) {
+                        int length = (int) (plan.ends()[i] - plan.offsets()[i]);
+                        if (buffer.capacity() < length) {
+                            buffer = ByteBuffer.allocate(Math.max(length, buffer.capacity() * 2));
+                        }
+                        String line = readLineAt(channel, plan.offsets()[i], length, buffer);
+                        if (collect(records, line, sinceMillis, eventKey, type, limit)) {
+                            return new HistoryPage(records.subList(0, limit), true);
+                        }
+                    }
+                } else {
+                    InputStream in = new BufferedInputStream(Channels.newInputStream(channel.position(plan.start())), 64 * 1024);
+                    long remaining = plan.end() - plan.start();
+                    while (remaining > 0) {
+                        String line = readLine(in, remaining);
+                        if (line == null) {
+                            break;
+                        }
+                        remaining -= line.getBytes(StandardCharsets.UTF_8).length + 1;
+                        if (collect(records, line, sinceMillis, eventKey, type, limit)) {
+                            return new HistoryPage(records.subList(0, limit), true);
+                        }
+                    }
+                }
+            } catch (IOException e) {
+                // The file may have been rotated away while the query ran
+                System.err.println("Failed to read sync journal " + plan.path() + ": " + e.getMessage());
+            }
+        }
+        return new HistoryPage(records, false);
+    }
+
+    /**
+     * Reports queued, written and dropped record counters.
+     *
+     * @return map of metric names to values
+     */
+    public Map<String, Object> getMetrics() {
+        Map<String, Object> metrics = new HashMap<>(index.getMetrics());
+        metrics.put("file", file.toString());
+        metrics.put("overflowPolicy", overflowPolicy.name());
+        metrics.put("indexReady", indexReady);
+        metrics.put("queueDepth", queue.size());
+        metrics.put("queued", queued.get());
+        metrics.put("written", written.get());
+        metrics.put("dropped", dropped.get());
+        metrics.put("flushes", flushes.get());
+        metrics.put("rotations", rotations.get());
+        metrics.put("writeErrors", writeErrors.get());
+        return metrics;
+    }
+
+    /**
+     * Stops accepting records, writes everything still queued and closes the file.
+     */
+    @PreDestroy
+    public void close() {
+        // Not interrupted: an interrupt would close the file channel in the middle of a write
+        running = false;
+        try {
+            writerThread.join(TimeUnit.SECONDS.toMillis(5));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    // Adds a line to records if it matches; returns true once more than limit records were collected
+    private boolean collect(List<SyncRecord> records, String line, long sinceMillis, String eventKey, String type, int limit) {
+        SyncRecord record = parse(line);
+        if (record == null || timeOf(record) < sinceMillis) {
+            return false;
+        }
+        if (eventKey != null && !eventKey.equals(EventTitleIndex.normalize(record.event()))) {
+            return false;
+        }
+        if (type != null && !type.equals(record.type())) {
+            return false;
+        }
+        records.add(record);
+        return records.size() > limit;
+    }
+
+    // Reads the line of length bytes (including its '\n') at offset into buffer; null if the file is shorter
+    private static String readLineAt(FileChannel channel, long offset, int length, ByteBuffer buffer) throws IOException {
+        buffer.clear().limit(length);
+        while (buffer.hasRemaining()) {
+            if (channel.read(buffer, offset + buffer.position()) < 0) {
+                return null;
+            }
+        }
+        int size = length > 0 && buffer.get(length - 1) == '\n' ? length - 1 : length;
+        return new String(buffer.array(), 0, size, StandardCharsets.UTF_8);
+    }
+
+    // Reads one '\n'-terminated UTF-8 line without reading past maxBytes; null at the end
+    private static String readLine(InputStream in, long maxBytes) throws IOException {
+        ByteArrayOutputStream line = new ByteArrayOutputStream(256);
+        long read = 0;
+        int b;
+        while (read < maxBytes && (b = in.read()) != -1) {
+            read++;
+            if (b == '\n') {
+                return line.toString(StandardCharsets.UTF_8);
+            }
+            line.write(b);
+        }
+        return read == 0 ? null : line.toString(StandardCharsets.UTF_8);
+    }
+
+    private SyncRecord parse(String line) {
+        try {
+            return line == null || line.isBlank() ? null : gson.fromJson(line, SyncRecord.class);
+        } catch (JsonParseException e) {
+            return null;
+        }
+    }
+
+    private static long timeOf(SyncRecord record) {
+        try {
+            return record.time() != null ? Instant.parse(record.time()).toEpochMilli() : Long.MIN_VALUE;
+        } catch (DateTimeParseException e) {
+            return Long.MIN_VALUE;
+        }
+    }
+
+    // Indexes existing files, then waits for records, drains whatever else is queued and writes the group with a single flush
+    private void writeLoop() {
+        buildIndex();
+        List<SyncRecord> group = new ArrayList<>(MAX_GROUP_SIZE);
+        while (running || !queue.isEmpty()) {
+            try {
+                SyncRecord first = queue.poll(200, TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    continue;
+                }
+                group.add(first);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                break;
+            }
+            queue.drainTo(group, MAX_GROUP_SIZE - group.size());
+            writeGroup(group);
+            group.clear();
+        }
+        closeFile();
+    }
+
+    private void writeGroup(List<SyncRecord> group) {
+        try {
+            for (SyncRecord record : group) {
+                long timeMillis = timeOf(record);
+                LocalDate day = timeMillis != Long.MIN_VALUE
+                        ? LocalDate.ofInstant(Instant.ofEpochMilli(timeMillis), ZoneId.systemDefault())
+                        : LocalDate.now();
+                rotateIfNeeded(day);
+                byte[] line = (gson.toJson(record) + "\n").getBytes(StandardCharsets.UTF_8);
+                out.write(line);
+                pending.add(new PendingIndexEntry(fileBytes, fileBytes + line.length, timeMillis,
+                        EventTitleIndex.normalize(record.event())));
+                fileBytes += line.length;
+            }
+            out.flush();
+            publishPending();
+            flushes.incrementAndGet();
+            written.addAndGet(group.size());
+        } catch (IOException e) {
+            writeErrors.incrementAndGet();
+            dropped.addAndGet(group.size());
+            pending.clear();
+            System.err.println("Sync journal write failed: " + e.getMessage());
+            closeFile();
+        }
+    }
+
+    // Only flushed lines are indexed, so a query never reads a partial line
+    private void publishPending() {
+        for (PendingIndexEntry entry : pending) {
+            index.add(entry.offset(), entry.endOffset(), entry.timeMillis(), entry.eventKey());
+        }
+        pending.clear();
+    }
+
+    // Opens the file on first use and moves it aside when it is too large or from an earlier day
+    private void rotateIfNeeded(LocalDate today) throws IOException {
+        if (out == null) {
+            Path parent = file.toAbsolutePath().getParent();
+            if (parent != null) {
+                Files.createDirectories(parent);
+            }
+            fileBytes = Files.exists(file) ? Files.size(file) : 0;
+            fileDate = Files.exists(file)
+                    ? LocalDate.ofInstant(Files.getLastModifiedTime(file).toInstant(), ZoneId.systemDefault())
+                    : today;
+            out = new BufferedOutputStream(Files.newOutputStream(file, StandardOpenOption.CREATE, StandardOpenOption.APPEND), 64 * 1024);
+        }
+        boolean tooLarge = fileBytes >= maxFileBytes;
+        boolean newDay = rotateDaily && !today.equals(fileDate);
+        if (!tooLarge && !newDay) {
+            return;
+        }
+
+        out.close();
+        publishPending();
+        Path rotated = rotatedPath(fileDate);
+        Files.move(file, rotated);
+        index.renameCurrent(rotated);
+        index.openSegment(file);
+        rotations.incrementAndGet();
+        out = new BufferedOutputStream(Files.newOutputStream(file, StandardOpenOption.CREATE, StandardOpenOption.APPEND), 64 * 1024);
+        fileBytes = 0;
+        fileDate = today;
+    }
+
+    // Scans the rotated files (oldest first) and the current file once at startup
+    private void buildIndex() {
+        List<Path> files = new ArrayList<>(rotatedFiles());
+        files.add(file);
+        for (Path path : files) {
+            index.openSegment(path);
+            if (!Files.exists(path)) {
+                continue;
+            }
+            try (InputStream in = new BufferedInputStream(Files.newInputStream(path), 64 * 1024)) {
+                long offset = 0;
+                String line;
+                while ((line = readLine(in, Long.MAX_VALUE)) != null) {
+                    long end = offset + line.getBytes(StandardCharsets.UTF_8).length + 1;
+                    SyncRecord record = parse(line);
+                    if (record != null) {
+                        index.add(offset, end, timeOf(record), EventTitleIndex.normalize(record.event()));
+                    }
+                    offset = end;
+                }
+            } catch (IOException e) {
+                System.err.println("Failed to index sync journal " + path + ": " + e.getMessage());
+            }
+        }
+        indexReady = true;
+    }
+
+    // Rotated journal files next to the current one, oldest first
+    private List<Path> rotatedFiles() {
+        String[] parts = nameParts();
+        Path directory = file.toAbsolutePath().getParent();
+        if (directory == null || !Files.isDirectory(directory)) {
+            return List.of();
+        }
+        try (Stream<Path> listing = Files.list(directory)) {
+            return listing
+                    .filter(path -> {
+                        String name = path.getFileName().toString();
+                        return name.startsWith(parts[0] + "-") && name.endsWith(parts[1]);
+                    })
+                    .sorted(Comparator.comparingLong(path -> path.toFile().lastModified()))
+                    .toList();
+        } catch (IOException e) {
+            System.err.println("Failed to list sync journal files: " + e.getMessage());
+            return List.of();
+        }
+    }
+
+    // e.g. sync_history.jsonl -> sync_history-2026-03-14.1.jsonl
+    private Path rotatedPath(LocalDate date) {
+        String[] parts = nameParts();
+        int sequence = 1;
+        Path candidate;
+        do {
+            candidate = file.resolveSibling(parts[0] + "-" + date + "." + sequence + parts[1]);
+            sequence++;
+        } while (Files.exists(candidate));
+        return candidate;
+    }
+
+    // File name split into base name and extension (with its dot)
+    private String[] nameParts() {
+        String name = file.getFileName().toString();
+        int dot = name.lastIndexOf('.');
+        return dot > 0
+                ? new String[] {name.substring(0, dot), name.substring(dot)}
+                : new String[] {name, ""};
+    }
+
+    private void closeFile() {
+        if (out == null) {
+            return;
+        }
+        try {
+            out.close();
+        } catch (IOException e) {
+            System.err.println("Failed to close sync journal: " + e.getMessage());
+        }
+        out = null;
+    }
+}
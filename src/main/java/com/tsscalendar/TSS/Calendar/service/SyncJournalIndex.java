@@ -0,0 +1,190 @@
+/**
+ * SyncJournalIndex.java
+ *
+ * Lightweight in-memory offset index over the sync journal files.
+ * Records are appended in time order, so a sparse (time, offset) list is
+ * enough to find where a "since" query starts; event titles map to the
+ * offsets of their records. Queries then read only the lines they need:
+ * a range from the nearest sparse entry, or each of an event's lines by
+ * its exact byte range.
+ *
+ * @author Artin Mehri
+ * @version 1.0
+ */
+package com.tsscalendar.TSS.Calendar.service;
+import java.nio.file.Path;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Locates journal records by time and by event title without scanning whole files.
+ * Segments are kept oldest first; only the newest maxSegments files are indexed.
+ */
+public class SyncJournalIndex {
+
+    // One sparse time entry is kept per this many records
+    private static final int SPARSE_INTERVAL = 64;
+
+    /**
+     * Part of one journal file to read.
+     *
+     * @param path    the journal file
+     * @param start   byte offset of the first line to read
+     * @param end     byte offset just past the last indexed line
+     * @param offsets exact line offsets to read instead of the range, or null to read [start, end)
+     * @param ends    byte offset just past each line in offsets, or null with offsets
+     */
+    public record ReadPlan(Path path, long start, long end, long[] offsets, long[] ends) {
+    }
+
+    // Index of one journal file
+    private static final class Segment {
+        private Path path;
+        private long[] sparseTimes = new long[16];
+        private long[] sparseOffsets = new long[16];
+        private int sparseSize = 0;
+        private long records = 0;
+        private long indexedBytes = 0;
+        private long lastTime = Long.MIN_VALUE;
+        // normalized event title -> {offset, end} of each of its lines
+        private final Map<String, List<long[]>> linesByEvent = new HashMap<>();
+
+        private Segment(Path path) {
+            this.path = path;
+        }
+    }
+
+    private final int maxSegments;
+    private final Deque<Segment> segments = new ArrayDeque<>();
+
+    /**
+     * Creates an empty index.
+     *
+     * @param maxSegments number of journal files (current plus rotated) kept in the index
+     */
+    public SyncJournalIndex(int maxSegments) {
+        this.maxSegments = maxSegments;
+    }
+
+    /**
+     * Starts indexing a new file; the previous current file keeps its index.
+     *
+     * @param path the new current journal file
+     */
+    public synchronized void openSegment(Path path) {
+        segments.addLast(new Segment(path));
+        while (segments.size() > maxSegments) {
+            segments.removeFirst();
+        }
+    }
+
+    /**
+     * Records that the current file was renamed during rotation.
+     *
+     * @param rotatedPath where the current file now lives
+     */
+    public synchronized void renameCurrent(Path rotatedPath) {
+        if (!segments.isEmpty()) {
+            segments.getLast().path = rotatedPath;
+        }
+    }
+
+    /**
+     * Adds one flushed record of the current file to the index.
+     *
+     * @param offset     byte offset of the record's line
+     * @param endOffset  byte offset just past the line
+     * @param timeMillis the record's time in epoch milliseconds
+     * @param eventKey   normalized event title, or null
+     */
+    public synchronized void add(long offset, long endOffset, long timeMillis, String eventKey) {
+        Segment segment = segments.peekLast();
+        if (segment == null) {
+            return;
+        }
+        if (segment.records % SPARSE_INTERVAL == 0) {
+            if (segment.sparseSize == segment.sparseTimes.length) {
+                segment.sparseTimes = Arrays.copyOf(segment.sparseTimes, segment.sparseSize * 2);
+                segment.sparseOffsets = Arrays.copyOf(segment.sparseOffsets, segment.sparseSize * 2);
+            }
+            segment.sparseTimes[segment.sparseSize] = timeMillis;
+            segment.sparseOffsets[segment.sparseSize] = offset;
+            segment.sparseSize++;
+        }
+        if (eventKey != null) {
+            segment.linesByEvent.computeIfAbsent(eventKey, k -> new ArrayList<>()).add(new long[] {offset, endOffset});
+        }
+        segment.records++;
+        segment.indexedBytes = endOffset;
+        segment.lastTime = Math.max(segment.lastTime, timeMillis);
+    }
+
+    /**
+     * Plans which parts of which files a query has to read, oldest file first.
+     *
+     * @param sinceMillis only records at or after this time are wanted, or Long.MIN_VALUE for all
+     * @param eventKey    normalized event title to look up, or null for every record
+     * @return one read plan per file that may contain matching records
+     */
+    public synchronized List<ReadPlan> plan(long sinceMillis, String eventKey) {
+        List<ReadPlan> plans = new ArrayList<>();
+        for (Segment segment : segments) {
+            if (segment.records == 0 || segment.lastTime < sinceMillis) {
+                continue;
+            }
+            if (eventKey != null) {
+                List<long[]> lines = segment.linesByEvent.get(eventKey);
+                if (lines != null) {
+                    long[] offsets = new long[lines.size()];
+                    long[] ends = new long[lines.size()];
+                    for (int i = 0; i < lines.size(); i++) {
+                        offsets[i] = lines.get(i)[0];
+                        ends[i] = lines.get(i)[1];
+                    }
+                    plans.add(new ReadPlan(segment.path, 0, segment.indexedBytes, offsets, ends));
+                }
+                continue;
+            }
+            plans.add(new ReadPlan(segment.path, startOffset(segment, sinceMillis), segment.indexedBytes, null, null));
+        }
+        return plans;
+    }
+
+    /**
+     * Reports how many files and records are indexed.
+     *
+     * @return map of metric names to values
+     */
+    public synchronized Map<String, Object> getMetrics() {
+        long records = 0;
+        for (Segment segment : segments) {
+            records += segment.records;
+        }
+        Map<String, Object> metrics = new HashMap<>();
+        metrics.put("indexedFiles", segments.size());
+        metrics.put("indexedRecords", records);
+        return metrics;
+    }
+
+    // Offset of the last sparse entry before sinceMillis; reading from there finds every later record
+    private long startOffset(Segment segment, long sinceMillis) {
+        int low = 0;
+        int high = segment.sparseSize - 1;
+        int found = -1;
+        while (low <= high) {
+            int mid = (low + high) >>> 1;
+            if (segment.sparseTimes[mid] < sinceMillis) {
+                found = mid;
+                low = mid + 1;
+            } else {
+                high = mid - 1;
+            }
+        }
+        return found < 0 ? 0 : segment.sparseOffsets[found];
+    }
+}
@@ -0,0 +1,176 @@
+/**
+ * TimingWheel.java
+ *
+ * Hashed timing wheel: a ring of buckets, one per tick, each a doubly linked
+ * list of timeouts. A timeout goes into the bucket of its deadline tick and
+ * counts the whole revolutions it still has to wait, so scheduling and
+ * cancelling are O(1) and advancing the wheel only visits the buckets of the
+ * ticks that passed. One thread driving advance() replaces a scheduled task
+ * per timeout.
+ *
+ * Sources:
+ * - Varghese and Lauck, Hashed and Hierarchical Timing Wheels (scheme 6): https://www.cs.columbia.edu/~nahum/w6998/papers/sosp87-timing-wheels.pdf
+ * - Netty HashedWheelTimer: https://netty.io/4.1/api/io/netty/util/HashedWheelTimer.html
+ *
+ * @author Artin Mehri
+ * @version 1.0
+ */
+package com.tsscalendar.TSS.Calendar.service;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Thread-safe timing wheel of keyed timeouts; scheduling a key again replaces its timeout.
+ *
+ * @param <K> the key type
+ * @param <T> the payload type
+ */
+public class TimingWheel<K, T> {
+
+    // One scheduled timeout, linked into the bucket of its deadline tick
+    private static final class Timeout<K, T> {
+        private final K key;
+        private final T payload;
+        private final int bucket;
+        private long remainingRounds;
+        private Timeout<K, T> previous;
+        private Timeout<K, T> next;
+
+        private Timeout(K key, T payload, int bucket, long remainingRounds) {
+            this.key = key;
+            this.payload = payload;
+            this.bucket = bucket;
+            this.remainingRounds = remainingRounds;
+        }
+    }
+
+    private final long tickMillis;
+    private final long startMillis;
+    private final int mask;
+    private final Timeout<K, T>[] heads;
+    private final Map<K, Timeout<K, T>> byKey = new HashMap<>();
+    // Index of the last tick whose bucket was processed
+    private long processedTick;
+
+    /**
+     * Creates an empty wheel.
+     *
+     * @pre tickMillis is positive and wheelSize is a power of two
+     * @param tickMillis  length of one tick; deadlines are rounded up to a tick
+     * @param wheelSize   number of buckets; one revolution lasts tickMillis * wheelSize
+     * @param startMillis the time of tick 0, e.g. System.currentTimeMillis()
+     */
+    @SuppressWarnings("unchecked")
+    public TimingWheel(long tickMillis, int wheelSize, long startMillis) {
+        if (tickMillis <= 0 || wheelSize <= 0 || Integer.bitCount(wheelSize) != 1) {
+            throw new IllegalArgumentException("tickMillis must be positive and wheelSize a power of two");
+        }
+        this.tickMillis = tickMillis;
+        this.startMillis = startMillis;
+        this.mask = wheelSize - 1;
+        this.heads = (Timeout<K, T>[]) new Timeout[wheelSize];
+    }
+
+    /**
+     * Schedules a timeout, replacing any timeout already scheduled under the key.
+     * Deadlines that already passed expire on the next tick.
+     *
+     * @param key            identifies the timeout for cancelling
+     * @param deadlineMillis when the timeout expires, in epoch milliseconds
+     * @param payload        returned by {@link #advance} on expiry
+     */
+    public synchronized void schedule(K key, long deadlineMillis, T payload) {
+        cancel(key);
+        long deadlineTick = Math.max(processedTick + 1, ceilDiv(deadlineMillis - startMillis, tickMillis));
+        long rounds = (deadlineTick - processedTick - 1) / heads.length;
+        Timeout<K, T> timeout = new Timeout<>(key, payload, (int) (deadlineTick & mask), rounds);
+
+        Timeout<K, T> head = heads[timeout.bucket];
+        timeout.next = head;
+        if (head != null) {
+            head.previous = timeout;
+        }
+        heads[timeout.bucket] = timeout;
+        byKey.put(key, timeout);
+    }
+
+    /**
+     * Cancels the timeout scheduled under a key.
+     *
+     * @param key the key passed to {@link #schedule}
+     * @return true if a timeout was pending
+     */
+    public synchronized boolean cancel(K key) {
+        Timeout<K, T> timeout = byKey.remove(key);
+        if (timeout == null) {
+            return false;
+        }
+        unlink(timeout);
+        return true;
+    }
+
+    /**
+     * Returns whether a timeout is pending under a key.
+     *
+     * @param key the key passed to {@link #schedule}
+     * @return true if scheduled and not yet expired or cancelled
+     */
+    public synchronized boolean contains(K key) {
+        return byKey.containsKey(key);
+    }
+
+    /**
+     * Processes every tick up to a time and removes the timeouts that expired.
+     *
+     * @param nowMillis the current time, in epoch milliseconds
+     * @return payloads of the expired timeouts, in tick order
+     */
+    public synchronized List<T> advance(long nowMillis) {
+        List<T> expired = new ArrayList<>();
+        long currentTick = Math.floorDiv(nowMillis - startMillis, tickMillis);
+        while (processedTick < currentTick) {
+            processedTick++;
+            Timeout<K, T> timeout = heads[(int) (processedTick & mask)];
+            while (timeout != null) {
+                Timeout<K, T> next = timeout.next;
+                if (timeout.remainingRounds == 0) {
+                    unlink(timeout);
+                    byKey.remove(timeout.key);
+                    expired.add(timeout.payload);
+                } else {
+                    timeout.remainingRounds--;
+                }
+                timeout = next;
+            }
+        }
+        return expired;
+    }
+
+    /**
+     * Returns the number of pending timeouts.
+     *
+     * @return scheduled timeouts not yet expired or cancelled
+     */
+    public synchronized int size() {
+        return byKey.size();
+    }
+
+    private void unlink(Timeout<K, T> timeout) {
+        if (timeout.previous != null) {
+            timeout.previous.next = timeout.next;
+        } else {
+            heads[timeout.bucket] = timeout.next;
+        }
+        if (timeout.next != null) {
+            timeout.next.previous = timeout.previous;
+        }
+        timeout.previous = null;
+        timeout.next = null;
+    }
+
+    private static long ceilDiv(long dividend, long divisor) {
+        return -Math.floorDiv(-dividend, divisor);
+    }
+}
@@ -0,0 +1,89 @@
+/**
+ * TokenBucket.java
+ *
+ * Token-bucket rate limiter. Tokens are added continuously at a fixed rate up
+ * to a burst capacity, and each request takes one token, so requests never
+ * exceed the rate on average and never exceed the burst at once.
+ *
+ * Sources:
+ * - Token bucket: https://en.wikipedia.org/wiki/Token_bucket
+ *
+ * @author Artin Mehri
+ * @version 1.0
+ */
+package com.tsscalendar.TSS.Calendar.service;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Blocking token-bucket limiter, safe to share between threads.
+ */
+public class TokenBucket {
+
+    private final double capacity;
+    private final double tokensPerNano;
+    private double tokens;
+    private long lastRefill;
+
+    /**
+     * Creates a full bucket.
+     *
+     * @pre ratePerSecond and capacity are greater than 0
+     *
+     * @param ratePerSecond tokens added per second
+     * @param capacity      most tokens the bucket can hold (the burst size)
+     */
+    public TokenBucket(double ratePerSecond, int capacity) {
+        this.capacity = capacity;
+        this.tokensPerNano = ratePerSecond / TimeUnit.SECONDS.toNanos(1);
+        this.tokens = capacity;
+        this.lastRefill = System.nanoTime();
+    }
+
+    /**
+     * Takes one token, waiting until one is available.
+     *
+     * @throws InterruptedException if interrupted while waiting
+     */
+    public void acquire() throws InterruptedException {
+        while (true) {
+            long waitNanos;
+            synchronized (this) {
+                refill();
+                if (tokens >= 1) {
+                    tokens -= 1;
+                    return;
+                }
+                waitNanos = (long) Math.ceil((1 - tokens) / tokensPerNano);
+            }
+            TimeUnit.NANOSECONDS.sleep(waitNanos);
+        }
+    }
+
+    /**
+     * Takes one token if one is available right now.
+     *
+     * @return true if a token was taken
+     */
+    public synchronized boolean tryAcquire() {
+        refill();
+        if (tokens >= 1) {
+            tokens -= 1;
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * Empties the bucket, e.g. after the provider answered 429 Too Many Requests.
+     */
+    public synchronized void drain() {
+        refill();
+        tokens = 0;
+    }
+
+    private void refill() {
+        long now = System.nanoTime();
+        tokens = Math.min(capacity, tokens + (now - lastRefill) * tokensPerNano);
+        lastRefill = now;
+    }
+}
@@ -0,0 +1,123 @@
+package com.tsscalendar.TSS.Calendar.service;
+
+import com.tsscalendar.TSS.Calendar.model.Event;
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class CalendarFeedTests {
+
+	private static final Instant STAMP = Instant.parse("2026-03-01T12:00:00Z");
+
+	@Test
+	void foldsLinesAtSeventyFiveOctetsWithoutSplittingCharacters() {
+		// 2-byte é and 4-byte emoji make the octet count differ from the char count
+		String content = "DESCRIPTION:" + "a".repeat(70) + "é".repeat(40) + "🎉".repeat(10);
+		StringBuilder ics = new StringBuilder();
+		CalendarFeed.line(ics, content);
+
+		String folded = ics.toString();
+		assertTrue(folded.endsWith("\r\n"));
+		String[] lines = folded.substring(0, folded.length() - 2).split("\r\n", -1);
+		assertTrue(lines.length > 1);
+		for (int i = 0; i < lines.length; i++) {
+			assertTrue(lines[i].getBytes(StandardCharsets.UTF_8).length <= 75, "line " + i + " is longer than 75 octets");
+			if (i > 0) {
+				assertTrue(lines[i].startsWith(" "));
+			}
+		}
+		// Unfolding removes each CRLF and the space after it
+		assertEquals(content, folded.substring(0, folded.length() - 2).replace("\r\n ", ""));
+	}
+
+	@Test
+	void leavesShortLinesUnfolded() {
+		StringBuilder ics = new StringBuilder();
+		CalendarFeed.line(ics, "SUMMARY:" + "x".repeat(67));
+		assertEquals("SUMMARY:" + "x".repeat(67) + "\r\n", ics.toString());
+	}
+
+	@Test
+	void escapesTextValues() {
+		assertEquals("Room 101\\, Gym\\; bring shoes\\\\socks\\nline\\nend\\n",
+				CalendarFeed.escape("Room 101, Gym; bring shoes\\socks\nline\r\nend\r"));
+		assertEquals("", CalendarFeed.escape(null));
+	}
+
+	@Test
+	void listsSkipDatesOnTheSeriesWeekdayAsExdates() {
+		Event club = event("club", "Chess Club", "Clubs", "2026-03-02", "15:30", "16:30", true);
+		Event assembly = event("assembly", "Assembly", "Student Life", "2026-03-03", null, null, true);
+		// Monday 2026-03-09 and Tuesday 2026-03-10 are PA days; Monday 2026-02-23 is before the club starts
+		Set<LocalDate> skipDates = Set.of(LocalDate.of(2026, 3, 10), LocalDate.of(2026, 3, 9), LocalDate.of(2026, 2, 23));
+
+		String ics = CalendarFeed.render(List.of(club, assembly), "", STAMP, skipDates);
+
+		String clubEvent = vevent(ics, "club");
+		assertTrue(clubEvent.contains("RRULE:FREQ=WEEKLY\r\n"));
+		assertTrue(clubEvent.contains("EXDATE;TZID=America/Toronto:20260309T153000\r\n"));
+		assertFalse(clubEvent.contains("20260310"));
+		assertFalse(clubEvent.contains("20260223"));
+
+		// An all-day series excludes whole dates
+		String assemblyEvent = vevent(ics, "assembly");
+		assertTrue(assemblyEvent.contains("DTSTART;VALUE=DATE:20260303\r\n"));
+		assertTrue(assemblyEvent.contains("EXDATE;VALUE=DATE:20260310\r\n"));
+		assertFalse(assemblyEvent.contains("20260309"));
+	}
+
+	@Test
+	void rendersTheSameBytesForTheSameEvents() {
+		Event club = event("club", "Chess Club", "Clubs", "2026-03-02", "15:30", "16:30", true);
+		Event game = event("game", "Basketball, Finals", "Sports", "2026-03-05", "18:00", "20:00", false);
+		Set<LocalDate> skipDates = Set.of(LocalDate.of(2026, 3, 16), LocalDate.of(2026, 3, 9));
+
+		String first = CalendarFeed.render(List.of(club, game), "", STAMP, skipDates);
+		assertEquals(first, CalendarFeed.render(List.of(club, game), "", STAMP, Set.of(LocalDate.of(2026, 3, 9), LocalDate.of(2026, 3, 16))));
+		assertTrue(first.contains("DTSTAMP:20260301T120000Z\r\n"));
+		assertTrue(first.contains("SUMMARY:Basketball\\, Finals\r\n"));
+
+		String sports = CalendarFeed.render(List.of(club, game), "sports", STAMP, skipDates);
+		assertTrue(sports.contains("UID:game@tss-calendar"));
+		assertFalse(sports.contains("UID:club@tss-calendar"));
+	}
+
+	@Test
+	void answersIfNoneMatchFromTheEtag() {
+		CalendarFeed.Rendered feed = new CalendarFeed.Rendered(new byte[0], "\"abc\"", STAMP, 1);
+		assertTrue(feed.isCurrent("\"abc\"", null));
+		assertTrue(feed.isCurrent("\"old\", W/\"abc\"", null));
+		assertTrue(feed.isCurrent("*", null));
+		assertFalse(feed.isCurrent("\"old\"", null));
+		// If-None-Match wins over an If-Modified-Since that alone would match
+		assertFalse(feed.isCurrent("\"old\"", "Sun, 01 Mar 2026 12:00:00 GMT"));
+	}
+
+	@Test
+	void answersIfModifiedSinceFromTheLastChange() {
+		CalendarFeed.Rendered feed = new CalendarFeed.Rendered(new byte[0], "\"abc\"", STAMP, 1);
+		assertTrue(feed.isCurrent(null, "Sun, 01 Mar 2026 12:00:00 GMT"));
+		assertTrue(feed.isCurrent(null, "Mon, 2 Mar 2026 08:00:00 GMT"));
+		assertFalse(feed.isCurrent(null, "Sun, 01 Mar 2026 11:59:59 GMT"));
+		assertFalse(feed.isCurrent(null, "yesterday"));
+		assertFalse(feed.isCurrent(null, null));
+	}
+
+	private static Event event(String id, String title, String category, String date, String start, String end, boolean weekly) {
+		return new Event(id, title, null, category, null, null, date, start, end, weekly, "approved", null, null, null);
+	}
+
+	// The VEVENT block of one event
+	private static String vevent(String ics, String id) {
+		int uid = ics.indexOf("UID:" + id + "@tss-calendar");
+		return ics.substring(ics.lastIndexOf("BEGIN:VEVENT", uid), ics.indexOf("END:VEVENT", uid));
+	}
+}
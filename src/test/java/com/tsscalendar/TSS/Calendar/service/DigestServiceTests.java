@@ -0,0 +1,81 @@
+package com.tsscalendar.TSS.Calendar.service;
+
+import com.tsscalendar.TSS.Calendar.model.EmailMessage;
+import com.tsscalendar.TSS.Calendar.model.Event;
+import com.tsscalendar.TSS.Calendar.model.Occurrence;
+import com.tsscalendar.TSS.Calendar.model.Subscription;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class DigestServiceTests {
+
+	private static final String[] CATEGORIES = {"Academics", "Clubs", "Student Life", "Sports"};
+	static final LocalDate FROM = LocalDate.of(2026, 3, 2);
+	static final LocalDate TO = LocalDate.of(2026, 3, 8);
+
+	static List<Occurrence> week(int events) {
+		List<Occurrence> occurrences = new ArrayList<>();
+		for (int i = 0; i < events; i++) {
+			LocalDate date = FROM.plusDays(i % 5);
+			Event event = new Event("e" + i, "Event " + i, "Details of event " + i, CATEGORIES[i % 4], "Teacher " + (i % 10),
+					"Room " + (100 + i), date.toString(), "15:30", "16:30", false, "approved", 3, 2026, null);
+			occurrences.add(new Occurrence(date, event));
+		}
+		return occurrences;
+	}
+
+	@Test
+	void groupsEventsByCategoryPerRecipient() {
+		List<Subscription> subscriptions = List.of(
+				new Subscription("sports@example.com", Set.of("sports"), Set.of()),
+				new Subscription("teacher@example.com", Set.of(), Set.of("Teacher 1")),
+				new Subscription("everything@example.com", Set.of(), Set.of()),
+				new Subscription("nothing@example.com", Set.of("Chess"), Set.of()));
+		List<EmailMessage> emails = new ArrayList<>();
+
+		DigestService.Composed composed = DigestService.compose(new EmailTemplates(), week(8),
+				new SubscriptionIndex(subscriptions), FROM, TO, 2, emails::addAll);
+
+		assertEquals(3, composed.digests());
+		assertEquals(3, composed.distinctBodies());
+		assertEquals(3, emails.size());
+		String sports = emails.get(0).html();
+		assertTrue(sports.contains("Event 3") && sports.contains("Event 7"));
+		assertFalse(sports.contains("Event 1<") || sports.contains(">Clubs<"));
+		// Teacher 1 runs event 1, a club
+		assertTrue(emails.get(1).html().contains(">Clubs</h2>"));
+		String everything = emails.get(2).html();
+		assertTrue(everything.indexOf(">Academics</h2>") < everything.indexOf(">Sports</h2>"));
+		assertTrue(everything.contains("2026-03-02 to 2026-03-08 · 8 events"));
+		assertEquals("TSS Calendar: events Mar 2 - Mar 8", emails.get(2).subject());
+	}
+
+	// 200 events for 10000 recipients share four bodies; DigestServiceBenchmark times the composing
+	@Test
+	void composesTenThousandDigests() {
+		int[] batches = new int[1];
+		DigestService.Composed composed = DigestService.compose(new EmailTemplates(), week(200),
+				new SubscriptionIndex(subscribers(10_000)), FROM, TO, 500, batch -> batches[0]++);
+
+		assertEquals(10_000, composed.digests());
+		assertEquals(4, composed.distinctBodies());
+		assertEquals(10_000 / 500, batches[0]);
+	}
+
+	// Each recipient follows one category
+	static List<Subscription> subscribers(int count) {
+		List<Subscription> subscriptions = new ArrayList<>(count);
+		for (int r = 0; r < count; r++) {
+			subscriptions.add(new Subscription("student" + r + "@example.com", Set.of(CATEGORIES[r % 4]), Set.of()));
+		}
+		return subscriptions;
+	}
+}
@@ -0,0 +1,130 @@
+package com.tsscalendar.TSS.Calendar.service;
+
+import com.sun.net.httpserver.HttpServer;
+import org.junit.jupiter.api.Test;
+
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class EmailDispatchServiceTests {
+
+	// Local stand-in for POST /emails/batch: the first request is rate limited, later ones succeed
+	private static HttpServer startStubServer(AtomicInteger calls, int failFirst, int failStatus) throws Exception {
+		HttpServer server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+		server.createContext("/emails/batch", exchange -> {
+			String body = new String(exchange.getRequestBody().readAllBytes(), StandardCharsets.UTF_8);
+			int call = calls.incrementAndGet();
+			byte[] response;
+			int status;
+			if (call <= failFirst) {
+				status = failStatus;
+				response = "{\"message\":\"stub failure\"}".getBytes(StandardCharsets.UTF_8);
+			} else {
+				status = 200;
+				// One ID per email in the request
+				int emails = body.split("\"from\"").length - 1;
+				StringBuilder json = new StringBuilder("{\"data\":[");
+				for (int i = 0; i < emails; i++) {
+					json.append(i > 0 ? "," : "").append("{\"id\":\"email-").append(call).append('-').append(i).append("\"}");
+				}
+				response = json.append("]}").toString().getBytes(StandardCharsets.UTF_8);
+			}
+			exchange.getResponseHeaders().add("Content-Type", "application/json");
+			exchange.sendResponseHeaders(status, response.length);
+			try (OutputStream out = exchange.getResponseBody()) {
+				out.write(response);
+			}
+		});
+		server.start();
+		return server;
+	}
+
+	private static Map<String, Object> awaitJob(EmailDispatchService service, String jobId) throws InterruptedException {
+		for (int i = 0; i < 200; i++) {
+			Map<String, Object> job = service.getJob(jobId);
+			if ("DONE".equals(job.get("state"))) {
+				return job;
+			}
+			Thread.sleep(50);
+		}
+		throw new AssertionError("Job did not finish");
+	}
+
+	private static List<String> recipients(int count) {
+		List<String> recipients = new ArrayList<>();
+		for (int i = 0; i < count; i++) {
+			recipients.add("student" + i + "@example.com");
+		}
+		return recipients;
+	}
+
+	@Test
+	void sendsInChunksAndRetriesRateLimitedRequests() throws Exception {
+		AtomicInteger calls = new AtomicInteger();
+		HttpServer server = startStubServer(calls, 1, 429);
+		EmailDispatchService service = new EmailDispatchService("test-key",
+				"http://127.0.0.1:" + server.getAddress().getPort(), "TSS <calendar@example.com>", 50, 100, 3, 10, 10);
+		try {
+			service.start();
+			String jobId = service.submit("Event reminder", "<p>Hello</p>", recipients(250));
+			Map<String, Object> job = awaitJob(service, jobId);
+
+			@SuppressWarnings("unchecked")
+			Map<String, Integer> counts = (Map<String, Integer>) job.get("counts");
+			assertEquals(250, (int) counts.get("SENT"));
+			// 3 chunks plus one retry of the rate-limited first chunk
+			assertEquals(4, calls.get());
+			@SuppressWarnings("unchecked")
+			List<EmailDispatchService.RecipientStatus> statuses = (List<EmailDispatchService.RecipientStatus>) job.get("recipients");
+			assertEquals("email-2-0", statuses.get(0).emailId());
+			assertEquals(2, statuses.get(0).attempts());
+			assertEquals("student249@example.com", statuses.get(249).recipient());
+		} finally {
+			service.close();
+			server.stop(0);
+		}
+	}
+
+	@Test
+	void marksRecipientsFailedOnClientError() throws Exception {
+		AtomicInteger calls = new AtomicInteger();
+		HttpServer server = startStubServer(calls, 1, 422);
+		EmailDispatchService service = new EmailDispatchService("test-key",
+				"http://127.0.0.1:" + server.getAddress().getPort(), "TSS <calendar@example.com>", 50, 100, 3, 10, 10);
+		try {
+			service.start();
+			String jobId = service.submit("Event reminder", "<p>Hello</p>", recipients(3));
+			Map<String, Object> job = awaitJob(service, jobId);
+
+			@SuppressWarnings("unchecked")
+			Map<String, Integer> counts = (Map<String, Integer>) job.get("counts");
+			assertEquals(3, (int) counts.get("FAILED"));
+			// A 422 is not retried
+			assertEquals(1, calls.get());
+		} finally {
+			service.close();
+			server.stop(0);
+		}
+	}
+
+	@Test
+	void rejectsRecipientsThatAreNotAddresses() {
+		EmailDispatchService service = new EmailDispatchService("test-key", "http://127.0.0.1:1", "TSS <calendar@example.com>", 50, 100, 3, 10, 10);
+		for (String recipient : Arrays.asList(null, " ", "student", "a@b", "a@@example.com", "a@example.com, b@example.com")) {
+			assertThrows(IllegalArgumentException.class,
+					() -> service.submit("Event reminder", "<p>Hello</p>", Arrays.asList("student0@example.com", recipient)));
+		}
+		assertEquals(0, (int) service.getMetrics().get("queuedJobs"));
+		assertThrows(IllegalArgumentException.class,
+				() -> new EmailDispatchService("test-key", "http://bad host", "TSS <calendar@example.com>", 50, 100, 3, 10, 10));
+	}
+}
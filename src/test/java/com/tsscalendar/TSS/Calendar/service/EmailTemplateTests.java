@@ -0,0 +1,59 @@
+package com.tsscalendar.TSS.Calendar.service;
+
+import com.tsscalendar.TSS.Calendar.model.EmailMessage;
+import com.tsscalendar.TSS.Calendar.model.Event;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class EmailTemplateTests {
+
+	@Test
+	void escapesPlaceholdersUnlessTripleBraced() {
+		EmailTemplate template = EmailTemplate.compile("<p>{{title}}</p>{{{title}}}<i>{{ missing }}</i>");
+
+		String html = template.render(Map.of("title", "Tom & Jerry's <Club> \"Night\" é"));
+		assertEquals("<p>Tom &amp; Jerry&#39;s &lt;Club&gt; &quot;Night&quot; é</p>"
+				+ "Tom & Jerry's <Club> \"Night\" é<i></i>", html);
+	}
+
+	@Test
+	void appClubTemplateKeepsMeetingDetails() {
+		String html = EmailTemplate.load("templates/app-club-reminder.html").render(Map.of(
+				"location", "Room 225", "when", "Monday After School", "classCode", "n5tvcop5"));
+
+		assertTrue(html.contains("<strong>📍 Where:</strong> Room 225<br>"));
+		assertTrue(html.contains(">n5tvcop5</code>"));
+		assertFalse(html.contains("{{"));
+	}
+
+	// One personalized email per recipient; EmailTemplateBenchmark measures the rendering rate
+	@Test
+	void rendersEventAnnouncementForEveryRecipient() {
+		List<EmailMessage> emails = new EmailTemplates().renderEventEmails(announcement(), "Robotics Night", recipients(10_000));
+
+		assertEquals(10_000, emails.size());
+		assertTrue(emails.get(9_999).html().contains("student9999@example.com is subscribed"));
+		assertTrue(emails.get(0).html().contains("Robotics &lt;Build&gt; Night"));
+		assertTrue(emails.get(0).html().contains("15:30 - 17:00"));
+	}
+
+	static Event announcement() {
+		return new Event("e1", "Robotics <Build> Night", "Bring a laptop & charger.", "Clubs", "Mr. Smith",
+				"Room 118", "2026-03-14", "15:30", "17:00", false, "approved", 3, 2026, null);
+	}
+
+	static List<String> recipients(int count) {
+		List<String> recipients = new ArrayList<>(count);
+		for (int i = 0; i < count; i++) {
+			recipients.add("student" + i + "@example.com");
+		}
+		return recipients;
+	}
+}
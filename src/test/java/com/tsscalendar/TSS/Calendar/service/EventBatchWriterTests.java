@@ -0,0 +1,29 @@
+package com.tsscalendar.TSS.Calendar.service;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class EventBatchWriterTests {
+
+	@Test
+	void onlyLaterSubmissionsReplaceTheStoredEvent() {
+		assertTrue(EventBatchWriter.isNewer("2026-03-02T15:30:01.5Z", "2026-03-02T15:30:01Z"));
+		assertFalse(EventBatchWriter.isNewer("2026-03-02T15:30:01Z", "2026-03-02T15:30:01.000Z"));
+		assertFalse(EventBatchWriter.isNewer("2026-03-01T09:00:00Z", "2026-03-02T15:30:01Z"));
+		// Events stored before lastSubmittedTime was recorded take any known edit
+		assertTrue(EventBatchWriter.isNewer("2026-03-01T09:00:00Z", null));
+		assertFalse(EventBatchWriter.isNewer(null, null));
+	}
+
+	@Test
+	void legacyKeysMatchOnTitleAndSubmitTime() {
+		String key = EventTitleIndex.legacyKey("  Chess   Club ", "2026-03-02T15:30:01Z");
+		assertEquals(key, EventTitleIndex.legacyKey("chess club", "2026-03-02T15:30:01Z"));
+		assertFalse(key.equals(EventTitleIndex.legacyKey("chess club", "2026-03-09T15:30:01Z")));
+		assertNull(EventTitleIndex.legacyKey(null, "2026-03-02T15:30:01Z"));
+	}
+}
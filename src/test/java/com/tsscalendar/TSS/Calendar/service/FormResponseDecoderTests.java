@@ -0,0 +1,96 @@
+package com.tsscalendar.TSS.Calendar.service;
+
+import com.google.api.client.json.jackson2.JacksonFactory;
+import com.google.api.services.forms.v1.model.Answer;
+import com.google.api.services.forms.v1.model.FormResponse;
+import com.google.api.services.forms.v1.model.ListFormResponsesResponse;
+import com.tsscalendar.TSS.Calendar.model.FormSubmission;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class FormResponseDecoderTests {
+
+	static final String QUESTIONS = "title:46cfc9f8,supervisor:03e3278b,location:13add265,date:2171d758,"
+			+ "start-time:0db76540,end-time:114a2ced,description:5235d67f,category:6082cc62,action-required:3b35620f,weekly:789c6989";
+	static final String[] QUESTION_IDS = {"46cfc9f8", "03e3278b", "13add265", "2171d758", "0db76540",
+			"114a2ced", "5235d67f", "6082cc62", "3b35620f", "789c6989"};
+
+	private static String text(String questionId, String value) {
+		return "\"" + questionId + "\":{\"questionId\":\"" + questionId + "\",\"textAnswers\":{\"answers\":[{\"value\":\"" + value + "\"}]}}";
+	}
+
+	// A responses.list page with the ten event questions plus an unrelated question, a file upload and a grade per response
+	static byte[] page(int responses) {
+		StringBuilder json = new StringBuilder("{\"responses\":[");
+		for (int i = 0; i < responses; i++) {
+			json.append(i > 0 ? "," : "").append("{\"formId\":\"form\",\"responseId\":\"r").append(i)
+					.append("\",\"createTime\":\"2026-03-02T15:30:0").append(i % 10).append("Z\",\"respondentEmail\":\"student")
+					.append(i).append("@example.com\",\"totalScore\":3,\"answers\":{");
+			for (int q = 0; q < QUESTION_IDS.length; q++) {
+				json.append(text(QUESTION_IDS[q], q == 3 ? "2026-03-1" + (i % 10) : "Answer " + q + " of response " + i)).append(",");
+			}
+			json.append(text("7a7a7a7a", "Unused")).append(",\"5e5e5e5e\":{\"questionId\":\"5e5e5e5e\",\"fileUploadAnswers\":")
+					.append("{\"answers\":[{\"fileId\":\"f\",\"fileName\":\"poster.png\"}]},\"grade\":{\"score\":1,\"correct\":true}}}}");
+		}
+		return json.append("],\"nextPageToken\":\"next\"}").toString().getBytes(StandardCharsets.UTF_8);
+	}
+
+	@Test
+	void decodesOnlyTheConfiguredQuestions() throws Exception {
+		String json = "{\"responses\":[{\"responseId\":\"abc\",\"createTime\":\"2026-03-02T15:30:00Z\","
+				+ "\"lastSubmittedTime\":\"2026-03-03T08:00:00Z\",\"answers\":{" + text("46cfc9f8", "Chess \\\"Club\\\"") + ","
+				+ "\"789c6989\":{\"textAnswers\":{\"answers\":[{\"value\":\"Yes\"},{\"value\":\"No\"}]}},"
+				+ text("ffffffff", "Ignored") + "}},{\"responseId\":\"def\",\"answers\":{}}]}";
+		FormResponseDecoder decoder = new FormResponseDecoder(FormResponseDecoder.parseQuestions(QUESTIONS));
+
+		FormResponseDecoder.Page page = decoder.decodePage(new ByteArrayInputStream(json.getBytes(StandardCharsets.UTF_8)));
+
+		assertEquals(2, page.submissions().size());
+		assertNull(page.nextPageToken());
+		FormSubmission first = page.submissions().get(0);
+		assertEquals("abc", first.responseId());
+		assertEquals("2026-03-03T08:00:00Z", first.lastSubmittedTime());
+		assertEquals("Chess \"Club\"", first.title());
+		assertEquals("Yes", first.weekly());
+		assertNull(first.supervisor());
+		assertEquals(new FormSubmission("def", null, null, null, null, null, null, null, null, null, null, null, null, null),
+				page.submissions().get(1));
+		assertEquals("next", decoder.decodePage(new ByteArrayInputStream(page(3))).nextPageToken());
+
+		assertThrows(IllegalArgumentException.class, () -> new FormResponseDecoder(FormResponseDecoder.parseQuestions("title:46cfc9f8")));
+	}
+
+	// The streaming decoder reads the same answers as the FormResponse object graph; FormResponseDecoderBenchmark compares their cost
+	@Test
+	void streamingDecoderMatchesObjectGraph() throws Exception {
+		byte[] json = page(500);
+		FormResponseDecoder decoder = new FormResponseDecoder(FormResponseDecoder.parseQuestions(QUESTIONS));
+
+		List<FormSubmission> streamed = decoder.decodePage(new ByteArrayInputStream(json)).submissions();
+		List<FormResponse> parsed = JacksonFactory.getDefaultInstance()
+				.fromInputStream(new ByteArrayInputStream(json), ListFormResponsesResponse.class).getResponses();
+		assertEquals(parsed.size(), streamed.size());
+		for (int i = 0; i < parsed.size(); i++) {
+			assertEquals(parsed.get(i).getResponseId(), streamed.get(i).responseId());
+			assertEquals(answerText(parsed.get(i), "46cfc9f8"), streamed.get(i).title());
+			assertEquals(answerText(parsed.get(i), "2171d758"), streamed.get(i).date());
+		}
+	}
+
+	// The answer walk the sync used before the streaming decoder
+	static String answerText(FormResponse response, String questionId) {
+		Answer answer = response.getAnswers().get(questionId);
+		if (answer != null && answer.getTextAnswers() != null && answer.getTextAnswers().getAnswers() != null
+				&& !answer.getTextAnswers().getAnswers().isEmpty()) {
+			return answer.getTextAnswers().getAnswers().get(0).getValue();
+		}
+		return null;
+	}
+}
@@ -0,0 +1,45 @@
+package com.tsscalendar.TSS.Calendar.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.InputStream;
+import java.util.Properties;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class FormSchemaTests {
+
+	@Test
+	void compilesTheConfiguredForm() throws Exception {
+		Properties properties = new Properties();
+		try (InputStream in = FormSchemaTests.class.getResourceAsStream("/application.properties")) {
+			properties.load(in);
+		}
+		String name = properties.getProperty("tss.forms.names").split(",")[0].trim();
+		FormSchema schema = FormSchema.compile(name, properties.getProperty("tss.forms." + name + ".form-id"),
+				properties.getProperty("tss.forms." + name + ".questions"), properties.getProperty("tss.forms." + name + ".categories"));
+
+		assertEquals(4, schema.categories().size());
+		assertEquals("Academics", schema.category("\uD83D\uDCD8 Academics (tests, due dates, study sessions)"));
+		assertEquals("Student Life", schema.category("\uD83C\uDF89 Student Life (events, spirit days)"));
+		// Options without an entry are stored as answered
+		assertEquals("Chess", schema.category("Chess"));
+		assertNull(schema.category(null));
+	}
+
+	@Test
+	void rejectsIncompleteSchemas() {
+		String questions = "title:a,supervisor:b,location:c,date:d,start-time:e,end-time:f,description:g,category:h,"
+				+ "action-required:i,weekly:j";
+		assertEquals("Clubs", FormSchema.compile("club", "form", questions, "Club = x=Clubs").category("Club = x"));
+		assertThrows(IllegalArgumentException.class, () -> FormSchema.compile("club", " ", questions, null));
+		assertThrows(IllegalArgumentException.class, () -> FormSchema.compile("club", "form", "title:a", null));
+		assertThrows(IllegalArgumentException.class, () -> FormSchema.compile("club", "form", questions, "Clubs"));
+		assertThrows(IllegalArgumentException.class, () -> FormSchema.compile("club", "form", questions.replace("weekly", "often"), null));
+		// Two questions sharing one question ID, and one question listed twice
+		assertThrows(IllegalArgumentException.class, () -> FormSchema.compile("club", "form", questions.replace("weekly:j", "weekly:a"), null));
+		assertThrows(IllegalArgumentException.class, () -> FormSchema.compile("club", "form", questions + ",title:k", null));
+	}
+}
@@ -0,0 +1,133 @@
+package com.tsscalendar.TSS.Calendar.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class FormSyncServiceTests {
+
+	// 50 triggers while one sync is blocked all share its result; the next trigger starts a new sync
+	@Test
+	void concurrentTriggersShareOneRun() throws Exception {
+		ExecutorService runner = Executors.newSingleThreadExecutor();
+		ExecutorService callers = Executors.newFixedThreadPool(8);
+		SingleFlight<Integer> syncs = new SingleFlight<>(runner);
+		AtomicInteger runs = new AtomicInteger();
+		CountDownLatch release = new CountDownLatch(1);
+
+		SingleFlight.Flight<Integer> first = syncs.run(() -> {
+			try {
+				release.await();
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+			}
+			return runs.incrementAndGet();
+		});
+		List<SingleFlight.Flight<Integer>> joined = new ArrayList<>();
+		List<Future<SingleFlight.Flight<Integer>>> calls = new ArrayList<>();
+		for (int i = 0; i < 50; i++) {
+			calls.add(callers.submit(() -> syncs.run(runs::incrementAndGet)));
+		}
+		for (Future<SingleFlight.Flight<Integer>> call : calls) {
+			joined.add(call.get());
+		}
+		assertTrue(syncs.isRunning());
+		release.countDown();
+
+		assertFalse(first.joined());
+		assertEquals(1, (int) first.result().get(5, TimeUnit.SECONDS));
+		for (SingleFlight.Flight<Integer> flight : joined) {
+			assertTrue(flight.joined());
+			assertEquals(1, (int) flight.result().get(5, TimeUnit.SECONDS));
+		}
+		assertEquals(1, syncs.getStarted());
+		assertEquals(50, syncs.getJoined());
+
+		SingleFlight.Flight<Integer> next = syncs.run(runs::incrementAndGet);
+		assertFalse(next.joined());
+		assertEquals(2, (int) next.result().get(5, TimeUnit.SECONDS));
+		runner.shutdown();
+		callers.shutdown();
+	}
+
+	@Test
+	void failedRunIsReportedToEveryCallerAndCleared() throws Exception {
+		ExecutorService runner = Executors.newSingleThreadExecutor();
+		SingleFlight<Integer> syncs = new SingleFlight<>(runner);
+		SingleFlight.Flight<Integer> failed = syncs.run(() -> {
+			throw new IllegalStateException("Forms API unavailable");
+		});
+		assertTrue(failed.result().handle((result, error) -> error != null).get(5, TimeUnit.SECONDS));
+		assertEquals(7, (int) syncs.run(() -> 7).result().get(5, TimeUnit.SECONDS));
+		runner.shutdown();
+	}
+
+	@Test
+	void intervalShrinksWhileResponsesArriveAndBacksOffWhenQuiet() {
+		long interval = 240;
+		interval = FormSyncService.nextInterval(interval, 30, 900, true, 12);
+		assertEquals(120, interval);
+		interval = FormSyncService.nextInterval(interval, 30, 900, true, 3);
+		interval = FormSyncService.nextInterval(interval, 30, 900, true, 1);
+		interval = FormSyncService.nextInterval(interval, 30, 900, true, 1);
+		assertEquals(30, interval);
+
+		for (int quietSyncs = 0; quietSyncs < 6; quietSyncs++) {
+			interval = FormSyncService.nextInterval(interval, 30, 900, true, 0);
+		}
+		assertEquals(900, interval);
+		// A failed sync backs off even if it fetched responses before failing
+		assertEquals(900, FormSyncService.nextInterval(600, 30, 900, false, 5));
+	}
+
+	// One form holds its whole lane with stuck tasks and queues more; another form's tasks still run straight away
+	@Test
+	void busyFormLeavesRoomForOtherForms() throws Exception {
+		SyncExecutor executor = new SyncExecutor(false, 4, 2);
+		ExecutorService busySync = Executors.newSingleThreadExecutor();
+		CountDownLatch stuck = new CountDownLatch(1);
+		Semaphore busyLane = executor.newLane();
+		Semaphore quietLane = executor.newLane();
+
+		Future<Integer> backlog = busySync.submit(() -> {
+			int submitted = 0;
+			for (; submitted < 20; submitted++) {
+				executor.submit(busyLane, () -> {
+					stuck.await();
+					return null;
+				});
+			}
+			return submitted;
+		});
+		Thread.sleep(100);
+		assertEquals(2, (int) executor.getStatus().get("inFlight"));
+
+		List<CompletableFuture<Integer>> quiet = new ArrayList<>();
+		for (int i = 0; i < 10; i++) {
+			int value = i;
+			quiet.add(executor.submit(quietLane, () -> value));
+		}
+		for (int i = 0; i < 10; i++) {
+			assertEquals(i, (int) quiet.get(i).get(5, TimeUnit.SECONDS));
+		}
+		assertFalse(backlog.isDone());
+
+		stuck.countDown();
+		assertEquals(20, (int) backlog.get(5, TimeUnit.SECONDS));
+		busySync.shutdown();
+		executor.shutdown();
+	}
+}
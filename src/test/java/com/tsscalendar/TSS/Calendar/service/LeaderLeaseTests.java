@@ -0,0 +1,56 @@
+package com.tsscalendar.TSS.Calendar.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.util.UUID;
+import java.util.concurrent.ExecutionException;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+class LeaderLeaseTests {
+
+	@Test
+	void tokenGoesUpOnlyWhenTheLeaseChangesHands() {
+		LeaderLease.Lease a = LeaderLease.next(null, "a", 1_000, 10_000);
+		assertEquals(new LeaderLease.Lease("a", 1, 11_000), a);
+
+		// Another node cannot take an unexpired lease; the holder renews it with the same token
+		assertNull(LeaderLease.next(a, "b", 5_000, 10_000));
+		LeaderLease.Lease renewed = LeaderLease.next(a, "a", 5_000, 10_000);
+		assertEquals(new LeaderLease.Lease("a", 1, 15_000), renewed);
+
+		// Once expired, the standby takes it with the next token, and so would the old holder
+		assertEquals(new LeaderLease.Lease("b", 2, 25_000), LeaderLease.next(renewed, "b", 15_000, 10_000));
+		assertEquals(new LeaderLease.Lease("a", 2, 25_000), LeaderLease.next(renewed, "a", 15_000, 10_000));
+	}
+
+	// Runs against the Firestore emulator: FIRESTORE_EMULATOR_HOST=localhost:8080 ./mvnw test
+	@Test
+	void standbyTakesOverAndStaleLeaderIsFenced() throws Exception {
+		assumeTrue(System.getenv("FIRESTORE_EMULATOR_HOST") != null, "Firestore emulator not running");
+		Firestore firestore = new Firestore(100, new CallMetrics(new SimpleMeterRegistry()));
+		String leaseId = "test-" + UUID.randomUUID();
+		String formId = "test-form-" + UUID.randomUUID();
+
+		LeaderLease.Lease first = firestore.acquireLeaseAsync(leaseId, "node-a", 1_000).get();
+		assertEquals("node-a", first.holder());
+		assertEquals("node-a", firestore.acquireLeaseAsync(leaseId, "node-b", 1_000).get().holder());
+		firestore.saveSyncWatermark(formId, "2026-03-01T00:00:00Z", leaseId, first.token());
+
+		Thread.sleep(1_200);
+		LeaderLease.Lease second = firestore.acquireLeaseAsync(leaseId, "node-b", 1_000).get();
+		assertEquals("node-b", second.holder());
+		assertEquals(first.token() + 1, second.token());
+
+		ExecutionException stale = assertThrows(ExecutionException.class,
+				() -> firestore.saveSyncWatermark(formId, "2026-03-02T00:00:00Z", leaseId, first.token()));
+		assertTrue(stale.getCause() instanceof IllegalStateException);
+		firestore.saveSyncWatermark(formId, "2026-03-03T00:00:00Z", leaseId, second.token());
+		assertEquals("2026-03-03T00:00:00Z", firestore.getSyncWatermark(formId));
+	}
+}
@@ -0,0 +1,101 @@
+package com.tsscalendar.TSS.Calendar.service;
+
+import com.tsscalendar.TSS.Calendar.model.Event;
+import com.tsscalendar.TSS.Calendar.model.Occurrence;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class RecurrenceExpanderTests {
+
+	static final LocalDate SCHOOL_START = LocalDate.of(2025, 9, 1);
+	static final LocalDate SCHOOL_END = LocalDate.of(2026, 6, 26);
+	// One skip date on each weekday
+	static final Set<LocalDate> SKIP_DATES = Set.of(LocalDate.of(2025, 10, 13), LocalDate.of(2025, 11, 14),
+			LocalDate.of(2025, 12, 23), LocalDate.of(2026, 2, 11), LocalDate.of(2026, 4, 2));
+
+	private static Event weekly(String id, String date, String startTime) {
+		return new Event(id, "Club " + id, null, "Clubs", null, null, date, startTime, null,
+				true, "approved", null, null, null);
+	}
+
+	@Test
+	void weeklyDatesStartAtFirstWeekInsideWindow() {
+		Iterator<LocalDate> dates = RecurrenceExpander.weeklyDates(LocalDate.of(2025, 9, 3),
+				LocalDate.of(2025, 10, 1), LocalDate.of(2025, 10, 20), Set.of(LocalDate.of(2025, 10, 8)));
+
+		List<LocalDate> result = new ArrayList<>();
+		dates.forEachRemaining(result::add);
+		assertEquals(List.of(LocalDate.of(2025, 10, 1), LocalDate.of(2025, 10, 15)), result);
+	}
+
+	@Test
+	void oneOffEventsAreNotSkipped() {
+		Event paDay = new Event("pa", "PA Day", null, "Student Life", null, null, "2025-10-10", null, null,
+				false, "approved", null, null, null);
+		RecurrenceExpander expander = new RecurrenceExpander(10);
+
+		Iterator<LocalDate> dates = expander.dates(paDay, SCHOOL_START, SCHOOL_END, Set.of(LocalDate.of(2025, 10, 10)));
+		assertTrue(dates.hasNext());
+		assertEquals(LocalDate.of(2025, 10, 10), dates.next());
+		assertFalse(dates.hasNext());
+	}
+
+	// An expansion cached for one set of skip dates is not served for another
+	@Test
+	void cachedExpansionsAreKeyedOnSkipDates() {
+		Event club = weekly("chess", "2025-10-01", "15:30");
+		RecurrenceExpander expander = new RecurrenceExpander(10);
+		LocalDate from = LocalDate.of(2025, 10, 1);
+		LocalDate to = LocalDate.of(2025, 10, 20);
+
+		List<LocalDate> withoutSkip = new ArrayList<>();
+		expander.dates(club, from, to, Set.of()).forEachRemaining(withoutSkip::add);
+		List<LocalDate> withSkip = new ArrayList<>();
+		expander.dates(club, from, to, Set.of(LocalDate.of(2025, 10, 8))).forEachRemaining(withSkip::add);
+
+		assertEquals(3, withoutSkip.size());
+		assertEquals(List.of(LocalDate.of(2025, 10, 1), LocalDate.of(2025, 10, 15)), withSkip);
+		assertEquals(0L, expander.getMetrics().get("hits"));
+	}
+
+	// Expands a full school year of weekly club meetings in date order; RecurrenceExpanderBenchmark times the merge
+	@Test
+	void expandsSchoolYearOfWeeklyClubs() {
+		List<Event> clubs = schoolYearClubs();
+		RecurrenceExpander expander = new RecurrenceExpander(1000);
+
+		for (int round = 0; round < 2; round++) {
+			Iterator<Occurrence> occurrences = expander.occurrences(clubs, SCHOOL_START, SCHOOL_END, SKIP_DATES);
+			int count = 0;
+			LocalDate previous = SCHOOL_START;
+			while (occurrences.hasNext()) {
+				Occurrence occurrence = occurrences.next();
+				assertFalse(occurrence.date().isBefore(previous));
+				assertFalse(SKIP_DATES.contains(occurrence.date()));
+				previous = occurrence.date();
+				count++;
+			}
+			// 43 weeks per club from the first to the last day, minus the one skip date on its weekday
+			assertEquals(200 * 42, count);
+		}
+		// The second round is served from the expansion cache
+		assertEquals(200L, expander.getMetrics().get("hits"));
+	}
+
+	static List<Event> schoolYearClubs() {
+		List<Event> clubs = new ArrayList<>();
+		for (int i = 0; i < 200; i++) {
+			clubs.add(weekly("club" + i, SCHOOL_START.plusDays(i % 5).toString(), (12 + i % 4) + ":00"));
+		}
+		return clubs;
+	}
+}
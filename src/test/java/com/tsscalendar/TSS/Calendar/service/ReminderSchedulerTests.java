@@ -0,0 +1,88 @@
+package com.tsscalendar.TSS.Calendar.service;
+
+import com.tsscalendar.TSS.Calendar.model.Event;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.time.ZonedDateTime;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ReminderSchedulerTests {
+
+	private static final long MINUTE = 60_000;
+
+	@Test
+	void wheelExpiresTimeoutsAtTheirTickAcrossRevolutions() {
+		TimingWheel<String, String> wheel = new TimingWheel<>(MINUTE, 8, 0);
+		wheel.schedule("soon", 2 * MINUTE, "soon");
+		// 8 buckets: 20 minutes is two revolutions and four ticks away
+		wheel.schedule("later", 20 * MINUTE, "later");
+		wheel.schedule("late", -5 * MINUTE, "late");
+
+		assertEquals(List.of("late"), wheel.advance(MINUTE));
+		assertEquals(List.of("soon"), wheel.advance(2 * MINUTE));
+		assertEquals(List.of(), wheel.advance(19 * MINUTE + 59_999));
+		assertEquals(List.of("later"), wheel.advance(20 * MINUTE));
+		assertEquals(0, wheel.size());
+	}
+
+	@Test
+	void wheelCancelsAndReplacesByKey() {
+		TimingWheel<String, String> wheel = new TimingWheel<>(MINUTE, 8, 0);
+		wheel.schedule("a", 3 * MINUTE, "first");
+		wheel.schedule("a", 5 * MINUTE, "second");
+		wheel.schedule("b", 3 * MINUTE, "b");
+		assertTrue(wheel.cancel("b"));
+		assertFalse(wheel.cancel("b"));
+
+		assertEquals(List.of(), wheel.advance(4 * MINUTE));
+		assertEquals(List.of("second"), wheel.advance(5 * MINUTE));
+	}
+
+	// 5000 events with two reminders each over two weeks, all fired in order by one advance per minute
+	@Test
+	void wheelHandlesThousandsOfReminders() {
+		TimingWheel<Integer, Integer> wheel = new TimingWheel<>(MINUTE, 4096, 0);
+		int count = 10_000;
+		long span = 14 * 24 * 60 * MINUTE;
+		for (int i = 0; i < count; i++) {
+			wheel.schedule(i, (long) i * span / count, i);
+		}
+		assertEquals(count, wheel.size());
+
+		int expected = 0;
+		for (long now = 0; now <= span; now += MINUTE) {
+			for (int fired : wheel.advance(now)) {
+				assertEquals(expected++, fired);
+			}
+		}
+		assertEquals(count, expected);
+	}
+
+	@Test
+	void plansWeeklyRemindersAndKeepsOnlyTheShortestDueLead() {
+		ReminderScheduler scheduler = new ReminderScheduler(new String[]{"PT1H", "P1D"}, 14, 60);
+		Event club = new Event("club", "Chess Club", null, "Clubs", null, "Room 101", "2026-03-02", "15:30", "16:30",
+				true, "approved", 3, 2026, null);
+		ZoneId zone = ZoneId.of("America/Toronto");
+		// Monday 2026-03-09 is a PA day; "now" is three hours before Monday 2026-03-02 at 15:30
+		Instant now = ZonedDateTime.of(2026, 3, 2, 12, 30, 0, 0, zone).toInstant();
+
+		List<ReminderScheduler.Reminder> reminders = scheduler.plan(club, LocalDate.of(2026, 3, 2),
+				LocalDate.of(2026, 3, 16), Set.of(LocalDate.of(2026, 3, 9)), now);
+
+		// Mar 2: the overdue day-ahead reminder is dropped since the hour-ahead one is still to come; Mar 16: both
+		assertEquals(List.of("club_2026-03-02_60m", "club_2026-03-16_60m", "club_2026-03-16_1440m"),
+				reminders.stream().map(ReminderScheduler.Reminder::id).toList());
+		assertEquals(Duration.ofHours(1), reminders.get(0).lead());
+		assertEquals(ZonedDateTime.of(2026, 3, 16, 15, 30, 0, 0, zone).toInstant(), reminders.get(1).startsAt());
+	}
+}
@@ -0,0 +1,105 @@
+package com.tsscalendar.TSS.Calendar.service;
+
+import com.tsscalendar.TSS.Calendar.model.Event;
+import com.tsscalendar.TSS.Calendar.model.Subscription;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Random;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+class SubscriptionIndexTests {
+
+	private static final String[] CATEGORIES = {"Academics", "Clubs", "Student Life", "Sports"};
+
+	private static Event event(String category, String supervisor) {
+		return new Event("e", "Event", null, category, supervisor, null, "2026-03-02", "15:30", null,
+				false, "approved", 3, 2026, null);
+	}
+
+	@Test
+	void matchesCategoriesSupervisorsAndEverything() {
+		SubscriptionIndex index = new SubscriptionIndex(List.of(
+				new Subscription("a@example.com", Set.of("Sports"), Set.of()),
+				new Subscription("b@example.com", Set.of("Clubs"), Set.of("Mr. Smith")),
+				new Subscription("c@example.com", Set.of(), Set.of())));
+
+		assertEquals(List.of("a@example.com", "c@example.com"), index.recipientsFor(event("sports", "Ms. Lee")));
+		assertEquals(List.of("b@example.com", "c@example.com"), index.recipientsFor(event("Academics", "mr. smith ")));
+
+		// Replacing and removing reuse the same IDs
+		index.put(new Subscription("A@example.com", Set.of("Academics"), Set.of()));
+		index.remove("c@example.com");
+		assertEquals(List.of("A@example.com", "b@example.com"), index.recipientsFor(event("Academics", "Mr. Smith")));
+		index.put(new Subscription("d@example.com", Set.of("Sports"), Set.of()));
+		assertEquals(3, index.idRange());
+		assertEquals("d@example.com", index.get(2).email());
+		assertNull(index.get("c@example.com"));
+	}
+
+	// 20k subscribers matched against 100 events, checked against a linear scan of every subscription;
+	// SubscriptionIndexBenchmark compares their throughput
+	@Test
+	void matchesLikeScan() {
+		List<Subscription> subscriptions = subscribers(20_000);
+		SubscriptionIndex index = new SubscriptionIndex(subscriptions);
+
+		for (Event event : events(100)) {
+			BitSet expected = new BitSet();
+			for (int r = 0; r < subscriptions.size(); r++) {
+				if (matches(subscriptions.get(r), event)) {
+					expected.set(r);
+				}
+			}
+			assertEquals(expected, index.match(event));
+		}
+	}
+
+	static List<Subscription> subscribers(int count) {
+		Random random = new Random(42);
+		List<Subscription> subscriptions = new ArrayList<>(count);
+		for (int r = 0; r < count; r++) {
+			Set<String> categories = random.nextInt(10) == 0 ? Set.of() : Set.of(CATEGORIES[random.nextInt(4)]);
+			Set<String> supervisors = random.nextInt(4) == 0 ? Set.of("Teacher " + random.nextInt(50)) : Set.of();
+			subscriptions.add(new Subscription("student" + r + "@example.com", categories, supervisors));
+		}
+		return subscriptions;
+	}
+
+	static Event[] events(int count) {
+		Event[] events = new Event[count];
+		for (int i = 0; i < count; i++) {
+			events[i] = event(CATEGORIES[i % 4], "Teacher " + i % 50);
+		}
+		return events;
+	}
+
+	// The per-subscription check the index replaces: a followed category or supervisor, compared
+	// case-insensitively, or nothing in particular followed
+	static boolean matches(Subscription subscription, Event event) {
+		if (subscription.categories().isEmpty() && subscription.supervisors().isEmpty()) {
+			return true;
+		}
+		return containsIgnoreCase(subscription.categories(), event.category())
+				|| containsIgnoreCase(subscription.supervisors(), event.supervisor());
+	}
+
+	private static boolean containsIgnoreCase(Set<String> values, String value) {
+		if (value == null) {
+			return false;
+		}
+		String key = value.trim().toLowerCase(Locale.ROOT);
+		for (String candidate : values) {
+			if (candidate.trim().toLowerCase(Locale.ROOT).equals(key)) {
+				return true;
+			}
+		}
+		return false;
+	}
+}
@@ -0,0 +1,141 @@
+package com.tsscalendar.TSS.Calendar.service;
+
+import com.tsscalendar.TSS.Calendar.model.SyncRecord;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.Comparator;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class SyncJournalIndexTests {
+
+	private static final Instant START = Instant.parse("2026-03-14T12:00:00Z");
+
+	@Test
+	void sinceQueryStartsAtTheSparseEntryBeforeTheTime() {
+		SyncJournalIndex index = new SyncJournalIndex(5);
+		Path path = Path.of("sync_history.jsonl");
+		index.openSegment(path);
+		// 200 lines of 100 bytes, one second apart; sparse entries are kept for lines 0, 64, 128 and 192
+		for (int i = 0; i < 200; i++) {
+			index.add(i * 100L, i * 100L + 100, i * 1000L, null);
+		}
+
+		List<SyncJournalIndex.ReadPlan> plans = index.plan(150_500, null);
+		assertEquals(1, plans.size());
+		assertEquals(path, plans.get(0).path());
+		assertEquals(12_800, plans.get(0).start());
+		assertEquals(20_000, plans.get(0).end());
+		assertNull(plans.get(0).offsets());
+
+		assertEquals(0, index.plan(Long.MIN_VALUE, null).get(0).start());
+		// Exactly on a sparse entry's time: the entry before it, since equal times may precede it
+		assertEquals(0, index.plan(64_000, null).get(0).start());
+		assertTrue(index.plan(200_000, null).isEmpty());
+	}
+
+	@Test
+	void eventQueryListsTheExactRangeOfEachLine() {
+		SyncJournalIndex index = new SyncJournalIndex(5);
+		index.openSegment(Path.of("sync_history.jsonl"));
+		index.add(0, 40, 1_000, null);
+		index.add(40, 95, 2_000, "chess club");
+		index.add(95, 150, 3_000, "robotics");
+		index.add(150, 230, 4_000, "chess club");
+
+		List<SyncJournalIndex.ReadPlan> plans = index.plan(Long.MIN_VALUE, "chess club");
+		assertEquals(1, plans.size());
+		assertArrayEquals(new long[] {40, 150}, plans.get(0).offsets());
+		assertArrayEquals(new long[] {95, 230}, plans.get(0).ends());
+		assertTrue(index.plan(Long.MIN_VALUE, "debate").isEmpty());
+	}
+
+	@Test
+	void rotatedSegmentsKeepTheirIndexUnderTheNewPath() {
+		SyncJournalIndex index = new SyncJournalIndex(2);
+		Path current = Path.of("sync_history.jsonl");
+		index.openSegment(current);
+		index.add(0, 50, 1_000, "chess club");
+		index.renameCurrent(Path.of("sync_history-2026-03-13.1.jsonl"));
+		index.openSegment(current);
+		index.add(0, 50, 5_000, "chess club");
+
+		List<SyncJournalIndex.ReadPlan> plans = index.plan(Long.MIN_VALUE, "chess club");
+		assertEquals(2, plans.size());
+		assertEquals(Path.of("sync_history-2026-03-13.1.jsonl"), plans.get(0).path());
+		assertEquals(current, plans.get(1).path());
+		// A file whose last record is older than "since" is not read at all
+		assertEquals(List.of(current), index.plan(2_000, null).stream().map(SyncJournalIndex.ReadPlan::path).toList());
+
+		// Only the newest two files stay indexed
+		index.renameCurrent(Path.of("sync_history-2026-03-14.1.jsonl"));
+		index.openSegment(current);
+		index.add(0, 50, 9_000, "chess club");
+		assertEquals(List.of(Path.of("sync_history-2026-03-14.1.jsonl"), current),
+				index.plan(Long.MIN_VALUE, "chess club").stream().map(SyncJournalIndex.ReadPlan::path).toList());
+	}
+
+	@Test
+	void journalAnswersQueriesFromTheIndexAcrossRotatedFiles() throws Exception {
+		Path directory = Files.createTempDirectory("sync-journal");
+		try {
+			// Small files, so the records are spread over several rotations
+			SyncJournal journal = new SyncJournal(directory.resolve("sync_history.jsonl").toString(), 1000, 600, false,
+					SyncJournal.OverflowPolicy.DROP, 100, 30);
+			journal.start();
+			for (int run = 0; run < 5; run++) {
+				String runId = "run-" + run;
+				journal.append(record(runId, run * 10, "run", null, "started"));
+				journal.append(record(runId, run * 10 + 1, "event", "Chess Club", "added"));
+				journal.append(record(runId, run * 10 + 2, "event", "Robotics – Team Ünïcode", "added"));
+				journal.append(record(runId, run * 10 + 3, "run", null, "completed"));
+			}
+			journal.close();
+			assertTrue(((Number) journal.getMetrics().get("rotations")).longValue() > 0);
+
+			// Titles are matched normalized; each line is read by its exact range
+			List<SyncRecord> chess = journal.query(null, "  chess   CLUB ", null, 100).records();
+			assertEquals(5, chess.size());
+			for (int run = 0; run < 5; run++) {
+				assertEquals("run-" + run, chess.get(run).runId());
+				assertEquals("Chess Club", chess.get(run).event());
+			}
+			assertEquals("Robotics – Team Ünïcode", journal.query(null, "robotics – team ünïcode", null, 100).records().get(4).event());
+
+			// A since query skips the older files and the lines before the time
+			List<SyncRecord> recent = journal.query(START.plusSeconds(31), null, "run", 100).records();
+			assertEquals(List.of("completed", "started", "completed"), recent.stream().map(SyncRecord::outcome).toList());
+
+			SyncJournal.HistoryPage limited = journal.query(null, null, null, 3);
+			assertTrue(limited.truncated());
+			assertEquals(3, limited.records().size());
+			assertFalse(journal.query(null, "debate", null, 100).truncated());
+		} finally {
+			try (Stream<Path> files = Files.walk(directory)) {
+				files.sorted(Comparator.reverseOrder()).forEach(SyncJournalIndexTests::delete);
+			}
+		}
+	}
+
+	private static SyncRecord record(String runId, int second, String type, String event, String outcome) {
+		return new SyncRecord(runId, START.plusSeconds(second).toString(), type, event, outcome, null, null);
+	}
+
+	private static void delete(Path path) {
+		try {
+			Files.delete(path);
+		} catch (IOException e) {
+			path.toFile().deleteOnExit();
+		}
+	}
+}